@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.benchmark;
+
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageFile;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.image.FitsImageLoader;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import java.io.File;
+
+/**
+ * Example files (test directory) and synthetic images shared by benchmarks
+ * @author bourgesl
+ */
+public final class BenchmarkFiles {
+
+    /** test directory (system property oimaging.test.dir) */
+    public static final String TEST_DIR = System.getProperty("oimaging.test.dir", "../test");
+    /** example OIFits file */
+    public static final String EXAMPLE_OIFITS = "2004-FKV1137-L1L2-example.fits";
+    /** example prior image */
+    public static final String PRIOR_IMAGE = "priors/OnlyHighFrequencies2.fits";
+
+    /**
+     * Forbidden constructor
+     */
+    private BenchmarkFiles() {
+        super();
+    }
+
+    /**
+     * @param name file name relative to the test directory
+     * @return file in the test directory
+     */
+    public static File getFile(final String name) {
+        final File file = new File(TEST_DIR, name);
+        if (!file.exists()) {
+            throw new IllegalStateException("Missing file: " + file.getAbsolutePath() + " (use -Doimaging.test.dir=...)");
+        }
+        return file;
+    }
+
+    public static OIFitsFile loadExampleOIFits() throws Exception {
+        return OIFitsLoader.loadOIFits(getFile(EXAMPLE_OIFITS).getAbsolutePath());
+    }
+
+    public static FitsImageFile loadPrior() throws Exception {
+        return FitsImageLoader.load(getFile(PRIOR_IMAGE).getAbsolutePath(), true, true);
+    }
+
+    /**
+     * Create a synthetic image HDU (gaussian) with the given HDUNAME and checksum
+     * @param hduName HDUNAME
+     * @param checksum checksum (unique to avoid duplicate detection)
+     * @param size image size (pixels)
+     * @return new image HDU
+     */
+    public static FitsImageHDU createImageHDU(final String hduName, final long checksum, final int size) {
+        final FitsImageHDU hdu = new FitsImageHDU() {
+            @Override
+            public long getChecksum() {
+                return checksum;
+            }
+        };
+        hdu.setHduName(hduName);
+
+        final float[][] data = new float[size][size];
+        final double half = 0.5 * size;
+        final double sigma2 = 2.0 * (0.1 * size) * (0.1 * size);
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                final double r2 = (i - half) * (i - half) + (j - half) * (j - half);
+                data[j][i] = (float) Math.exp(-r2 / sigma2);
+            }
+        }
+        final double inc = Math.toRadians(0.1 / 3600000.0); // 0.1 mas
+
+        final FitsImage image = new FitsImage();
+        image.setPixRefCol(half);
+        image.setPixRefRow(half);
+        image.setSignedIncCol(-inc);
+        image.setSignedIncRow(inc);
+        image.setData(data);
+        hdu.getFitsImages().add(image);
+        return hdu;
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.gui;
+
+import fr.jmmc.jmal.image.ColorModels;
+import fr.jmmc.oimaging.benchmark.BenchmarkFiles;
+import fr.jmmc.oimaging.model.FitsPlaneReader;
+import fr.jmmc.oimaging.services.ServiceResult;
+import fr.jmmc.oitools.image.FitsImage;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Result grid thumbnails (ViewerPanel.displayGrid): first plane read from the memory-mapped file,
+ * downsampled rendering and cached lookups
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ThumbnailBenchmark {
+
+    /* members */
+    File imageFile;
+    float[][] data;
+    float min;
+    float max;
+    IndexColorModel colorModel;
+    ServiceResult result;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        imageFile = BenchmarkFiles.getFile(BenchmarkFiles.PRIOR_IMAGE);
+
+        final FitsPlaneReader reader = new FitsPlaneReader(imageFile);
+        try {
+            data = reader.readPlane(0, 0);
+        } finally {
+            reader.close();
+        }
+        final double[] range = FitsPlaneReader.getDataRange(data);
+        min = (float) range[0];
+        max = (float) range[1];
+        colorModel = ColorModels.getColorModel(ColorModels.COLOR_MODEL_HEAT);
+
+        // result not loaded: preview plane read from the file
+        result = new ServiceResult(imageFile, imageFile, null);
+        result.setValid(true);
+    }
+
+    @Benchmark
+    public float[][] readPreviewPlane() throws Exception {
+        final FitsPlaneReader reader = new FitsPlaneReader(imageFile);
+        try {
+            return reader.readPlane(0, 0);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return ThumbnailCache.render(data, colorModel, min, max);
+    }
+
+    @Benchmark
+    public BufferedImage thumbnailMiss() {
+        // preview plane + rendering (cache bypassed)
+        final FitsImage image = ThumbnailCache.getPreviewImage(result);
+        return ThumbnailCache.render(image.getData(), colorModel, min, max);
+    }
+
+    @Benchmark
+    public BufferedImage thumbnailHit() {
+        return ThumbnailCache.getInstance().getThumbnail(result, ColorModels.COLOR_MODEL_HEAT, min, max);
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oimaging.benchmark.BenchmarkFiles;
+import fr.jmmc.oimaging.services.ServiceResult;
+import fr.jmmc.oitools.image.FitsImageFile;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * IRModel hot paths: input file export (prepareTempFile: keywords rewritten only or complete export
+ * when the data revision changed), result insertion (addServiceResult)
+ * and image HDU insertion (addFitsImageHDUs) with N existing images
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IRModelBenchmark {
+
+    /** synthetic image size (pixels) */
+    private static final int IMAGE_SIZE = 64;
+
+    /**
+     * Create a model with the example OIFits file and the prior image
+     * @return new model
+     * @throws Exception if loading fails
+     */
+    static IRModel createModel() throws Exception {
+        final IRModel irModel = new IRModel();
+        irModel.loadOifitsFile(BenchmarkFiles.loadExampleOIFits());
+        irModel.addFitsImageFile(BenchmarkFiles.loadPrior());
+        return irModel;
+    }
+
+    /**
+     * Create an image file containing the given HDUs
+     * @param hdus image HDUs
+     * @return image file
+     * @throws Exception if loading fails
+     */
+    static FitsImageFile createImageFile(final List<FitsImageHDU> hdus) throws Exception {
+        // reuse the prior file (name, path) with other HDUs:
+        final FitsImageFile imageFile = BenchmarkFiles.loadPrior();
+        imageFile.getFitsImageHDUs().clear();
+        imageFile.getFitsImageHDUs().addAll(hdus);
+        return imageFile;
+    }
+
+    /** model exporting its input file */
+    @State(Scope.Thread)
+    public static class ExportState {
+
+        IRModel irModel;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            irModel = createModel();
+        }
+    }
+
+    /** model with N image HDUs and a new image file to add */
+    @State(Scope.Thread)
+    public static class ImageState {
+
+        /** number of image HDUs already present */
+        @Param({"10", "100", "1000"})
+        int existing;
+
+        IRModel irModel;
+        FitsImageFile newImageFile;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Exception {
+            final List<FitsImageHDU> hdus = new ArrayList<FitsImageHDU>(existing);
+            for (int i = 0; i < existing; i++) {
+                // unique checksums and names:
+                hdus.add(BenchmarkFiles.createImageHDU("IMG-" + i, 1000L + i, IMAGE_SIZE));
+            }
+            irModel = createModel();
+            irModel.addFitsImageFile(createImageFile(hdus));
+
+            newImageFile = createImageFile(Collections.singletonList(BenchmarkFiles.createImageHDU("NEW", 1L, IMAGE_SIZE)));
+        }
+    }
+
+    /** model and results to add (not loaded or already ingested) */
+    @State(Scope.Thread)
+    public static class ResultState {
+
+        IRModel irModel;
+        File resultFile;
+        ServiceResult coldResult;
+        ServiceResult ingestedResult;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() throws Exception {
+            irModel = createModel();
+            // any OIFits file is a valid result:
+            resultFile = BenchmarkFiles.getFile(BenchmarkFiles.EXAMPLE_OIFITS);
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Exception {
+            irModel.getResultSets().clear();
+
+            coldResult = createResult();
+            // as done by the ResultIngestor:
+            ingestedResult = createResult();
+            ingestedResult.loadOIFitsFile();
+        }
+
+        private ServiceResult createResult() {
+            final ServiceResult result = new ServiceResult(resultFile, resultFile, new File(resultFile.getParentFile(), "missing.log.txt"));
+            result.setValid(true);
+            return result;
+        }
+    }
+
+    @Benchmark
+    public File prepareTempFile(final ExportState state) throws Exception {
+        // data unchanged after the first call: only keywords are rewritten
+        final File file = state.irModel.prepareTempFile();
+        file.delete();
+        return file;
+    }
+
+    @Benchmark
+    public File prepareTempFileFullExport(final ExportState state) throws Exception {
+        final IRModel irModel = state.irModel;
+        // selected image modified: new data revision so the complete file is exported
+        irModel.fitsImageHDUChanged(irModel.getSelectedInputImageHDU());
+
+        final File file = irModel.prepareTempFile();
+        file.delete();
+        return file;
+    }
+
+    @Benchmark
+    public int addFitsImageHDUs(final ImageState state) {
+        state.irModel.addFitsImageFile(state.newImageFile);
+        return state.irModel.getFitsImageHDUs().size();
+    }
+
+    @Benchmark
+    public int addServiceResult(final ResultState state) {
+        // result loaded by the calling thread
+        state.irModel.addServiceResult(state.coldResult);
+        return state.irModel.getResultSets().size();
+    }
+
+    @Benchmark
+    public int addServiceResultIngested(final ResultState state) {
+        // only the model insertion remains (Swing EDT)
+        state.irModel.addServiceResult(state.ingestedResult);
+        return state.irModel.getResultSets().size();
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oimaging.benchmark.BenchmarkFiles;
+import fr.jmmc.oimaging.services.ServiceResult;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Result table rendering cost: getValueAt over all cells of large result lists
+ * (results loaded once then unloaded by the ResultCache: only their metadata remain)
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetTableModelBenchmark {
+
+    /** number of results */
+    @Param({"100", "1000", "10000"})
+    int results;
+
+    /* members */
+    ResultSetTableModel tableModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final File resultFile = BenchmarkFiles.getFile(BenchmarkFiles.EXAMPLE_OIFITS);
+
+        // extract metadata once (shared file):
+        final ServiceResult loaded = new ServiceResult(resultFile, resultFile, null);
+        loaded.loadOIFitsFile();
+
+        final List<ServiceResult> list = new ArrayList<ServiceResult>(results);
+        for (int i = 0; i < results; i++) {
+            final ServiceResult result = (i == 0) ? loaded : new ServiceResult(resultFile, resultFile, null);
+            result.setValid(true);
+            list.add(result);
+        }
+        tableModel = new ResultSetTableModel();
+        tableModel.setResults(list);
+    }
+
+    @Benchmark
+    public void getValueAt(final Blackhole bh) {
+        final ResultSetTableModel model = tableModel;
+        for (int r = 0, rows = model.getRowCount(); r < rows; r++) {
+            for (int c = 0, cols = model.getColumnCount(); c < cols; c++) {
+                bh.consume(model.getValueAt(r, c));
+            }
+        }
+    }
+}
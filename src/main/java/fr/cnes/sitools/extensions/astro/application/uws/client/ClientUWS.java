@@ -19,14 +19,26 @@
 package fr.cnes.sitools.extensions.astro.application.uws.client;
 
 import fr.cnes.sitools.extensions.astro.application.uws.common.Util;
-import fr.jmmc.jmcs.util.FileUtils;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
@@ -41,11 +53,16 @@ import net.ivoa.xml.uws.v1.Results;
 import net.ivoa.xml.uws.v1.ShortJobDescription;
 import org.restlet.Client;
 import org.restlet.Context;
+import org.restlet.data.Digest;
 import org.restlet.data.Form;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Protocol;
+import org.restlet.data.Range;
 import org.restlet.data.Reference;
+import org.restlet.data.Status;
 import org.restlet.ext.html.FormDataSet;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
 import org.restlet.resource.ResourceException;
@@ -69,17 +86,40 @@ public final class ClientUWS {
     /** Package name for JAXB generated code */
     private static final String UWS_JAXB_PATH = "net.ivoa.xml.uws.v1";
 
+    /** number of immediate WAIT returns before considering the server does not support WAIT */
+    private static final int WAIT_MAX_FAST_RETURNS = 2;
+
+    /** download buffer size (64K) */
+    private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+    /** blob store path (relative to the server URL) */
+    private static final String BLOBS_PATH = "blobs/";
+    /** maximum number of download resume attempts */
+    private static final int DOWNLOAD_MAX_RETRIES = 3;
+
+    /** default maximum number of connections per host */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 10;
+
     /* reused JAXB Context to unmarshall UWS v1 elements */
-    private static JAXBContext jaxbContext = null;
+    private static volatile JAXBContext jaxbContext = null;
 
     /* reused restlet Http Client (thread-safe) */
-    private static Client httpClient = null;
+    private static volatile Client httpClient = null;
+
+    /* maximum number of connections per host of the shared http client */
+    private static int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
 
     private static JAXBContext getJAXBContext() throws JAXBException {
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(UWS_JAXB_PATH);
+        JAXBContext context = jaxbContext;
+        if (context == null) {
+            synchronized (ClientUWS.class) {
+                context = jaxbContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance(UWS_JAXB_PATH);
+                    jaxbContext = context;
+                }
+            }
         }
-        return jaxbContext;
+        return context;
     }
 
     private static Object unmarshal(final String xml) throws ClientUWSException {
@@ -92,22 +132,57 @@ public final class ClientUWS {
     }
 
     private static Client getClient() {
-        if (httpClient == null) {
-            final Context ctx = new Context();
-            // TODO: use NetworkingService settings:
-            ctx.getParameters().set("maxTotalConnections", "10");
-            ctx.getParameters().set("maxConnectionsPerHost", "5");
-            ctx.getParameters().set("idleCheckInterval", "10000"); // 10s
+        Client client = httpClient;
+        if (client == null) {
+            synchronized (ClientUWS.class) {
+                client = httpClient;
+                if (client == null) {
+                    final Context ctx = new Context();
+                    // TODO: use NetworkingService settings:
+                    // note: blocking WAIT requests hold one connection per running job:
+                    ctx.getParameters().set("maxTotalConnections", Integer.toString(2 * maxConnectionsPerHost));
+                    ctx.getParameters().set("maxConnectionsPerHost", Integer.toString(maxConnectionsPerHost));
+                    ctx.getParameters().set("idleCheckInterval", "10000"); // 10s
 
-            Context.setCurrent(ctx);
-            httpClient = new Client(ctx, Protocol.HTTP);
+                    Context.setCurrent(ctx);
+                    client = new Client(ctx, Protocol.HTTP);
+                    httpClient = client;
+
+                    _logger.debug("http client: {} connections per host", maxConnectionsPerHost);
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Define the maximum number of connections per host of the shared http client
+     * (blocking WAIT requests hold one connection per running job, downloads need others).
+     * The http client is created again on the next request if this value changes.
+     * @param maxConnections maximum number of connections per host (1 at least)
+     */
+    public static void setMaxConnectionsPerHost(final int maxConnections) {
+        final int n = Math.max(1, maxConnections);
+        synchronized (ClientUWS.class) {
+            if (n != maxConnectionsPerHost) {
+                maxConnectionsPerHost = n;
+                // pending requests keep using the previous client:
+                httpClient = null;
+            }
         }
-        return httpClient;
     }
 
     // members:
     private final Reference serverUWS;
     private final Reference jobsUWS;
+    /** UWS 1.1 blocking WAIT support (null means unknown) */
+    private volatile Boolean waitSupported = null;
+    /** number of WAIT requests returned immediately without any phase change */
+    private final AtomicInteger waitFastReturns = new AtomicInteger();
+    /** content-addressed blob store support (null means unknown) */
+    private volatile Boolean blobSupported = null;
+    /** hashes of the blobs known to be stored on the server */
+    private final Set<String> knownBlobs = Collections.synchronizedSet(new HashSet<String>());
 
     /**
      * Constructor having the UWS service name as parameter.
@@ -290,7 +365,7 @@ public final class ClientUWS {
             checkRedirect(resource, "createJob: Cannot create a new Job");
             return resource.getResponse().getLocationRef().getLastSegment();
         } catch (ResourceException re) {
-            throw new ClientUWSException(re);
+            throw new ClientUWSException(re.getStatus(), re);
         } finally {
             release(resource, representation);
         }
@@ -313,7 +388,7 @@ public final class ClientUWS {
             checkRedirect(resource, "createJob: Cannot create a new Job");
             return resource.getResponse().getLocationRef().getLastSegment();
         } catch (ResourceException re) {
-            throw new ClientUWSException(re);
+            throw new ClientUWSException(re.getStatus(), re);
         } finally {
             release(resource, representation);
         }
@@ -495,6 +570,67 @@ public final class ClientUWS {
         }
     }
 
+    /**
+     * Wait for the phase change of a job using the UWS 1.1 blocking behaviour:
+     * GET {jobs}/{job-id}?WAIT=n&PHASE=phase blocks until the phase differs from the given one
+     * or the wait duration expires. Servers without WAIT support (UWS 1.0) return immediately.
+     *
+     * The WAIT support is detected from the server response time (see isWaitSupported()).
+     *
+     * @param jobId Job ID
+     * @param phase current phase (the server blocks while the job is in this phase)
+     * @param waitSeconds maximum duration (seconds) the server may block the request
+     * @return Returns the current ExecutionPhase
+     * @exception ClientUWSException
+     */
+    @SuppressWarnings("unchecked")
+    public ExecutionPhase waitJobPhase(final String jobId, final ExecutionPhase phase, final int waitSeconds) throws ClientUWSException {
+        checkJobId(jobId);
+        final ClientResource resource = createJobResource(Method.GET, jobId,
+                "?WAIT=" + waitSeconds + "&PHASE=" + phase.value(), true);
+        Representation representation = null;
+        try {
+            final long start = System.nanoTime();
+
+            final JobSummary jobSummary = ((JAXBElement<JobSummary>) unmarshal(getText(resource, representation = resource.get(),
+                    "waitJobPhase: Cannot get information about job ", jobId))).getValue();
+
+            final ExecutionPhase newPhase = jobSummary.getPhase();
+
+            if (newPhase == phase) {
+                final long elapsed = (System.nanoTime() - start) / 1000000L;
+
+                if (elapsed >= (waitSeconds * 1000L) / 2L) {
+                    // blocked: WAIT supported
+                    if (waitSupported == null) {
+                        _logger.info("UWS server supports blocking WAIT: {}", serverUWS);
+                    }
+                    waitSupported = Boolean.TRUE;
+                } else if (waitSupported == null && waitFastReturns.incrementAndGet() >= WAIT_MAX_FAST_RETURNS) {
+                    // returned immediately several times: WAIT ignored
+                    _logger.info("UWS server does not support blocking WAIT: {}", serverUWS);
+                    waitSupported = Boolean.FALSE;
+                }
+            }
+            if (_logger.isDebugEnabled()) {
+                _logger.debug("waitJobPhase[{}]: {} => {}", jobId, phase, newPhase);
+            }
+            return newPhase;
+        } catch (ResourceException re) {
+            throw new ClientUWSException(re);
+        } finally {
+            release(resource, representation);
+        }
+    }
+
+    /**
+     * Return the UWS 1.1 blocking WAIT support
+     * @return TRUE if supported, FALSE if not supported or null if unknown (not yet detected)
+     */
+    public Boolean isWaitSupported() {
+        return waitSupported;
+    }
+
     /**
      * Set the phase of a job
      * @param jobId Job ID
@@ -597,6 +733,67 @@ public final class ClientUWS {
         }
     }
 
+    /**
+     * Get the content of a job result from the given offset (HTTP Range request),
+     * for example the log file of an executing job
+     * @param jobId Job ID
+     * @param resultId result identifier
+     * @param offset number of bytes already read
+     * @return new bytes (may be empty) or null if the result is not available (yet)
+     * @exception ClientUWSException
+     */
+    public byte[] getJobResultPart(final String jobId, final String resultId, final long offset) throws ClientUWSException {
+        checkJobId(jobId);
+        final ClientResource resource = createJobResource(Method.GET, jobId, "/results/" + resultId, true);
+        if (offset != 0L) {
+            resource.getRanges().add(new Range(offset, Range.SIZE_MAX));
+        }
+        Representation representation = null;
+        try {
+            representation = resource.get();
+            checkStatus(resource, "getJobResultPart: Cannot get result about job ", jobId);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(DOWNLOAD_BUFFER_SIZE);
+            final InputStream in = representation.getStream();
+            if (in != null) {
+                if (offset != 0L && !Status.SUCCESS_PARTIAL_CONTENT.equals(resource.getStatus())) {
+                    // Range ignored by the server (200 instead of 206): skip bytes already read without buffering them
+                    long remaining = offset;
+                    while (remaining > 0L) {
+                        final long n = in.skip(remaining);
+                        if (n > 0L) {
+                            remaining -= n;
+                        } else if (in.read() != -1) {
+                            remaining--;
+                        } else {
+                            // shorter than the offset: no new content
+                            return new byte[0];
+                        }
+                    }
+                }
+                final byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            return out.toByteArray();
+        } catch (IOException ioe) {
+            throw new ClientUWSException(ioe);
+        } catch (ResourceException re) {
+            if (Status.CLIENT_ERROR_REQUESTED_RANGE_NOT_SATISFIABLE.equals(re.getStatus())) {
+                // no new content:
+                return new byte[0];
+            }
+            if (Status.CLIENT_ERROR_NOT_FOUND.equals(re.getStatus())) {
+                return null;
+            }
+            throw new ClientUWSException(re.getStatus(), re);
+        } finally {
+            release(resource, representation);
+        }
+    }
+
     /**
      * Get parameters of a job
      * @param jobId Job ID
@@ -639,34 +836,279 @@ public final class ClientUWS {
         }
     }
 
+    /**
+     * Download the given url into the given file
+     * @param url url to download
+     * @param outputFile file to write
+     * @return true if the file was downloaded
+     * @exception ClientUWSException
+     */
     public boolean downloadFile(final String url, final File outputFile) throws ClientUWSException {
+        return downloadFile(url, outputFile, null);
+    }
+
+    /**
+     * Download the given url into the given file using NIO channels (chunks).
+     * If the connection drops or ends before the announced size, the download is resumed using HTTP Range requests.
+     * If the server gives the Content-MD5 header, the file checksum is verified.
+     * @param url url to download
+     * @param outputFile file to write
+     * @param listener optional progress listener (may be null)
+     * @return true if the file was downloaded
+     * @exception ClientUWSException
+     */
+    public boolean downloadFile(final String url, final File outputFile, final DownloadListener listener) throws ClientUWSException {
         if (!Util.isSet(url) || !Util.isSet(outputFile)) {
             throw new IllegalArgumentException("downloadFile: url and outputFile are required");
         }
-        final ClientResource resource = createResource(Method.GET, url, true);
-        Representation representation = null;
-        try {
-            representation = resource.get();
+        if (outputFile.exists()) {
+            outputFile.delete();
+        }
 
-            FileUtils.saveStream(representation.getStream(), outputFile);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(DOWNLOAD_BUFFER_SIZE);
+        Digest expectedDigest = null;
+        long offset = 0L;
+        long total = -1L;
+        int attempt = 0;
 
-            if (_logger.isDebugEnabled()) {
-                _logger.debug("File '{}' saved ({} bytes).", outputFile, outputFile.length());
+        while (true) {
+            final ClientResource resource = createResource(Method.GET, url, true);
+            if (offset != 0L) {
+                // resume:
+                resource.getRanges().add(new Range(offset, Range.SIZE_MAX));
             }
-            return true;
+            Representation representation = null;
+            try {
+                representation = resource.get();
+                checkStatus(resource, "downloadFile: Cannot download ", url);
 
-        } catch (IOException ioe) {
-            if (outputFile.exists()) {
+                if (offset != 0L && !Status.SUCCESS_PARTIAL_CONTENT.equals(resource.getStatus())) {
+                    // Range ignored by the server: restart from the beginning
+                    _logger.info("downloadFile: range not supported, restart download of '{}'", url);
+                    offset = 0L;
+                }
+                if (offset == 0L) {
+                    // Content-MD5 is only meaningful for the complete entity:
+                    expectedDigest = representation.getDigest();
+                    total = representation.getSize();
+                }
+
+                final ReadableByteChannel in = representation.getChannel();
+                final FileChannel out = new RandomAccessFile(outputFile, "rw").getChannel();
+                try {
+                    out.truncate(offset);
+                    out.position(offset);
+
+                    while (in.read(buffer) != -1) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            offset += out.write(buffer);
+                        }
+                        buffer.clear();
+
+                        if (listener != null) {
+                            listener.progress(url, offset, total);
+                        }
+                    }
+                } finally {
+                    out.close();
+                }
+                if (total < 0L || offset >= total) {
+                    break;
+                }
+                // clean end of stream before the announced size (truncated entity):
+                if (++attempt > DOWNLOAD_MAX_RETRIES || Thread.currentThread().isInterrupted()) {
+                    outputFile.delete();
+                    throw new ClientUWSException(Status.SERVER_ERROR_INTERNAL,
+                            "downloadFile: truncated download of " + url + " (" + offset + " / " + total + " bytes)");
+                }
+                _logger.info("downloadFile: '{}' truncated at {} / {} bytes, resuming (attempt {}) ...", url, offset, total, attempt);
+
+            } catch (IOException ioe) {
+                if (++attempt > DOWNLOAD_MAX_RETRIES || Thread.currentThread().isInterrupted()) {
+                    outputFile.delete();
+                    throw new ClientUWSException(ioe);
+                }
+                _logger.info("downloadFile: '{}' interrupted at {} bytes, resuming (attempt {}) ...", url, offset, attempt, ioe);
+            } catch (ResourceException re) {
+                if (!re.getStatus().isConnectorError() || ++attempt > DOWNLOAD_MAX_RETRIES) {
+                    outputFile.delete();
+                    throw new ClientUWSException(re);
+                }
+                _logger.info("downloadFile: '{}' interrupted at {} bytes, resuming (attempt {}) ...", url, offset, attempt, re);
+            } finally {
+                try {
+                    release(resource, representation);
+                } catch (ClientUWSException cue) {
+                    // broken connection:
+                    _logger.debug("downloadFile: release failure", cue);
+                }
+            }
+        }
+
+        if (total >= 0L && offset != total) {
+            outputFile.delete();
+            throw new ClientUWSException(Status.SERVER_ERROR_INTERNAL,
+                    "downloadFile: size mismatch for " + url + " (" + offset + " / " + total + " bytes)");
+        }
+
+        if (expectedDigest != null && Digest.ALGORITHM_MD5.equals(expectedDigest.getAlgorithm())) {
+            final byte[] digest = computeDigest(outputFile, "MD5", buffer);
+            if (!Arrays.equals(expectedDigest.getValue(), digest)) {
                 outputFile.delete();
+                throw new ClientUWSException(Status.SERVER_ERROR_INTERNAL, "downloadFile: checksum mismatch for " + url);
             }
-            throw new ClientUWSException(ioe);
+            _logger.debug("File '{}' checksum verified.", outputFile);
+        }
+
+        if (_logger.isDebugEnabled()) {
+            _logger.debug("File '{}' saved ({} bytes).", outputFile, outputFile.length());
+        }
+        return true;
+    }
+
+    /**
+     * Compute the SHA-256 hash of the given file (content address)
+     * @param file file to hash
+     * @return hexadecimal SHA-256 hash
+     * @exception ClientUWSException
+     */
+    public static String computeHash(final File file) throws ClientUWSException {
+        final byte[] digest = computeDigest(file, "SHA-256", ByteBuffer.allocateDirect(DOWNLOAD_BUFFER_SIZE));
+        final StringBuilder sb = new StringBuilder(2 * digest.length);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return true if the server supports the blob store, false if not or null if unknown (not used yet)
+     */
+    public Boolean isBlobSupported() {
+        return blobSupported;
+    }
+
+    /**
+     * Ensure the given file is stored on the server blob store ({server}/blobs/{hash}):
+     * the file is only uploaded if the server does not have it yet.
+     * @param file file to store
+     * @param hash SHA-256 hash of the file (see computeHash)
+     * @return true if the server has the blob; false if the server does not support the blob store
+     * @exception ClientUWSException
+     */
+    public boolean putBlobIfAbsent(final File file, final String hash) throws ClientUWSException {
+        if (!Util.isSet(file) || !Util.isSet(hash)) {
+            throw new IllegalArgumentException("putBlobIfAbsent: file and hash are required");
+        }
+        return hasBlob(hash) || putBlob(file, hash);
+    }
+
+    /**
+     * Check if the server blob store has the given blob ({server}/blobs/{hash})
+     * @param hash SHA-256 hash of the blob
+     * @return true if the server has the blob; false if not or if the server does not support the blob store
+     * @exception ClientUWSException
+     */
+    public boolean hasBlob(final String hash) throws ClientUWSException {
+        if (!Util.isSet(hash)) {
+            throw new IllegalArgumentException("hasBlob: hash is required");
+        }
+        if (blobSupported == Boolean.FALSE) {
+            return false;
+        }
+        if (knownBlobs.contains(hash)) {
+            _logger.debug("hasBlob: blob {} cached", hash);
+            return true;
+        }
+        final ClientResource resource = createResource(Method.HEAD, new Reference(serverUWS.toString() + BLOBS_PATH + hash), true);
+        Representation representation = null;
+        try {
+            representation = resource.head();
+            checkStatus(resource, "hasBlob: Cannot check blob ", hash);
+            _logger.debug("hasBlob: blob {} found", hash);
+            blobSupported = Boolean.TRUE;
+            knownBlobs.add(hash);
+            return true;
         } catch (ResourceException re) {
+            if (!Status.CLIENT_ERROR_NOT_FOUND.equals(re.getStatus())
+                    && !Status.CLIENT_ERROR_METHOD_NOT_ALLOWED.equals(re.getStatus())) {
+                throw new ClientUWSException(re);
+            }
+            return false;
+        } finally {
+            release(resource, representation);
+        }
+    }
+
+    /**
+     * Upload the given file to the server blob store ({server}/blobs/{hash})
+     * @param file file to store
+     * @param hash SHA-256 hash of the file content
+     * @return true if the server has the blob; false if the server does not support the blob store
+     * @exception ClientUWSException
+     */
+    public boolean putBlob(final File file, final String hash) throws ClientUWSException {
+        if (!Util.isSet(file) || !Util.isSet(hash)) {
+            throw new IllegalArgumentException("putBlob: file and hash are required");
+        }
+        if (blobSupported == Boolean.FALSE) {
+            return false;
+        }
+        final ClientResource resource = createResource(Method.PUT, new Reference(serverUWS.toString() + BLOBS_PATH + hash), true);
+        Representation representation = null;
+        try {
+            _logger.info("putBlob: uploading blob {} ({} bytes)", hash, file.length());
+            representation = resource.put(new FileRepresentation(file, MediaType.APPLICATION_OCTET_STREAM));
+            checkStatus(resource, "putBlob: Cannot upload blob ", hash);
+            blobSupported = Boolean.TRUE;
+            knownBlobs.add(hash);
+            return true;
+        } catch (ResourceException re) {
+            final Status status = re.getStatus();
+            if (Status.CLIENT_ERROR_NOT_FOUND.equals(status)
+                    || Status.CLIENT_ERROR_METHOD_NOT_ALLOWED.equals(status)
+                    || Status.SERVER_ERROR_NOT_IMPLEMENTED.equals(status)) {
+                _logger.info("UWS server does not support the blob store: {}", serverUWS);
+                blobSupported = Boolean.FALSE;
+                return false;
+            }
             throw new ClientUWSException(re);
         } finally {
             release(resource, representation);
         }
     }
 
+    /**
+     * Forget the given blob (evicted on the server side)
+     * @param hash SHA-256 hash of the blob
+     */
+    public void forgetBlob(final String hash) {
+        knownBlobs.remove(hash);
+    }
+
+    private static byte[] computeDigest(final File file, final String algorithm, final ByteBuffer buffer) throws ClientUWSException {
+        try {
+            final MessageDigest md = MessageDigest.getInstance(algorithm);
+            final FileChannel in = new RandomAccessFile(file, "r").getChannel();
+            try {
+                buffer.clear();
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    md.update(buffer);
+                    buffer.clear();
+                }
+            } finally {
+                in.close();
+            }
+            return md.digest();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new ClientUWSException(nsae);
+        } catch (IOException ioe) {
+            throw new ClientUWSException(ioe);
+        }
+    }
+
     private static void checkJobId(final String jobId) {
         if (!Util.isSet(jobId)) {
             throw new IllegalArgumentException("jobId is required");
@@ -0,0 +1,19 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.cnes.sitools.extensions.astro.application.uws.client;
+
+/**
+ * Download progress callback (invoked by the downloading thread)
+ * @author bourgesl
+ */
+public interface DownloadListener {
+
+    /**
+     * Download progress
+     * @param url downloaded url
+     * @param bytes number of bytes written so far
+     * @param total total number of bytes or -1 if unknown
+     */
+    public void progress(final String url, final long bytes, final long total);
+}
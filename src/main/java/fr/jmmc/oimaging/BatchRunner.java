@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging;
+
+import fr.jmmc.jmcs.util.FileUtils;
+import fr.jmmc.oimaging.model.FitsImageHDURegistry;
+import fr.jmmc.oimaging.model.FitsImagePreparation;
+import fr.jmmc.oimaging.model.IRModel;
+import fr.jmmc.oimaging.services.Service;
+import fr.jmmc.oimaging.services.ServiceJob;
+import fr.jmmc.oimaging.services.ServiceList;
+import fr.jmmc.oimaging.services.ServiceResult;
+import fr.jmmc.oitools.image.FitsImageFile;
+import fr.jmmc.oitools.image.FitsImageLoader;
+import fr.jmmc.oitools.image.ImageOiInputParam;
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.nom.tam.fits.FitsException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless batch runner: load one OIFits file, apply input parameters, run the service
+ * (synchronously, without Swing) and write the result OIFits and log into the output directory.
+ * @author bourgesl
+ */
+public final class BatchRunner {
+
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class.getName());
+
+    /** argument: input parameters file (KEYWORD = value per line) */
+    public static final String ARG_PARAMS = "params";
+    /** argument: service name */
+    public static final String ARG_SERVICE = "service";
+    /** argument: software options */
+    public static final String ARG_OPTIONS = "options";
+    /** argument: optional FITS image file (initial image) */
+    public static final String ARG_IMAGE = "image";
+    /** argument: output directory */
+    public static final String ARG_OUTPUT = "output";
+
+    /** exit code: success */
+    public static final int STATUS_OK = 0;
+    /** exit code: the reconstruction failed (see log) */
+    public static final int STATUS_FAILED = 2;
+    /** exit code: the reconstruction gave no result */
+    public static final int STATUS_NO_RESULT = 3;
+
+    /** file name suffix for the result oifits */
+    private static final String SUFFIX_OUTPUT = ".output.fits";
+    /** file name suffix for the execution log */
+    private static final String SUFFIX_LOG = ".log.txt";
+
+    /** HDUNAME collisions are resolved without user interaction: renamed HDUs are accepted */
+    private static final FitsImageHDURegistry.NameConflictHandler NAME_CONFLICT_HANDLER = new FitsImageHDURegistry.NameConflictHandler() {
+        @Override
+        public boolean acceptRename(final String name, final String newName) {
+            logger.info("HDU '{}' already exists: renamed '{}'", name, newName);
+            return true;
+        }
+
+        @Override
+        public void skipDuplicate(final String newName) {
+            logger.warn("HDU already loaded with hduname='{}', skipping", newName);
+        }
+    };
+
+    /**
+     * Forbidden constructor
+     */
+    private BatchRunner() {
+        super();
+    }
+
+    /**
+     * Run one reconstruction given the command line arguments
+     * @param inputFile OIFits file to process
+     * @param argValues command line arguments
+     * @return exit code (STATUS_OK if successful)
+     * @throws IllegalArgumentException if one argument is invalid
+     * @throws IllegalStateException if an unexpected error occurred
+     */
+    public static int run(final File inputFile, final Map<String, String> argValues) throws IllegalArgumentException, IllegalStateException {
+        final long start = System.nanoTime();
+
+        // output directory:
+        final String outputArg = argValues.get(ARG_OUTPUT);
+        final File outputDir = new File((outputArg != null) ? outputArg : ".");
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalArgumentException("Invalid output directory: " + outputDir.getAbsolutePath());
+        }
+
+        // service:
+        final Service service;
+        final String serviceArg = argValues.get(ARG_SERVICE);
+        if (serviceArg != null) {
+            service = ServiceList.getAvailableService(serviceArg);
+            if (service == null) {
+                throw new IllegalArgumentException("Unsupported service: " + serviceArg);
+            }
+        } else {
+            service = ServiceList.getPreferedService();
+        }
+
+        // standalone model (no IRModelManager: no event, StatusBar or user interaction):
+        final IRModel irModel = new IRModel();
+        irModel.setHeadless(NAME_CONFLICT_HANDLER);
+        try {
+            irModel.loadOifitsFile(OIFitsLoader.loadOIFits(OIFitsStandard.VERSION_1, null, inputFile.getAbsolutePath()));
+
+            final String imageArg = argValues.get(ARG_IMAGE);
+            if (imageArg != null) {
+                final FitsImageFile imageFile = FitsImageLoader.load(imageArg, true, true);
+                if (imageFile.getFitsImageHDUs().isEmpty()) {
+                    throw new IllegalArgumentException("No image HDU found in the file: " + imageArg);
+                }
+                // prepare images (negative values, padding, orientation):
+                FitsImagePreparation.prepareAllImages(imageFile.getFitsImageHDUs());
+
+                if (!irModel.addPreparedFitsImageFile(imageFile)) {
+                    throw new IllegalArgumentException("No image HDU added from the file: " + imageArg);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not load the file: " + ioe.getMessage(), ioe);
+        } catch (FitsException fe) {
+            throw new IllegalArgumentException("Could not load the file: " + fe.getMessage(), fe);
+        }
+        irModel.setSelectedService(service);
+
+        final String optionsArg = argValues.get(ARG_OPTIONS);
+        irModel.setCliOptions((optionsArg != null) ? optionsArg : service.getDefaultCliOptions());
+
+        final String paramsArg = argValues.get(ARG_PARAMS);
+        if (paramsArg != null) {
+            final Map<String, String> keywords = readParams(new File(paramsArg));
+            final ImageOiInputParam params = irModel.getImageOiData().getInputParam();
+
+            // apply twice as software-specific keywords may depend on other keywords (SPARCO SNMODS):
+            applyParams(params, keywords);
+            irModel.initSpecificParams(false);
+            applyParams(params, keywords);
+        }
+
+        // validate:
+        final List<String> failures = new ArrayList<String>();
+        service.validate(irModel.getImageOiData().getInputParam(), failures);
+        if (!failures.isEmpty()) {
+            throw new IllegalArgumentException("Invalid input parameters: " + failures);
+        }
+
+        final ServiceJob job;
+        try {
+            job = new ServiceJob(irModel.createRunSnapshot());
+        } catch (FitsException fe) {
+            throw new IllegalStateException("Can't prepare temporary file before running process", fe);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Can't prepare temporary file before running process", ioe);
+        }
+
+        logger.info("Running {}", job);
+
+        // run synchronously:
+        final ServiceResult result = job.call();
+
+        final String baseName = FileUtils.getFileNameWithoutExtension(inputFile);
+        copy(result.getExecutionLogResultFile(), new File(outputDir, baseName + SUFFIX_LOG));
+
+        final int status;
+        if (result.getErrorMessage() != null) {
+            logger.error("Reconstruction failed: {}", result.getErrorMessage());
+            status = (result.getOifitsResultFile().exists()) ? STATUS_FAILED : STATUS_NO_RESULT;
+        } else if (!result.isValid()) {
+            status = STATUS_NO_RESULT;
+        } else {
+            status = STATUS_OK;
+        }
+        if (result.getOifitsResultFile().exists()) {
+            copy(result.getOifitsResultFile(), new File(outputDir, baseName + SUFFIX_OUTPUT));
+        }
+
+        logger.info("Reconstruction done (status = {}): duration = {} ms.", status, 1e-6d * (System.nanoTime() - start));
+        return status;
+    }
+
+    /**
+     * Read the input parameters file: one 'KEYWORD = value' per line ('#' starts a comment)
+     * @param file parameters file
+     * @return keyword values (ordered)
+     * @throws IllegalArgumentException if the file can not be read or is invalid
+     */
+    static Map<String, String> readParams(final File file) throws IllegalArgumentException {
+        final String content;
+        try {
+            content = FileUtils.readFile(file);
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not read the parameters file: " + file.getAbsolutePath(), ioe);
+        }
+
+        final Map<String, String> keywords = new LinkedHashMap<String, String>();
+        for (String line : content.split("\n")) {
+            final int pos = line.indexOf('#');
+            if (pos != -1) {
+                line = line.substring(0, pos);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            final int eq = line.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid line in parameters file (KEYWORD = value expected): " + line);
+            }
+            keywords.put(line.substring(0, eq).trim().toUpperCase(), line.substring(eq + 1).trim());
+        }
+        return keywords;
+    }
+
+    private static void applyParams(final ImageOiInputParam params, final Map<String, String> keywords) {
+        for (Map.Entry<String, String> e : keywords.entrySet()) {
+            if (params.getKeywordsDesc(e.getKey()) == null) {
+                throw new IllegalArgumentException("Unsupported keyword: " + e.getKey());
+            }
+            params.updateKeyword(e.getKey(), e.getValue());
+        }
+    }
+
+    private static void copy(final File src, final File dest) throws IllegalStateException {
+        if (src.exists()) {
+            try {
+                Files.copy(src.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Written: {}", dest.getAbsolutePath());
+            } catch (IOException ioe) {
+                throw new IllegalStateException("Could not write the file: " + dest.getAbsolutePath(), ioe);
+            }
+        }
+    }
+}
@@ -24,17 +24,23 @@ import fr.jmmc.jmcs.util.concurrent.ParallelJobExecutor;
 import fr.jmmc.oiexplorer.core.model.PlotDefinitionFactory;
 import fr.jmmc.oimaging.gui.MainPanel;
 import fr.jmmc.oimaging.gui.PreferencePanel;
+import fr.jmmc.oimaging.gui.action.CancelRunAction;
 import fr.jmmc.oimaging.gui.action.DeleteSelectionAction;
 import fr.jmmc.oimaging.gui.action.ExportFitsImageAction;
 import fr.jmmc.oimaging.gui.action.ExportOIFitsAction;
 import fr.jmmc.oimaging.gui.action.LoadFitsImageAction;
 import fr.jmmc.oimaging.gui.action.LoadOIFitsAction;
 import fr.jmmc.oimaging.gui.action.NewAction;
+import fr.jmmc.oimaging.gui.action.OpenSessionAction;
 import fr.jmmc.oimaging.gui.action.ResampleImageAction;
 import fr.jmmc.oimaging.gui.action.RunAction;
+import fr.jmmc.oimaging.gui.action.SaveSessionAction;
+import fr.jmmc.oimaging.gui.action.SweepAction;
 import fr.jmmc.oimaging.interop.SendFitsAction;
 import fr.jmmc.oimaging.interop.SendOIFitsAction;
 import fr.jmmc.oimaging.model.IRModelManager;
+import fr.jmmc.oimaging.services.JobScheduler;
+import fr.jmmc.oimaging.services.ServiceList;
 import fr.jmmc.oitools.model.DataModel;
 import java.awt.BorderLayout;
 import java.awt.Container;
@@ -191,8 +197,8 @@ public final class OImaging extends App {
         logger.debug("OifitsExplorerGui.finish() handler called.");
 
         // Can't exit if a job is running
-        if (IRModelManager.getInstance().getIRModel().isRunning()) {
-            MessagePane.showMessage("A job is running... Please wait for its completion or cancel it before quitting.");
+        if (JobScheduler.getInstance().isRunning()) {
+            MessagePane.showMessage("Jobs are running... Please wait for their completion or cancel them before quitting.");
             return false;
         }
 
@@ -304,6 +310,8 @@ public final class OImaging extends App {
         new NewAction();
         new LoadOIFitsAction();
         new LoadFitsImageAction();
+        new OpenSessionAction();
+        new SaveSessionAction();
 
         new ExportOIFitsAction();
         new ExportFitsImageAction();
@@ -313,6 +321,8 @@ public final class OImaging extends App {
 
         // Processing menu :
         new RunAction();
+        new CancelRunAction();
+        new SweepAction();
         new ResampleImageAction();
 
         // Interop menu :
@@ -421,10 +431,22 @@ public final class OImaging extends App {
         
     }
 
+    /**
+     * Add custom command line arguments (headless batch mode)
+     */
+    @Override
+    protected void defineCustomCommandLineArgumentsAndHelp() {
+        addCustomCommandLineArgument(BatchRunner.ARG_SERVICE, true, "service name (" + ServiceList.SERVICE_WISARD + " by default)", ExecMode.TTY);
+        addCustomCommandLineArgument(BatchRunner.ARG_PARAMS, true, "input parameters file (KEYWORD = value per line)", ExecMode.TTY);
+        addCustomCommandLineArgument(BatchRunner.ARG_OPTIONS, true, "software options (command line)", ExecMode.TTY);
+        addCustomCommandLineArgument(BatchRunner.ARG_IMAGE, true, "initial image (FITS file)", ExecMode.TTY);
+        addCustomCommandLineArgument(BatchRunner.ARG_OUTPUT, true, "output directory (current directory by default)", ExecMode.TTY);
+    }
+
     /**
      * check the arguments given by the user in TTY mode
-     * and begin the exportation in pdf ,png, jpg or all if possible
-     * Note: executed by the thread [main]: must block until asynchronous task finishes !
+     * and run the reconstruction on the given OIFits file (headless batch mode)
+     * Note: executed by the thread [main]: must block until the reconstruction finishes !
      * @throws IllegalArgumentException if one (or several) argument is missing or invalid
      */
     @Override
@@ -446,7 +468,14 @@ public final class OImaging extends App {
             throw new IllegalArgumentException("Could not load the file: " + fileOpen.getAbsolutePath());
         }
 
-        logger.debug("processShellCommandLine: done.");
+        final int status = BatchRunner.run(fileOpen, argValues);
+
+        logger.debug("processShellCommandLine: done (status = {}).", status);
+
+        if (status != BatchRunner.STATUS_OK) {
+            // report the failure to the caller (cluster job arrays):
+            System.exit(status);
+        }
     }
 
     /**
@@ -15,6 +15,28 @@ import org.slf4j.LoggerFactory;
  */
 public class Preferences extends fr.jmmc.oiexplorer.core.Preferences {
 
+    /** Preference : maximum number of reconstruction jobs running concurrently */
+    public final static String JOB_MAX_SLOTS = "job.slots";
+    /** Preference : maximum number of local processes running concurrently */
+    public final static String LOCAL_MAX_PROCESSES = "local.processes";
+    /** Preference : pin every local process on its own cpu (taskset) */
+    public final static String LOCAL_CPU_AFFINITY = "local.affinity";
+    /** Preference : wall-clock time limit of local processes in seconds (0 means no limit) */
+    public final static String LOCAL_WALL_TIME_LIMIT = "local.limit.wall";
+    /** Preference : cpu time limit of local processes in seconds (0 means no limit) */
+    public final static String LOCAL_CPU_TIME_LIMIT = "local.limit.cpu";
+    /** Preference : stop jobs automatically when the convergence criterion diverges and report plateaus
+     * (live log, status bar and result) so converged jobs may be cancelled in one click */
+    public final static String CONVERGENCE_EARLY_STOP = "convergence.earlyStop";
+    /** Preference : number of iterations used to detect a plateau */
+    public final static String CONVERGENCE_WINDOW = "convergence.window";
+    /** Preference : relative tolerance used to detect a plateau */
+    public final static String CONVERGENCE_TOLERANCE = "convergence.tolerance";
+    /** Preference : memory budget of the loaded result OIFits files in megabytes */
+    public final static String RESULT_CACHE_MEMORY = "result.cache.memory";
+    /** Preference : window in milliseconds used to coalesce model events (0 means the next EDT cycle) */
+    public final static String EVENT_COALESCING_WINDOW = "event.coalescing.window";
+
     /** Singleton instance */
     private static Preferences _singleton = null;
     /** Logger */
@@ -68,6 +90,26 @@ public class Preferences extends fr.jmmc.oiexplorer.core.Preferences {
         setDefaultPreference(MODEL_IMAGE_LUT, ColorModels.COLOR_MODEL_HEAT);
         // Disable interpolation:
         setDefaultPreference(MODEL_IMAGE_INTERPOLATION, ImageInterpolation.None.toString());
+
+        // Job scheduler: use half available cpus (reconstructions are cpu intensive):
+        setDefaultPreference(JOB_MAX_SLOTS, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+        // Local processes: same limit as the job scheduler, no affinity and no time limits:
+        setDefaultPreference(LOCAL_MAX_PROCESSES, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        setDefaultPreference(LOCAL_CPU_AFFINITY, false);
+        setDefaultPreference(LOCAL_WALL_TIME_LIMIT, 0);
+        setDefaultPreference(LOCAL_CPU_TIME_LIMIT, 0);
+
+        // Convergence: early stop disabled (plateau: 1e-4 over 20 iterations):
+        setDefaultPreference(CONVERGENCE_EARLY_STOP, false);
+        setDefaultPreference(CONVERGENCE_WINDOW, 20);
+        setDefaultPreference(CONVERGENCE_TOLERANCE, 1e-4);
+
+        // Result cache: quarter of the maximum heap size:
+        setDefaultPreference(RESULT_CACHE_MEMORY, (int) Math.max(64L, Runtime.getRuntime().maxMemory() / (4L * 1024L * 1024L)));
+
+        // Model events: coalesce bursts within 50 ms (slider drags, batch results):
+        setDefaultPreference(EVENT_COALESCING_WINDOW, 50);
     }
 
     @Override
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.gui;
+
+import fr.jmmc.oimaging.services.ConvergenceData;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+
+/**
+ * Simple plot of the convergence criterion (chi2 or cost, log scale) versus iterations
+ * with the convergence status (plateau) if any
+ * @author bourgesl
+ */
+public final class ConvergencePanel extends javax.swing.JPanel {
+
+    private static final long serialVersionUID = 1L;
+    /** plot margin in pixels */
+    private static final int MARGIN = 30;
+    /** status color */
+    private static final Color STATUS_COLOR = new Color(0, 128, 0);
+
+    /* members */
+    /** title */
+    private String title = null;
+    /** iterations */
+    private double[] iterations = null;
+    /** criterion values */
+    private double[] values = null;
+    /** convergence status */
+    private String status = null;
+
+    /** Creates new ConvergencePanel */
+    public ConvergencePanel() {
+        setPreferredSize(new Dimension(400, 160));
+        setBackground(Color.WHITE);
+    }
+
+    /**
+     * Define the data to plot
+     * @param title plot title (job name)
+     * @param data convergence data or null
+     * @param status convergence status (plateau) or null
+     */
+    public void setData(final String title, final ConvergenceData data, final String status) {
+        this.title = title;
+        this.status = status;
+        if (data == null) {
+            this.iterations = null;
+            this.values = null;
+        } else {
+            this.iterations = data.getIterations();
+            this.values = data.getCriterion();
+        }
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(final Graphics g) {
+        super.paintComponent(g);
+
+        final Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        final int width = getWidth() - 2 * MARGIN;
+        final int height = getHeight() - 2 * MARGIN;
+
+        g2d.setColor(Color.GRAY);
+        g2d.drawRect(MARGIN, MARGIN, width, height);
+
+        if (status != null) {
+            g2d.setColor(STATUS_COLOR);
+            g2d.drawString(status, MARGIN, getHeight() - 8);
+            g2d.setColor(Color.GRAY);
+        }
+
+        final double[] x = iterations;
+        final double[] y = values;
+
+        if (x == null || x.length < 2 || width <= 0 || height <= 0) {
+            g2d.drawString("No convergence data", MARGIN + 5, MARGIN + 15);
+            return;
+        }
+
+        // log scale if all values are positive:
+        boolean log = true;
+        for (double v : y) {
+            if (v <= 0.0) {
+                log = false;
+                break;
+            }
+        }
+
+        double xMin = Double.POSITIVE_INFINITY, xMax = Double.NEGATIVE_INFINITY;
+        double yMin = Double.POSITIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < x.length; i++) {
+            final double v = log ? Math.log10(y[i]) : y[i];
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                continue;
+            }
+            xMin = Math.min(xMin, x[i]);
+            xMax = Math.max(xMax, x[i]);
+            yMin = Math.min(yMin, v);
+            yMax = Math.max(yMax, v);
+        }
+        if (!(xMax > xMin)) {
+            return;
+        }
+        if (!(yMax > yMin)) {
+            yMax = yMin + 1.0;
+        }
+
+        final Path2D path = new Path2D.Double();
+        boolean first = true;
+        for (int i = 0; i < x.length; i++) {
+            final double v = log ? Math.log10(y[i]) : y[i];
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                continue;
+            }
+            final double px = MARGIN + width * (x[i] - xMin) / (xMax - xMin);
+            final double py = MARGIN + height * (1.0 - (v - yMin) / (yMax - yMin));
+            if (first) {
+                path.moveTo(px, py);
+                first = false;
+            } else {
+                path.lineTo(px, py);
+            }
+        }
+        g2d.setColor(Color.BLUE);
+        g2d.draw(path);
+
+        g2d.setColor(Color.BLACK);
+        g2d.drawString(((title != null) ? title + ": " : "") + "criterion"
+                + (log ? " (log10)" : "") + " vs iteration [" + (int) xMin + " - " + (int) xMax + "]",
+                MARGIN, MARGIN - 8);
+        g2d.drawString(String.format("%.4g", log ? Math.pow(10.0, yMax) : yMax), 2, MARGIN + 10);
+        g2d.drawString(String.format("%.4g", log ? Math.pow(10.0, yMin) : yMin), 2, MARGIN + height);
+    }
+}
@@ -18,7 +18,9 @@ import fr.jmmc.oimaging.gui.action.ExportFitsImageAction;
 import fr.jmmc.oimaging.gui.action.ExportOIFitsAction;
 import fr.jmmc.oimaging.gui.action.LoadOIFitsAction;
 import fr.jmmc.oimaging.gui.action.RunAction;
+import fr.jmmc.oimaging.gui.action.SweepAction;
 import fr.jmmc.oimaging.model.IRModel;
+import fr.jmmc.oimaging.model.IRModelChange;
 import fr.jmmc.oimaging.model.IRModelEvent;
 import fr.jmmc.oimaging.model.IRModelEventListener;
 import fr.jmmc.oimaging.model.IRModelEventType;
@@ -36,6 +38,7 @@ import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
 import javax.swing.Action;
@@ -79,6 +82,7 @@ public class MainPanel extends javax.swing.JPanel implements IRModelEventListene
  /* actions */
     private DeleteSelectionAction deleteSelectionAction;
     private RunAction runAction;
+    private Action sweepAction;
     private Action exportOiFitsAction;
     private Action exportFitsImageAction;
 
@@ -223,6 +227,8 @@ public class MainPanel extends javax.swing.JPanel implements IRModelEventListene
         //  TODO fix next call      jButtonRun.setText((String) runAction.getValue(Action.SHORT_DESCRIPTION));
         jButtonRun.setText("Run");
 
+        sweepAction = ActionRegistrar.getInstance().get(SweepAction.className, SweepAction.actionName);
+
         exportOiFitsAction = ActionRegistrar.getInstance().get(ExportOIFitsAction.className, ExportOIFitsAction.actionName);
         jButtonExportOIFits.setAction(exportOiFitsAction);
 
@@ -851,6 +857,7 @@ public class MainPanel extends javax.swing.JPanel implements IRModelEventListene
         }
 
         // Check if algo settings change given model
+        final int dataRevision = irModel.getDataRevision();
         if (softwareSettingsPanel.updateModel(irModel)) {
             changed = true;
         }
@@ -861,7 +868,9 @@ public class MainPanel extends javax.swing.JPanel implements IRModelEventListene
         if (changed) {
             // notify to other listener - if any in the future
             logger.debug("GUI updated");
-            IRModelManager.getInstance().fireIRModelChanged(this, null);
+            // selected image changed if the data revision changed:
+            IRModelManager.getInstance().fireIRModelChanged(this, null, (irModel.getDataRevision() != dataRevision)
+                    ? EnumSet.of(IRModelChange.PARAMS, IRModelChange.IMAGE) : EnumSet.of(IRModelChange.PARAMS));
         }
     }
 
@@ -872,109 +881,140 @@ public class MainPanel extends javax.swing.JPanel implements IRModelEventListene
     private void syncUI(IRModelEvent event) {
         syncingUI = true;
         try {
+            final boolean modelChanged = (currentModel != event.getIrModel()) || event.hasChange(IRModelChange.MODEL);
             currentModel = event.getIrModel();
 
+            // changed parts (whole model replaced means everything changed):
+            final boolean dataChanged = modelChanged || event.hasChange(IRModelChange.DATA);
+            final boolean imageChanged = dataChanged || event.hasChange(IRModelChange.IMAGE);
+            final boolean resultAdded = event.hasChange(IRModelChange.RESULT_ADDED);
+            final boolean resultsChanged = modelChanged || resultAdded || event.hasChange(IRModelChange.RESULTS_REMOVED);
+            final boolean paramsChanged = dataChanged || event.hasChange(IRModelChange.PARAMS);
+            // software settings (image combo, init image) also depend on the image registry and selection
+            // (changed by added images or results):
+            final boolean settingsChanged = paramsChanged || imageChanged || resultAdded;
+
             final OIFitsFile oifitsFile = currentModel.getOifitsFile();
             final boolean hasOIData = oifitsFile.hasOiData();
             final ImageOiInputParam inputParam = currentModel.getImageOiData().getInputParam();
 
-            // associate target list
-            jComboBoxTarget.setModel(currentModel.getTargetListModel());
-            jComboBoxTarget.setSelectedItem(inputParam.getTarget());
-
-            // TODO Update OIFitsViewer:
-            // arrange target
-            jComboBoxTarget.setEnabled(hasOIData);
+            if (dataChanged) {
+                // associate target list
+                jComboBoxTarget.setModel(currentModel.getTargetListModel());
 
-            // arrange wavelength filters
-            jSliderWaveMin.setEnabled(hasOIData);
-            jSliderWaveMax.setEnabled(hasOIData);
+                // TODO Update OIFitsViewer:
+                // arrange target
+                jComboBoxTarget.setEnabled(hasOIData);
 
-            final Range effWaveRange = oifitsFile.getWavelengthRange();
+                // arrange wavelength filters
+                jSliderWaveMin.setEnabled(hasOIData);
+                jSliderWaveMax.setEnabled(hasOIData);
 
-            fieldSliderAdapterWaveMin.reset(effWaveRange.getMin() / MICRO_METER, effWaveRange.getMax() / MICRO_METER,
-                    inputParam.getWaveMin() / MICRO_METER);
-            fieldSliderAdapterWaveMax.reset(effWaveRange.getMin() / MICRO_METER, effWaveRange.getMax() / MICRO_METER,
-                    inputParam.getWaveMax() / MICRO_METER);
+                jFormattedTextFieldWaveMin.setEnabled(hasOIData);
+                jFormattedTextFieldWaveMax.setEnabled(hasOIData);
 
-            jFormattedTextFieldWaveMin.setEnabled(hasOIData);
-            jFormattedTextFieldWaveMax.setEnabled(hasOIData);
-            jFormattedTextFieldWaveMin.setValue(inputParam.getWaveMin() / MICRO_METER);
-            jFormattedTextFieldWaveMax.setValue(inputParam.getWaveMax() / MICRO_METER);
+                // arrange observable checkboxes
+                jCheckBoxUseVis.setEnabled(hasOIData && oifitsFile.hasOiVis());
+                jCheckBoxUseVis2.setEnabled(hasOIData && oifitsFile.hasOiVis2());
+                jCheckBoxUseT3.setEnabled(hasOIData && oifitsFile.hasOiT3());
 
-            // arrange observable checkboxes
-            jCheckBoxUseVis.setEnabled(hasOIData && oifitsFile.hasOiVis());
-            jCheckBoxUseVis2.setEnabled(hasOIData && oifitsFile.hasOiVis2());
-            jCheckBoxUseT3.setEnabled(hasOIData && oifitsFile.hasOiT3());
-            jCheckBoxUseVis.setSelected(hasOIData && inputParam.useVis());
-            jCheckBoxUseVis2.setSelected(hasOIData && inputParam.useVis2());
-            jCheckBoxUseT3.setSelected(hasOIData && inputParam.useT3());
+                final String fileName = (hasOIData) ? currentModel.getOifitsFile().getFileName() : "";
+                jLabelOifitsFile.setText(fileName);
+                jLabelOifitsFile.setToolTipText(fileName);
+            }
+            if (paramsChanged) {
+                jComboBoxTarget.setSelectedItem(inputParam.getTarget());
 
-            // model result list:
-            final List<ServiceResult> modelResults = currentModel.getResultSets();
+                final Range effWaveRange = oifitsFile.getWavelengthRange();
 
-            // resultSet List
-            if (USE_LIST) {
-                jListResults.setModel(new GenericListModel<ServiceResult>(modelResults));
-            }
+                fieldSliderAdapterWaveMin.reset(effWaveRange.getMin() / MICRO_METER, effWaveRange.getMax() / MICRO_METER,
+                        inputParam.getWaveMin() / MICRO_METER);
+                fieldSliderAdapterWaveMax.reset(effWaveRange.getMin() / MICRO_METER, effWaveRange.getMax() / MICRO_METER,
+                        inputParam.getWaveMax() / MICRO_METER);
 
-            // resultSet Table
-            jTablePanel.setResults(modelResults);
+                jFormattedTextFieldWaveMin.setValue(inputParam.getWaveMin() / MICRO_METER);
+                jFormattedTextFieldWaveMax.setValue(inputParam.getWaveMax() / MICRO_METER);
 
-            // set the slider results boundaries
-            if (modelResults.size() > 1) {
-                jSliderResults.setMinimum(1);
-                jSliderResults.setMaximum(modelResults.size());
-                jSliderResults.setVisible(true);
-            } else {
-                jSliderResults.setVisible(false);
+                jCheckBoxUseVis.setSelected(hasOIData && inputParam.useVis());
+                jCheckBoxUseVis2.setSelected(hasOIData && inputParam.useVis2());
+                jCheckBoxUseT3.setSelected(hasOIData && inputParam.useT3());
             }
 
-            // perform analysis
-            final List<String> failures = new LinkedList<String>();
+            // model result list:
+            final List<ServiceResult> modelResults = currentModel.getResultSets();
 
-            softwareSettingsPanel.syncUI(this, currentModel, failures);
+            if (resultsChanged) {
+                // resultSet List
+                if (USE_LIST) {
+                    jListResults.setModel(new GenericListModel<ServiceResult>(modelResults));
+                }
 
-            final String fileName = (hasOIData) ? currentModel.getOifitsFile().getFileName() : "";
-            jLabelOifitsFile.setText(fileName);
-            jLabelOifitsFile.setToolTipText(fileName);
+                // resultSet Table
+                if (!modelChanged && resultAdded && !event.hasChange(IRModelChange.RESULTS_REMOVED)
+                        && (jTablePanel.getResultCount() == modelResults.size() - 1)) {
+                    // incremental insert (new result is the first one):
+                    jTablePanel.addResult(0, modelResults.get(0));
+                } else {
+                    jTablePanel.setResults(modelResults);
+                }
 
-            if (!hasOIData) {
-                failures.add("Missing OIData, please load an OIFits");
-            } else if (inputParam.getWaveMax() < inputParam.getWaveMin()) {
-                failures.add("WAVE_MIN is higher than WAVE_MAX");
-            }
-            /* Not sure
-            for (OIData table : oifitsFile.getOiDataList()) {
-                if (table.getOiRevn() > 1) {
-                    failures.add("OIFits V2 tables not yet supported (" + table.getExtName() + "#" + table.getExtNb() + ")");
+                // set the slider results boundaries
+                if (modelResults.size() > 1) {
+                    jSliderResults.setMinimum(1);
+                    jSliderResults.setMaximum(modelResults.size());
+                    jSliderResults.setVisible(true);
+                } else {
+                    jSliderResults.setVisible(false);
                 }
             }
-             */
 
-            // if nothing is wrong, allow related actions
-            // TODO make this idea more global and on an higher level Manager.setValid(true) e.g. ?
-            final boolean modelOk = failures.isEmpty();
-            runAction.setEnabled(modelOk);
+            if (settingsChanged) {
+                // perform analysis
+                final List<String> failures = new LinkedList<String>();
 
-            final StringBuffer sb = new StringBuffer(256);
-            if (modelOk) {
-                sb.append("<li><font color=green>Ready to spawn process</font></li>");
-            } else {
-                for (String fail : failures) {
-                    sb.append("<li><font color=red>").append(fail).append("</font></li>");
+                softwareSettingsPanel.syncUI(this, currentModel, failures);
+
+                if (!hasOIData) {
+                    failures.add("Missing OIData, please load an OIFits");
+                } else if (inputParam.getWaveMax() < inputParam.getWaveMin()) {
+                    failures.add("WAVE_MIN is higher than WAVE_MAX");
                 }
+                /* Not sure
+                for (OIData table : oifitsFile.getOiDataList()) {
+                    if (table.getOiRevn() > 1) {
+                        failures.add("OIFits V2 tables not yet supported (" + table.getExtName() + "#" + table.getExtNb() + ")");
+                    }
+                }
+                 */
+
+                // if nothing is wrong, allow related actions
+                // TODO make this idea more global and on an higher level Manager.setValid(true) e.g. ?
+                final boolean modelOk = failures.isEmpty();
+                runAction.setEnabled(modelOk);
+                sweepAction.setEnabled(modelOk);
+
+                final StringBuffer sb = new StringBuffer(256);
+                if (modelOk) {
+                    sb.append("<li><font color=green>Ready to spawn process</font></li>");
+                } else {
+                    for (String fail : failures) {
+                        sb.append("<li><font color=red>").append(fail).append("</font></li>");
+                    }
+                }
+                jEditorPane.setText("<html><ul>" + sb.toString() + "</ul></html>");
             }
-            jEditorPane.setText("<html><ul>" + sb.toString() + "</ul></html>");
 
-            if (event.getType() == IRModelEventType.IRMODEL_CHANGED || modelResults.isEmpty()) {
+            if (imageChanged || modelResults.isEmpty()) {
                 viewerPanel.displayModel(currentModel);
-            } else {
+            } else if (resultsChanged) {
                 if (USE_LIST) {
                     jListResults.setSelectedIndex(0);
                 }
                 showTablePanel(true);
                 jTablePanel.setSelectedRow(0);
+            } else {
+                // only parameters changed:
+                viewerPanel.updateModelParams(currentModel);
             }
         } finally {
             syncingUI = false;
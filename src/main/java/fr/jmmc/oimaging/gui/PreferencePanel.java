@@ -15,6 +15,8 @@ import java.awt.Image;
 import java.util.Observable;
 import java.util.Observer;
 import javax.swing.DefaultComboBoxModel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +32,8 @@ public final class PreferencePanel extends javax.swing.JPanel implements Observe
     /* members */
     /** preference singleton */
     private final Preferences myPreferences = Preferences.getInstance();
+    /** Flag set to true while the GUI is being updated by preferences else false (spinner events) */
+    private boolean syncingUI = false;
 
     /**
      * Creates a new PreferencePanel
@@ -50,6 +54,19 @@ public final class PreferencePanel extends javax.swing.JPanel implements Observe
         this.jComboBoxColorScale.setModel(new DefaultComboBoxModel(ColorScale.values()));
         this.jComboBoxInterpolation.setModel(new DefaultComboBoxModel(ImageInterpolation.values()));
 
+        // Execution (models set while syncing to not store their initial values):
+        syncingUI = true;
+        this.jSpinnerJobSlots.setModel(new SpinnerNumberModel(1, 1, 256, 1));
+        this.jSpinnerLocalProcesses.setModel(new SpinnerNumberModel(1, 1, 256, 1));
+        this.jSpinnerWallTimeLimit.setModel(new SpinnerNumberModel(0, 0, 864000, 60));
+        this.jSpinnerCpuTimeLimit.setModel(new SpinnerNumberModel(0, 0, 864000, 60));
+        this.jSpinnerConvergenceWindow.setModel(new SpinnerNumberModel(20, 2, 10000, 1));
+        this.jSpinnerConvergenceTolerance.setModel(new SpinnerNumberModel(1e-4, 0.0, 1.0, 1e-4));
+        this.jSpinnerConvergenceTolerance.setEditor(new JSpinner.NumberEditor(this.jSpinnerConvergenceTolerance, "0.0####E0"));
+        this.jSpinnerResultCacheMemory.setModel(new SpinnerNumberModel(64, 16, 1048576, 64));
+        this.jSpinnerEventCoalescing.setModel(new SpinnerNumberModel(50, 0, 1000, 10));
+        syncingUI = false;
+
         // register this instance as a Preference Observer :
         this.myPreferences.addObserver(this);
 
@@ -98,6 +115,27 @@ public final class PreferencePanel extends javax.swing.JPanel implements Observe
         jComboBoxColorScale = new javax.swing.JComboBox();
         jLabelInterpolation = new javax.swing.JLabel();
         jComboBoxInterpolation = new javax.swing.JComboBox();
+        jPanelExecution = new javax.swing.JPanel();
+        jLabelJobSlots = new javax.swing.JLabel();
+        jSpinnerJobSlots = new javax.swing.JSpinner();
+        jLabelLocalProcesses = new javax.swing.JLabel();
+        jSpinnerLocalProcesses = new javax.swing.JSpinner();
+        jLabelLocalAffinity = new javax.swing.JLabel();
+        jCheckBoxLocalAffinity = new javax.swing.JCheckBox();
+        jLabelWallTimeLimit = new javax.swing.JLabel();
+        jSpinnerWallTimeLimit = new javax.swing.JSpinner();
+        jLabelCpuTimeLimit = new javax.swing.JLabel();
+        jSpinnerCpuTimeLimit = new javax.swing.JSpinner();
+        jLabelEarlyStop = new javax.swing.JLabel();
+        jCheckBoxEarlyStop = new javax.swing.JCheckBox();
+        jLabelConvergenceWindow = new javax.swing.JLabel();
+        jSpinnerConvergenceWindow = new javax.swing.JSpinner();
+        jLabelConvergenceTolerance = new javax.swing.JLabel();
+        jSpinnerConvergenceTolerance = new javax.swing.JSpinner();
+        jLabelResultCacheMemory = new javax.swing.JLabel();
+        jSpinnerResultCacheMemory = new javax.swing.JSpinner();
+        jLabelEventCoalescing = new javax.swing.JLabel();
+        jSpinnerEventCoalescing = new javax.swing.JSpinner();
         jPanelCommonPreferencesView = new fr.jmmc.jmcs.gui.component.CommonPreferencesView();
 
         setLayout(new javax.swing.BoxLayout(this, javax.swing.BoxLayout.LINE_AXIS));
@@ -171,6 +209,231 @@ public final class PreferencePanel extends javax.swing.JPanel implements Observe
         jPanelModelImage.add(jComboBoxInterpolation, gridBagConstraints);
 
         jPanelLayout.add(jPanelModelImage);
+
+        jPanelExecution.setBorder(javax.swing.BorderFactory.createTitledBorder("Execution"));
+        jPanelExecution.setLayout(new java.awt.GridBagLayout());
+
+        jLabelJobSlots.setText("Max parallel jobs");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 1;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelJobSlots, gridBagConstraints);
+
+        jSpinnerJobSlots.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerJobSlotsStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 1;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jSpinnerJobSlots, gridBagConstraints);
+
+        jLabelLocalProcesses.setText("Max local processes");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelLocalProcesses, gridBagConstraints);
+
+        jSpinnerLocalProcesses.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerLocalProcessesStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 2;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jSpinnerLocalProcesses, gridBagConstraints);
+
+        jLabelLocalAffinity.setText("Pin local processes on cpus");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 3;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelLocalAffinity, gridBagConstraints);
+
+        jCheckBoxLocalAffinity.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jCheckBoxLocalAffinityActionPerformed(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 3;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jCheckBoxLocalAffinity, gridBagConstraints);
+
+        jLabelWallTimeLimit.setText("Wall time limit (s, 0 = none)");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 4;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelWallTimeLimit, gridBagConstraints);
+
+        jSpinnerWallTimeLimit.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerWallTimeLimitStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 4;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jSpinnerWallTimeLimit, gridBagConstraints);
+
+        jLabelCpuTimeLimit.setText("Cpu time limit (s, 0 = none)");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 5;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelCpuTimeLimit, gridBagConstraints);
+
+        jSpinnerCpuTimeLimit.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerCpuTimeLimitStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 5;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jSpinnerCpuTimeLimit, gridBagConstraints);
+
+        jLabelEarlyStop.setText("Detect convergence plateaus");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 6;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelEarlyStop, gridBagConstraints);
+
+        jCheckBoxEarlyStop.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jCheckBoxEarlyStopActionPerformed(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 6;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jCheckBoxEarlyStop, gridBagConstraints);
+
+        jLabelConvergenceWindow.setText("Convergence window (iterations)");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 7;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelConvergenceWindow, gridBagConstraints);
+
+        jSpinnerConvergenceWindow.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerConvergenceWindowStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 7;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jSpinnerConvergenceWindow, gridBagConstraints);
+
+        jLabelConvergenceTolerance.setText("Convergence tolerance");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 8;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelConvergenceTolerance, gridBagConstraints);
+
+        jSpinnerConvergenceTolerance.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerConvergenceToleranceStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 8;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jSpinnerConvergenceTolerance, gridBagConstraints);
+
+        jLabelResultCacheMemory.setText("Result cache memory (MB)");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 9;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelResultCacheMemory, gridBagConstraints);
+
+        jSpinnerResultCacheMemory.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerResultCacheMemoryStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 9;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 4, 4);
+        jPanelExecution.add(jSpinnerResultCacheMemory, gridBagConstraints);
+
+        jLabelEventCoalescing.setText("Event coalescing (ms)");
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 0;
+        gridBagConstraints.gridy = 10;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.EAST;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jLabelEventCoalescing, gridBagConstraints);
+
+        jSpinnerEventCoalescing.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinnerEventCoalescingStateChanged(evt);
+            }
+        });
+        gridBagConstraints = new java.awt.GridBagConstraints();
+        gridBagConstraints.gridx = 1;
+        gridBagConstraints.gridy = 10;
+        gridBagConstraints.gridwidth = 2;
+        gridBagConstraints.anchor = java.awt.GridBagConstraints.WEST;
+        gridBagConstraints.weightx = 0.1;
+        gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 4);
+        jPanelExecution.add(jSpinnerEventCoalescing, gridBagConstraints);
+
+        jPanelLayout.add(jPanelExecution);
         jPanelLayout.add(jPanelCommonPreferencesView);
 
         jScrollPane.setViewportView(jPanelLayout);
@@ -205,17 +468,158 @@ public final class PreferencePanel extends javax.swing.JPanel implements Observe
         }
     }//GEN-LAST:event_jComboBoxInterpolationActionPerformed
 
+    private void jSpinnerJobSlotsStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerJobSlotsStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.JOB_MAX_SLOTS, this.jSpinnerJobSlots.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerJobSlotsStateChanged
+
+    private void jSpinnerLocalProcessesStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerLocalProcessesStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.LOCAL_MAX_PROCESSES, this.jSpinnerLocalProcesses.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerLocalProcessesStateChanged
+
+    private void jCheckBoxLocalAffinityActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jCheckBoxLocalAffinityActionPerformed
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.LOCAL_CPU_AFFINITY, Boolean.valueOf(this.jCheckBoxLocalAffinity.isSelected()));
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jCheckBoxLocalAffinityActionPerformed
+
+    private void jSpinnerWallTimeLimitStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerWallTimeLimitStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.LOCAL_WALL_TIME_LIMIT, this.jSpinnerWallTimeLimit.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerWallTimeLimitStateChanged
+
+    private void jSpinnerCpuTimeLimitStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerCpuTimeLimitStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.LOCAL_CPU_TIME_LIMIT, this.jSpinnerCpuTimeLimit.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerCpuTimeLimitStateChanged
+
+    private void jCheckBoxEarlyStopActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jCheckBoxEarlyStopActionPerformed
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.CONVERGENCE_EARLY_STOP, Boolean.valueOf(this.jCheckBoxEarlyStop.isSelected()));
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jCheckBoxEarlyStopActionPerformed
+
+    private void jSpinnerConvergenceWindowStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerConvergenceWindowStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.CONVERGENCE_WINDOW, this.jSpinnerConvergenceWindow.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerConvergenceWindowStateChanged
+
+    private void jSpinnerConvergenceToleranceStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerConvergenceToleranceStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.CONVERGENCE_TOLERANCE, this.jSpinnerConvergenceTolerance.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerConvergenceToleranceStateChanged
+
+    private void jSpinnerResultCacheMemoryStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerResultCacheMemoryStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.RESULT_CACHE_MEMORY, this.jSpinnerResultCacheMemory.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerResultCacheMemoryStateChanged
+
+    private void jSpinnerEventCoalescingStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinnerEventCoalescingStateChanged
+        if (syncingUI) {
+            return;
+        }
+        try {
+            // will fire triggerObserversNotification so update() will be called
+            this.myPreferences.setPreference(Preferences.EVENT_COALESCING_WINDOW, this.jSpinnerEventCoalescing.getValue());
+        } catch (PreferencesException pe) {
+            logger.error("property failure : ", pe);
+        }
+    }//GEN-LAST:event_jSpinnerEventCoalescingStateChanged
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JCheckBox jCheckBoxEarlyStop;
+    private javax.swing.JCheckBox jCheckBoxLocalAffinity;
     private javax.swing.JComboBox jComboBoxColorScale;
     private javax.swing.JComboBox jComboBoxInterpolation;
     private javax.swing.JComboBox jComboBoxLUT;
     private javax.swing.JLabel jLabelColorScale;
+    private javax.swing.JLabel jLabelConvergenceTolerance;
+    private javax.swing.JLabel jLabelConvergenceWindow;
+    private javax.swing.JLabel jLabelCpuTimeLimit;
+    private javax.swing.JLabel jLabelEarlyStop;
+    private javax.swing.JLabel jLabelEventCoalescing;
     private javax.swing.JLabel jLabelInterpolation;
+    private javax.swing.JLabel jLabelJobSlots;
+    private javax.swing.JLabel jLabelLocalAffinity;
+    private javax.swing.JLabel jLabelLocalProcesses;
     private javax.swing.JLabel jLabelLutTable;
+    private javax.swing.JLabel jLabelResultCacheMemory;
+    private javax.swing.JLabel jLabelWallTimeLimit;
     private fr.jmmc.jmcs.gui.component.CommonPreferencesView jPanelCommonPreferencesView;
+    private javax.swing.JPanel jPanelExecution;
     private javax.swing.JPanel jPanelLayout;
     private javax.swing.JPanel jPanelModelImage;
     private javax.swing.JScrollPane jScrollPane;
+    private javax.swing.JSpinner jSpinnerConvergenceTolerance;
+    private javax.swing.JSpinner jSpinnerConvergenceWindow;
+    private javax.swing.JSpinner jSpinnerCpuTimeLimit;
+    private javax.swing.JSpinner jSpinnerEventCoalescing;
+    private javax.swing.JSpinner jSpinnerJobSlots;
+    private javax.swing.JSpinner jSpinnerLocalProcesses;
+    private javax.swing.JSpinner jSpinnerResultCacheMemory;
+    private javax.swing.JSpinner jSpinnerWallTimeLimit;
     // End of variables declaration//GEN-END:variables
 
     /**
@@ -231,5 +635,22 @@ public final class PreferencePanel extends javax.swing.JPanel implements Observe
         this.jComboBoxLUT.setSelectedItem(this.myPreferences.getPreference(Preferences.MODEL_IMAGE_LUT));
         this.jComboBoxColorScale.setSelectedItem(this.myPreferences.getImageColorScale());
         this.jComboBoxInterpolation.setSelectedItem(this.myPreferences.getImageInterpolation());
+
+        // Execution:
+        syncingUI = true;
+        try {
+            this.jSpinnerJobSlots.setValue(Integer.valueOf(this.myPreferences.getPreferenceAsInt(Preferences.JOB_MAX_SLOTS)));
+            this.jSpinnerLocalProcesses.setValue(Integer.valueOf(this.myPreferences.getPreferenceAsInt(Preferences.LOCAL_MAX_PROCESSES)));
+            this.jCheckBoxLocalAffinity.setSelected(this.myPreferences.getPreferenceAsBoolean(Preferences.LOCAL_CPU_AFFINITY));
+            this.jSpinnerWallTimeLimit.setValue(Integer.valueOf(this.myPreferences.getPreferenceAsInt(Preferences.LOCAL_WALL_TIME_LIMIT)));
+            this.jSpinnerCpuTimeLimit.setValue(Integer.valueOf(this.myPreferences.getPreferenceAsInt(Preferences.LOCAL_CPU_TIME_LIMIT)));
+            this.jCheckBoxEarlyStop.setSelected(this.myPreferences.getPreferenceAsBoolean(Preferences.CONVERGENCE_EARLY_STOP));
+            this.jSpinnerConvergenceWindow.setValue(Integer.valueOf(this.myPreferences.getPreferenceAsInt(Preferences.CONVERGENCE_WINDOW)));
+            this.jSpinnerConvergenceTolerance.setValue(Double.valueOf(this.myPreferences.getPreferenceAsDouble(Preferences.CONVERGENCE_TOLERANCE)));
+            this.jSpinnerResultCacheMemory.setValue(Integer.valueOf(this.myPreferences.getPreferenceAsInt(Preferences.RESULT_CACHE_MEMORY)));
+            this.jSpinnerEventCoalescing.setValue(Integer.valueOf(this.myPreferences.getPreferenceAsInt(Preferences.EVENT_COALESCING_WINDOW)));
+        } finally {
+            syncingUI = false;
+        }
     }
 }
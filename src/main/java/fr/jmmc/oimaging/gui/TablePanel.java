@@ -85,6 +85,14 @@ public class TablePanel extends javax.swing.JPanel {
         getTableModel().setResults(results);
     }
 
+    public void addResult(final int rowIndex, final ServiceResult result) {
+        getTableModel().addResult(rowIndex, result);
+    }
+
+    public int getResultCount() {
+        return getTableModel().getRowCount();
+    }
+
     public ListSelectionModel getSelectionModel() {
         return getTable().getSelectionModel();
     }
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.gui;
+
+import fr.jmmc.jmal.image.ColorModels;
+import fr.jmmc.oiexplorer.core.util.FitsImageUtils;
+import fr.jmmc.oimaging.model.FitsPlaneReader;
+import fr.jmmc.oimaging.services.ServiceResult;
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.model.OIFitsFile;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of the downsampled result thumbnails (EDT only) keyed by result, color model and data range.
+ * @author bourgesl
+ */
+public final class ThumbnailCache {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailCache.class);
+    /** thumbnail size (pixels) */
+    public static final int THUMBNAIL_SIZE = 128;
+    /** maximum number of cached thumbnails */
+    private static final int MAX_ENTRIES = 512;
+    /** singleton */
+    private static final ThumbnailCache INSTANCE = new ThumbnailCache();
+
+    /**
+     * Return the singleton
+     * @return singleton
+     */
+    public static ThumbnailCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** thumbnail key */
+    private static final class Key {
+
+        final ServiceResult result;
+        final String colorModel;
+        final float min;
+        final float max;
+
+        Key(final ServiceResult result, final String colorModel, final float min, final float max) {
+            this.result = result;
+            this.colorModel = colorModel;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(result);
+            hash = 31 * hash + colorModel.hashCode();
+            hash = 31 * hash + Float.floatToIntBits(min);
+            return 31 * hash + Float.floatToIntBits(max);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return (result == other.result) && colorModel.equals(other.colorModel)
+                    && Float.floatToIntBits(min) == Float.floatToIntBits(other.min)
+                    && Float.floatToIntBits(max) == Float.floatToIntBits(other.max);
+        }
+    }
+
+    /* members */
+    /** thumbnails in access order */
+    private final LinkedHashMap<Key, BufferedImage> thumbnails = new LinkedHashMap<Key, BufferedImage>(64, 0.75f, true) {
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, BufferedImage> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Private constructor
+     */
+    private ThumbnailCache() {
+        super();
+    }
+
+    /**
+     * Return the thumbnail of the given result (rendered on cache miss)
+     * @param result result
+     * @param colorModel color model name
+     * @param min lower bound of the color scale
+     * @param max upper bound of the color scale
+     * @return thumbnail or null if the result has no image
+     */
+    public BufferedImage getThumbnail(final ServiceResult result, final String colorModel, final float min, final float max) {
+        final Key key = new Key(result, colorModel, min, max);
+
+        BufferedImage thumbnail = thumbnails.get(key);
+        if (thumbnail == null && !thumbnails.containsKey(key)) {
+            final FitsImage image = getPreviewImage(result);
+            thumbnail = (image != null) ? render(image.getData(), ColorModels.getColorModel(colorModel), min, max) : null;
+            thumbnails.put(key, thumbnail);
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Remove all thumbnails
+     */
+    public void clear() {
+        thumbnails.clear();
+    }
+
+    /**
+     * Return the first image plane of the given result: taken from the loaded OIFits file if any,
+     * else only this plane is read from the memory-mapped result file (no full load) and prepared
+     * @param result result
+     * @return first image plane or null if none or invalid result
+     */
+    static FitsImage getPreviewImage(final ServiceResult result) {
+        if (!result.isValid()) {
+            return null;
+        }
+        final OIFitsFile oifitsFile = result.getOifitsFile();
+        if (oifitsFile != null) {
+            // TODO have a look in the ouput param to look at right image ?
+            // use first one :
+            final List<FitsImageHDU> imageHdus = oifitsFile.getFitsImageHDUs();
+            return (imageHdus.isEmpty() || imageHdus.get(0).getFitsImages().isEmpty()) ? null : imageHdus.get(0).getFitsImages().get(0);
+        }
+        final File file = result.getOifitsResultFile();
+        if ((file == null) || !file.exists()) {
+            // missing result file:
+            result.setValid(false);
+            return null;
+        }
+        try {
+            final FitsPlaneReader reader = new FitsPlaneReader(file);
+            try {
+                if (reader.getImageCount() == 0) {
+                    return null;
+                }
+                final FitsImage image = reader.createFitsImage(0, 0);
+                // same preparation as loaded images (negative values, padding, orientation):
+                FitsImageUtils.prepareImage(image);
+                return image;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ioe) {
+            logger.warn("Unable to read the result image: {}", file, ioe);
+        } catch (IllegalArgumentException iae) {
+            logger.warn("Unable to prepare the result image: {}", file, iae);
+        }
+        return null;
+    }
+
+    /**
+     * Render the given data into a downsampled (box average) indexed image (first row at the bottom)
+     * @param data image data [rows][cols]
+     * @param colorModel color model
+     * @param min lower bound of the color scale
+     * @param max upper bound of the color scale
+     * @return thumbnail
+     */
+    static BufferedImage render(final float[][] data, final IndexColorModel colorModel, final float min, final float max) {
+        final int nbRows = data.length;
+        final int nbCols = (nbRows != 0) ? data[0].length : 0;
+
+        final int step = Math.max(1, (Math.max(nbRows, nbCols) + THUMBNAIL_SIZE - 1) / THUMBNAIL_SIZE);
+        final int width = Math.max(1, nbCols / step);
+        final int height = Math.max(1, nbRows / step);
+
+        final int maxIndex = colorModel.getMapSize() - 1;
+        final float scale = (max > min) ? maxIndex / (max - min) : 0f;
+
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        final WritableRaster raster = image.getRaster();
+
+        for (int y = 0; y < height; y++) {
+            final int row0 = y * step;
+            for (int x = 0; x < width; x++) {
+                final int col0 = x * step;
+
+                float sum = 0f;
+                int n = 0;
+                for (int j = row0, jmax = Math.min(row0 + step, nbRows); j < jmax; j++) {
+                    final float[] row = data[j];
+                    for (int i = col0, imax = Math.min(col0 + step, nbCols); i < imax; i++) {
+                        if (!Float.isNaN(row[i])) {
+                            sum += row[i];
+                            n++;
+                        }
+                    }
+                }
+                int index = 0;
+                if (n != 0) {
+                    index = Math.round((sum / n - min) * scale);
+                    index = (index < 0) ? 0 : ((index > maxIndex) ? maxIndex : index);
+                }
+                raster.setSample(x, height - 1 - y, 0, index);
+            }
+        }
+        return image;
+    }
+}
@@ -7,6 +7,8 @@ import fr.jmmc.jmcs.data.MimeType;
 import fr.jmmc.jmcs.gui.FeedbackReport;
 import fr.jmmc.jmcs.gui.action.ActionRegistrar;
 import fr.jmmc.jmcs.gui.component.FileChooser;
+import fr.jmmc.jmcs.gui.component.MessagePane;
+import fr.jmmc.jmcs.gui.component.StatusBar;
 import fr.jmmc.jmcs.gui.util.SwingUtils;
 import fr.jmmc.jmcs.util.FileUtils;
 import fr.jmmc.jmcs.util.StringUtils;
@@ -18,7 +20,16 @@ import fr.jmmc.oimaging.gui.action.ExportFitsImageAction;
 import fr.jmmc.oimaging.gui.action.ExportOIFitsAction;
 import fr.jmmc.oimaging.interop.SendFitsAction;
 import fr.jmmc.oimaging.interop.SendOIFitsAction;
+import fr.jmmc.oimaging.model.FitsPlaneReader;
 import fr.jmmc.oimaging.model.IRModel;
+import fr.jmmc.oimaging.model.IRModelManager;
+import fr.jmmc.oimaging.model.MappedResult;
+import fr.jmmc.oimaging.services.ConvergenceMonitor;
+import fr.jmmc.oimaging.services.ExecutionLogBuffer;
+import fr.jmmc.oimaging.services.JobListener;
+import fr.jmmc.oimaging.services.JobScheduler;
+import fr.jmmc.oimaging.services.ResultIngestor;
+import fr.jmmc.oimaging.services.ServiceJob;
 import fr.jmmc.oimaging.services.ServiceResult;
 import fr.jmmc.oitools.image.FitsImage;
 import fr.jmmc.oitools.image.FitsImageFile;
@@ -30,15 +41,37 @@ import fr.jmmc.oitools.model.OIFitsWriter;
 import fr.nom.tam.fits.FitsException;
 import java.awt.BorderLayout;
 import java.awt.Component;
-import java.awt.GridLayout;
-
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.Action;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import org.slf4j.Logger;
@@ -64,6 +97,8 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
     private static final Logger logger = LoggerFactory.getLogger(ViewerPanel.class);
     /** fits extension including '.' (dot) character ie '.fits' */
     public final static String FITS_EXTENSION = "." + MimeType.OIFITS.getExtension();
+    /** live log refresh period in milliseconds */
+    private final static int LIVE_LOG_REFRESH = 500;
 
     /** Fits image panel */
     private final FitsImagePanel fitsImagePanel;
@@ -82,6 +117,34 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
     private Component lastResultPanel;
     private Component lastGridPanel;
 
+    /** live log and convergence of the selected running job */
+    private final JPanel jPanelLive;
+    private final DefaultComboBoxModel liveJobsModel;
+    private final JComboBox jComboBoxLiveJob;
+    private final JButton jButtonCancelLiveJob;
+    private final JTextArea jTextAreaLiveLog;
+    private final ConvergencePanel convergencePanel;
+    /** live log refresh timer (running while jobs are running) */
+    private final Timer liveLogTimer;
+    /** displayed job (null if none) and its state */
+    private ServiceJob liveJob = null;
+    private boolean liveJobDone = false;
+    /** revision of the displayed live log */
+    private long liveLogRevision = -1L;
+    /** displayed convergence monitor and its number of points */
+    private ConvergenceMonitor liveMonitor = null;
+    private int liveMonitorSize = -1;
+    private String liveMonitorStatus = null;
+    /** running jobs whose convergence (plateau) was reported */
+    private final Set<ServiceJob> convergedJobs = new HashSet<ServiceJob>();
+
+    /** additional result files of the displayed result (execution log tab) */
+    private final JPanel jPanelAdditionalResults;
+    private final DefaultComboBoxModel additionalResultsModel;
+    private final JComboBox jComboBoxAdditionalResults;
+    /** displayed additional result files keyed by result id */
+    private Map<String, File> additionalResultFiles = Collections.emptyMap();
+
     /** Flag set to true while the GUI is being updated by model else false. */
     private boolean syncingUI = false;
 
@@ -91,6 +154,13 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         GRID;
     }
     private SHOW_MODE showMode;
+    /** displayed result opened without a full load (null if none) */
+    private MappedResult mappedResult = null;
+    /** displayed view revision (pending grid range updates are discarded once changed) */
+    private int gridRevision = 0;
+    /** last plotted OIFits file and target (partial updates) */
+    private OIFitsFile lastPlotFile = null;
+    private String lastPlotTarget = null;
 
     /** Creates new form ViewerPanel */
     public ViewerPanel() {
@@ -126,6 +196,200 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         jComboBoxImage.setRenderer(new OiCellRenderer());
 
         jLabelImageDebug.setVisible(SHOW_DEBUG_INFO);
+
+        // live log and convergence plot of the selected running job (refreshed while visible):
+        liveJobsModel = new DefaultComboBoxModel();
+        jComboBoxLiveJob = new JComboBox(liveJobsModel);
+        jComboBoxLiveJob.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                selectLiveJob((ServiceJob) jComboBoxLiveJob.getSelectedItem());
+            }
+        });
+        jButtonCancelLiveJob = new JButton("Cancel job");
+        jButtonCancelLiveJob.setToolTipText("Cancel the selected job (converged jobs may be cancelled early)");
+        jButtonCancelLiveJob.setEnabled(false);
+        jButtonCancelLiveJob.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                if (liveJob != null && JobScheduler.getInstance().cancel(liveJob)) {
+                    StatusBar.show("Job cancelled: " + liveJob.getProgress().getName());
+                }
+            }
+        });
+        jTextAreaLiveLog = new JTextArea();
+        jTextAreaLiveLog.setEditable(false);
+        convergencePanel = new ConvergencePanel();
+
+        final JPanel jPanelLiveJob = new JPanel(new BorderLayout());
+        jPanelLiveJob.add(new JLabel("Job: "), BorderLayout.WEST);
+        jPanelLiveJob.add(jComboBoxLiveJob, BorderLayout.CENTER);
+        jPanelLiveJob.add(jButtonCancelLiveJob, BorderLayout.EAST);
+
+        final JPanel jPanelLiveTop = new JPanel(new BorderLayout());
+        jPanelLiveTop.add(jPanelLiveJob, BorderLayout.NORTH);
+        jPanelLiveTop.add(convergencePanel, BorderLayout.CENTER);
+
+        jPanelLive = new JPanel(new BorderLayout());
+        jPanelLive.add(jPanelLiveTop, BorderLayout.NORTH);
+        jPanelLive.add(new JScrollPane(jTextAreaLiveLog), BorderLayout.CENTER);
+        jTabbedPaneVizualizations.addTab("Live log", jPanelLive);
+
+        liveLogTimer = new Timer(LIVE_LOG_REFRESH, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                checkConvergedJobs();
+                refreshLiveLog();
+            }
+        });
+
+        // additional result files (intermediate images, convergence tables...) below the execution log:
+        additionalResultsModel = new DefaultComboBoxModel();
+        jComboBoxAdditionalResults = new JComboBox(additionalResultsModel);
+        final JButton jButtonExportAdditionalResult = new JButton("Export...");
+        jButtonExportAdditionalResult.setToolTipText("Save the selected additional result file");
+        jButtonExportAdditionalResult.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                exportAdditionalResult((String) jComboBoxAdditionalResults.getSelectedItem());
+            }
+        });
+        jPanelAdditionalResults = new JPanel(new BorderLayout());
+        jPanelAdditionalResults.add(new JLabel("Additional results: "), BorderLayout.WEST);
+        jPanelAdditionalResults.add(jComboBoxAdditionalResults, BorderLayout.CENTER);
+        jPanelAdditionalResults.add(jButtonExportAdditionalResult, BorderLayout.EAST);
+        jPanelAdditionalResults.setVisible(false);
+
+        jPanelLogViewer.removeAll();
+        jPanelLogViewer.setLayout(new BorderLayout());
+        jPanelLogViewer.add(jScrollPaneLog, BorderLayout.CENTER);
+        jPanelLogViewer.add(jPanelAdditionalResults, BorderLayout.SOUTH);
+
+        // follow the job lifecycle (timer only running while jobs are running):
+        JobScheduler.getInstance().addJobListener(new JobListener() {
+            @Override
+            public void jobStarted(final ServiceJob job) {
+                SwingUtils.invokeLaterEDT(new Runnable() {
+                    @Override
+                    public void run() {
+                        liveJobStarted(job);
+                    }
+                });
+            }
+
+            @Override
+            public void jobFinished(final ServiceJob job, final ServiceResult result) {
+                jobEnded(job);
+            }
+
+            @Override
+            public void jobCancelled(final ServiceJob job) {
+                jobEnded(job);
+            }
+
+            @Override
+            public void jobFailed(final ServiceJob job, final ExecutionException ee) {
+                jobEnded(job);
+            }
+
+            private void jobEnded(final ServiceJob job) {
+                SwingUtils.invokeLaterEDT(new Runnable() {
+                    @Override
+                    public void run() {
+                        liveJobEnded(job);
+                    }
+                });
+            }
+        });
+    }
+
+    private void liveJobStarted(final ServiceJob job) {
+        liveJobsModel.addElement(job);
+        if (liveJob == null || liveJobDone) {
+            // follow the new job:
+            jComboBoxLiveJob.setSelectedItem(job);
+        }
+        if (!liveLogTimer.isRunning()) {
+            liveLogTimer.start();
+        }
+    }
+
+    private void liveJobEnded(final ServiceJob job) {
+        convergedJobs.remove(job);
+        if (job == liveJob) {
+            // last update; kept displayed until another job is selected:
+            refreshLiveLog();
+            liveJobDone = true;
+            jButtonCancelLiveJob.setEnabled(false);
+        } else {
+            liveJobsModel.removeElement(job);
+        }
+        if (!JobScheduler.getInstance().isRunning()) {
+            liveLogTimer.stop();
+        }
+    }
+
+    private void selectLiveJob(final ServiceJob job) {
+        if (job == liveJob) {
+            return;
+        }
+        final ServiceJob previous = liveJob;
+        final boolean previousDone = liveJobDone;
+
+        liveJob = job;
+        liveJobDone = false;
+        liveLogRevision = -1L;
+        liveMonitor = null;
+        liveMonitorSize = -1;
+        liveMonitorStatus = null;
+        jTextAreaLiveLog.setText("");
+        convergencePanel.setData(null, null, null);
+        jButtonCancelLiveJob.setEnabled(job != null);
+
+        if (previous != null && previousDone) {
+            // forget the finished job:
+            liveJobsModel.removeElement(previous);
+        }
+        refreshLiveLog();
+    }
+
+    /**
+     * Report running jobs whose criterion reached a plateau (once per job): the user may cancel them
+     */
+    private void checkConvergedJobs() {
+        for (int i = 0, len = liveJobsModel.getSize(); i < len; i++) {
+            final ServiceJob job = (ServiceJob) liveJobsModel.getElementAt(i);
+            final ConvergenceMonitor monitor = job.getProgress().getMonitor();
+
+            if (monitor != null && monitor.getConvergedReason() != null
+                    && !(job == liveJob && liveJobDone) && convergedJobs.add(job)) {
+                StatusBar.show("Job " + job.getProgress().getName() + " " + monitor.getConvergedReason()
+                        + ": it may be cancelled from the live log");
+            }
+        }
+    }
+
+    private void refreshLiveLog() {
+        final ServiceJob job = liveJob;
+        if (job == null || jTabbedPaneVizualizations.getSelectedComponent() != jPanelLive) {
+            return;
+        }
+        final ExecutionLogBuffer buffer = job.getProgress().getLog();
+        final long revision = buffer.getRevision();
+        if (revision != liveLogRevision) {
+            liveLogRevision = revision;
+            jTextAreaLiveLog.setText(buffer.getText());
+            // follow the end of the log:
+            jTextAreaLiveLog.setCaretPosition(jTextAreaLiveLog.getDocument().getLength());
+        }
+        final ConvergenceMonitor monitor = job.getProgress().getMonitor();
+        if (monitor != null && (monitor != liveMonitor || monitor.getData().size() != liveMonitorSize
+                || monitor.getConvergedReason() != liveMonitorStatus)) {
+            liveMonitor = monitor;
+            liveMonitorSize = monitor.getData().size();
+            liveMonitorStatus = monitor.getConvergedReason();
+            convergencePanel.setData(monitor.getName(), monitor.getData(), liveMonitorStatus);
+        }
     }
 
     private void displayImage(List<FitsImageHDU> imageHdus, FitsImageHDU imageHDU) {
@@ -165,12 +429,16 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
             jLabelImageDebug.setText("Frame: " + frame);
         }
         if (imageHDU != null) {
+            // planes of a mapped result are read when displayed:
+            final List<FitsImage> planes = (mappedResult != null && mappedResult.getPlanes(imageHDU) != null)
+                    ? mappedResult.getPlanes(imageHDU) : imageHDU.getFitsImages();
+
             sliderPanel.setVisible(false);
-            if (imageHDU.getImageCount() > 1) {
-                sliderPanel.setFitsImages(imageHDU.getFitsImages());
+            if (planes.size() > 1) {
+                sliderPanel.setFitsImages(planes);
                 sliderPanel.setVisible(true);
             }
-            FitsImage image = imageHDU.getFitsImages().get(0);
+            FitsImage image = planes.get(0);
             fitsImagePanel.setFitsImage(image);
             jPanelImage.add(fitsImagePanel);
             logger.debug("Display image HDU '{}'", imageHDU.getHduName());
@@ -182,6 +450,8 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
 
     // Display Oifits and Params
     private void displayOiFitsAndParams(OIFitsFile oifitsFile, String targetName) {
+        lastPlotFile = oifitsFile;
+        lastPlotTarget = targetName;
         if (oifitsFile != null) {
             oifitsViewPanel.plot(oifitsFile, targetName);
             jPanelOIFits.add(oifitsViewPanel);
@@ -214,8 +484,8 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
             }
 
             // switch tab arrangement only if we switch between model display or result display
-            if ((mode.equals(SHOW_MODE.MODEL) && (jTabbedPaneVizualizations.getComponentCount() > 3))
-                    || (mode.equals(SHOW_MODE.RESULT) && (jTabbedPaneVizualizations.getComponentCount() == 3))) {
+            if ((mode.equals(SHOW_MODE.MODEL) && (jTabbedPaneVizualizations.getComponentCount() > 4))
+                    || (mode.equals(SHOW_MODE.RESULT) && (jTabbedPaneVizualizations.getComponentCount() == 4))) {
                 jTabbedPaneVizualizations.removeAll();
                 jTabbedPaneVizualizations.add("Image", jPanelImageViewer);
                 jTabbedPaneVizualizations.add("OIFits", jPanelOIFitsViewer);
@@ -223,6 +493,7 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
                 if (mode.equals(SHOW_MODE.RESULT)) {
                     jTabbedPaneVizualizations.add("Execution log", jPanelLogViewer);
                 }
+                jTabbedPaneVizualizations.add("Live log", jPanelLive);
             }
         } finally {
             syncingUI = false;
@@ -234,6 +505,7 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
 
     public void displayModel(IRModel irModel) {
         showMode = SHOW_MODE.MODEL;
+        closeMappedResult();
         if (irModel != null) {
             displayOiFitsAndParams(irModel.getOifitsFile(), irModel.getImageOiData().getInputParam().getTarget());
             displayImage(irModel.getFitsImageHDUs(), irModel.getSelectedInputImageHDU());
@@ -241,23 +513,47 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         setTabMode(SHOW_MODE.MODEL);
     }
 
+    /**
+     * Update the displayed input parameters only (partial update of the model view):
+     * the OIFits plot is only refreshed if the target changed
+     * @param irModel model
+     */
+    public void updateModelParams(IRModel irModel) {
+        if (showMode != SHOW_MODE.MODEL || irModel == null) {
+            displayModel(irModel);
+            return;
+        }
+        final OIFitsFile oifitsFile = irModel.getOifitsFile();
+        final String target = irModel.getImageOiData().getInputParam().getTarget();
+
+        if (oifitsFile != lastPlotFile || ((target != null) ? !target.equals(lastPlotTarget) : (lastPlotTarget != null))) {
+            displayOiFitsAndParams(oifitsFile, target);
+        } else {
+            ((KeywordsTableModel) jTableInputParamKeywords.getModel()).setFitsHdu(irModel.getImageOiData().getInputParam());
+        }
+    }
+
     public void displayResult(ServiceResult result) {
         showMode = SHOW_MODE.RESULT;
+        closeMappedResult();
 
         // Remove the grid view if any
         jPanelImage.removeAll();
         jPanelImage.setLayout(new BorderLayout());
 
         if (result != null) {
+            loadResult(result);
+
             // execution log
             jEditorPaneExecutionLog.setText(result.getExecutionLog());
+            displayAdditionalResults(result);
 
             if (result.isValid()) {
-                final OIFitsFile oifitsFile = result.getOifitsFile();
+                final OIFitsFile oifitsFile = (mappedResult != null) ? mappedResult.getOIFitsFile() : result.getOifitsFile();
 
                 // TODO have a look in the ouput param to look at right image ?
                 // show first one :
-                final List<FitsImageHDU> imageHdus = oifitsFile.getFitsImageHDUs();
+                final List<FitsImageHDU> imageHdus = (mappedResult != null) ? mappedResult.getFitsImageHDUs() : oifitsFile.getFitsImageHDUs();
                 final FitsImageHDU imageHDU = imageHdus.isEmpty() ? null : imageHdus.get(0);
                 final String target = oifitsFile.getImageOiData().getInputParam().getTarget();
 
@@ -271,97 +567,275 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         }
     }
 
-    private int calculateGridSize(int resultsSize) {
+    /**
+     * Load the result log and open the result file if not loaded (unloaded by the ResultCache or restored
+     * from a session archive): only the OI tables are loaded, image planes are read when displayed (MappedResult)
+     * @param result result to load
+     */
+    private void loadResult(final ServiceResult result) {
+        try {
+            result.loadExecutionLogFile();
+        } catch (IOException ioe) {
+            logger.warn("Unable to load the result log: {}", result.getExecutionLogResultFile(), ioe);
+        }
+        if (result.isValid() && (result.getOifitsFile() == null)) {
+            final File file = result.getOifitsResultFile();
+            if ((file != null) && file.exists()) {
+                try {
+                    mappedResult = MappedResult.open(file);
+                    result.updateMetadata(mappedResult.getOIFitsFile());
+
+                    final List<FitsImageHDU> imageHdus = mappedResult.getFitsImageHDUs();
+                    if (Double.isNaN(result.getImageMin()) && !imageHdus.isEmpty()) {
+                        // image range from the first prepared plane:
+                        final FitsImage image = imageHdus.get(0).getFitsImages().get(0);
+                        result.setImageRange(image.getDataMin(), image.getDataMax());
+                    }
+                } catch (IOException ioe) {
+                    logger.warn("Unable to load the result file: {}", file, ioe);
+                } catch (FitsException fe) {
+                    logger.warn("Unable to load the result file: {}", file, fe);
+                } catch (IllegalArgumentException iae) {
+                    logger.warn("Unable to prepare the result image: {}", file, iae);
+                } catch (IllegalStateException ise) {
+                    logger.warn("Unable to read the result image: {}", file, ise);
+                }
+            }
+            if (mappedResult == null) {
+                // missing or invalid result file:
+                result.setValid(false);
+            }
+        }
+    }
 
-        int i = resultsSize;
-        double size;
+    /**
+     * Release the displayed mapped result if any
+     */
+    private void closeMappedResult() {
+        // discard pending grid updates:
+        gridRevision++;
 
-        // TODO: should be easier to find out the size ...
-        while (true) {
-            size = Math.sqrt(i);
-            if (size - Math.floor(size) == 0) {
-                return (int) size;
-            }
-            i++;
+        if (mappedResult != null) {
+            mappedResult.close();
+            mappedResult = null;
         }
     }
 
-    public void displayGrid(List<ServiceResult> results) {
+    public void displayGrid(final List<ServiceResult> results) {
         showMode = SHOW_MODE.GRID;
+        closeMappedResult();
 
         if (!results.isEmpty()) {
-            final int gridSize = calculateGridSize(results.size());
             jPanelImage.removeAll();
-            jPanelImage.setLayout(new GridLayout(gridSize, gridSize));
+            jPanelImage.setLayout(new BorderLayout());
 
-            // Get min/max range over all images:
-            final float[] globalDataRange = new float[2];
-            globalDataRange[0] = Float.POSITIVE_INFINITY;
-            globalDataRange[1] = Float.NEGATIVE_INFINITY;
+            // Get min/max range over all images (resident per-result range):
+            final float[] globalDataRange = getGlobalDataRange(results);
+            final boolean rangesKnown = isImageRangeKnown(results);
 
+            final DefaultListModel<ServiceResult> model = new DefaultListModel<ServiceResult>();
             for (ServiceResult result : results) {
-                // TODO: generalize for comparison (sliders on cube or table)
-                final OIFitsFile oifitsFile = result.getOifitsFile();
-
                 if (result.isValid()) {
-                    // TODO have a look in the ouput param to look at right image ?
-                    // use first one :
-                    final List<FitsImageHDU> imageHdus = oifitsFile.getFitsImageHDUs();
-                    final FitsImageHDU imageHDU = imageHdus.isEmpty() ? null : imageHdus.get(0);
+                    model.addElement(result);
+                }
+            }
 
-                    if (imageHDU != null) {
-                        final FitsImage image = imageHDU.getFitsImages().get(0);
+            // virtualized grid: only visible cells are rendered (cached thumbnails)
+            final JList<ServiceResult> list = new JList<ServiceResult>(model);
+            list.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+            list.setVisibleRowCount(-1);
+            list.setFixedCellWidth(ThumbnailCache.THUMBNAIL_SIZE + 16);
+            list.setFixedCellHeight(ThumbnailCache.THUMBNAIL_SIZE + 32);
+            // thumbnails are only rendered once the shared color scale is known:
+            list.setCellRenderer(new ThumbnailCellRenderer(
+                    Preferences.getInstance().getPreference(Preferences.MODEL_IMAGE_LUT), globalDataRange[0], globalDataRange[1], rangesKnown));
+
+            list.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        final int index = list.locationToIndex(e.getPoint());
+                        if (index != -1 && list.getCellBounds(index, index).contains(e.getPoint())) {
+                            displayResult(model.getElementAt(index));
+                        }
+                    }
+                }
+            });
+
+            jPanelImage.add(new JScrollPane(list), BorderLayout.CENTER);
 
-                        final float min = (float) image.getDataMin();
-                        final float max = (float) image.getDataMax();
+            setTabMode(SHOW_MODE.GRID);
 
-                        logger.debug("image data range: [{} - {}]", min, max);
+            if (!rangesKnown) {
+                // unknown ranges (results restored from a session): read the first planes in background
+                // then update the shared color scale if this grid is still displayed:
+                final int revision = gridRevision;
+                final List<ServiceResult> pending = new ArrayList<ServiceResult>(results);
 
-                        // update data range:
-                        if (globalDataRange[0] > min) {
-                            globalDataRange[0] = min;
-                        }
-                        if (globalDataRange[1] < max) {
-                            globalDataRange[1] = max;
+                ResultIngestor.getInstance().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        computeImageRanges(pending);
+                    }
+                }, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (revision == gridRevision) {
+                            final float[] dataRange = getGlobalDataRange(results);
+                            list.setCellRenderer(new ThumbnailCellRenderer(
+                                    Preferences.getInstance().getPreference(Preferences.MODEL_IMAGE_LUT), dataRange[0], dataRange[1], true));
+                            list.repaint();
                         }
                     }
+                });
+            }
+        }
+    }
+
+    /**
+     * @param results results to display
+     * @return true if the image range of every valid result is known
+     */
+    private static boolean isImageRangeKnown(final List<ServiceResult> results) {
+        for (ServiceResult result : results) {
+            if (result.isValid() && Double.isNaN(result.getImageMin())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the unknown image ranges by reading the first plane of these results (worker thread)
+     * @param results results to display
+     */
+    private static void computeImageRanges(final List<ServiceResult> results) {
+        final long start = System.nanoTime();
+        for (ServiceResult result : results) {
+            if (result.isValid() && Double.isNaN(result.getImageMin())) {
+                // range not yet known: read the first plane once
+                final FitsImage image = ThumbnailCache.getPreviewImage(result);
+                if (image != null) {
+                    final double[] range = FitsPlaneReader.getDataRange(image.getData());
+                    result.setImageRange(range[0], range[1]);
                 }
             }
-            logger.debug("displayGrid: global data range: [{} - {}]", globalDataRange[0], globalDataRange[1]);
+        }
+        logger.debug("computeImageRanges: {} ms", 1e-6d * (System.nanoTime() - start));
+    }
 
-            for (ServiceResult result : results) {
-                final OIFitsFile oifitsFile = result.getOifitsFile();
+    /**
+     * @param results results to display
+     * @return min/max range over all known image ranges
+     */
+    private static float[] getGlobalDataRange(final List<ServiceResult> results) {
+        final float[] globalDataRange = new float[2];
+        globalDataRange[0] = Float.POSITIVE_INFINITY;
+        globalDataRange[1] = Float.NEGATIVE_INFINITY;
+
+        for (ServiceResult result : results) {
+            // TODO: generalize for comparison (sliders on cube or table)
+            if (result.isValid() && !Double.isNaN(result.getImageMin())) {
+                final float min = (float) result.getImageMin();
+                final float max = (float) result.getImageMax();
+
+                logger.debug("image data range: [{} - {}]", min, max);
+
+                // update data range:
+                if (globalDataRange[0] > min) {
+                    globalDataRange[0] = min;
+                }
+                if (globalDataRange[1] < max) {
+                    globalDataRange[1] = max;
+                }
+            }
+        }
+        logger.debug("displayGrid: global data range: [{} - {}]", globalDataRange[0], globalDataRange[1]);
+        return globalDataRange;
+    }
 
-                if (result.isValid()) {
-                    final FitsImagePanel panel = new FitsImagePanel(Preferences.getInstance(), true, false, globalDataRange);
-                    jPanelImage.add(panel);
+    /**
+     * Grid cell renderer: result thumbnail (color scale shared by all cells) and name
+     */
+    private static final class ThumbnailCellRenderer extends DefaultListCellRenderer {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1;
+        /** color model name */
+        private final String colorModel;
+        /** color scale */
+        private final float min;
+        private final float max;
+        /** true to render thumbnails (color scale known) */
+        private final boolean showThumbnails;
+
+        ThumbnailCellRenderer(final String colorModel, final float min, final float max, final boolean showThumbnails) {
+            this.colorModel = colorModel;
+            this.min = min;
+            this.max = max;
+            this.showThumbnails = showThumbnails;
+            setHorizontalAlignment(SwingConstants.CENTER);
+            setHorizontalTextPosition(SwingConstants.CENTER);
+            setVerticalTextPosition(SwingConstants.BOTTOM);
+        }
 
-                    // TODO have a look in the ouput param to look at right image ?
-                    // show first one :
-                    final List<FitsImageHDU> imageHdus = oifitsFile.getFitsImageHDUs();
-                    final FitsImageHDU imageHDU = imageHdus.isEmpty() ? null : imageHdus.get(0);
+        @Override
+        public Component getListCellRendererComponent(final JList<?> list, final Object value, final int index,
+                                                      final boolean isSelected, final boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, null, index, isSelected, cellHasFocus);
 
-                    if (imageHDU != null) {
-                        final FitsImage image = imageHDU.getFitsImages().get(0);
-                        panel.setFitsImage(image);
-                    }
+            final ServiceResult result = (ServiceResult) value;
+            final BufferedImage thumbnail = (showThumbnails) ? ThumbnailCache.getInstance().getThumbnail(result, colorModel, min, max) : null;
 
-                    // TODO FIX: not working !! 
-                    // see JFreeChart listeners ?
-                    panel.addMouseListener(new MouseAdapter() {
-                        @Override
-                        public void mouseClicked(MouseEvent e) {
-                            if (e.getClickCount() == 2) {
-                                System.out.println("double clicked");
-                                jPanelImage.removeAll();
-                                displayResult(result);
-                            }
-                            System.out.println("not double clicked");
-                        }
-                    });
-                }
-            }
-            setTabMode(SHOW_MODE.GRID);
+            setIcon((thumbnail != null) ? new ImageIcon(thumbnail) : null);
+            setText(result.getInputFile().getName());
+            setToolTipText(result.getInputFile().getName());
+            return this;
+        }
+    }
+
+    /**
+     * List the additional result files of the given result below the execution log
+     * @param result displayed result
+     */
+    private void displayAdditionalResults(final ServiceResult result) {
+        additionalResultFiles = result.getAdditionalResultFiles();
+
+        additionalResultsModel.removeAllElements();
+        for (String id : additionalResultFiles.keySet()) {
+            additionalResultsModel.addElement(id);
+        }
+        jPanelAdditionalResults.setVisible(!additionalResultFiles.isEmpty());
+    }
+
+    /**
+     * Save the given additional result file of the displayed result
+     * @param id result identifier
+     */
+    private void exportAdditionalResult(final String id) {
+        final File resultFile = (id != null) ? additionalResultFiles.get(id) : null;
+        if (resultFile == null) {
+            return;
+        }
+        if (!resultFile.exists()) {
+            MessagePane.showErrorMessage("Additional result file not found: " + resultFile.getName());
+            return;
+        }
+        final String ext = FileUtils.getExtension(resultFile.getName());
+        final MimeType mimeType = ((ext != null) && ext.toLowerCase().startsWith("fit")) ? MimeType.FITS_IMAGE : null;
+
+        final File file = FileChooser.showSaveFileChooser("Choose destination to write the additional result '" + id + "'",
+                null, mimeType, resultFile.getName());
+
+        // Cancel
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.copy(resultFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            StatusBar.show("Additional result '" + id + "' saved: " + file.getName());
+        } catch (IOException ioe) {
+            MessagePane.showErrorMessage("Unable to save the additional result file: " + file, ioe);
         }
     }
 
@@ -391,7 +865,12 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         }
 
         try {
-            OIFitsWriter.writeOIFits(file.getAbsolutePath(), oifitsFile);
+            if ((mappedResult != null) && (oifitsFile == mappedResult.getOIFitsFile())) {
+                // result opened without its images: copy the result file verbatim
+                Files.copy(mappedResult.getFile().toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                OIFitsWriter.writeOIFits(file.getAbsolutePath(), oifitsFile);
+            }
         } catch (IOException ex) {
             // Show the feedback report (modal) :
             FeedbackReport.openDialog(true, ex);
@@ -427,6 +906,10 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
 
         try {
             // export whole HDU (even if first image is shown) : image has been modified ( and is not the verbatim one).
+            if (mappedResult != null) {
+                // read all planes of the mapped result:
+                mappedResult.materializeAll(fitsImage.getFitsImageHDU());
+            }
             final FitsImageFile fits = new FitsImageFile();
             fits.getFitsImageHDUs().add(fitsImage.getFitsImageHDU());
 
@@ -448,6 +931,8 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         final FitsImage fitsImage = fitsImagePanel.getFitsImage();
         if (fitsImage != null) {
             if (fitsImagePanel.changeViewportFitsImage()) {
+                // image modified in place:
+                IRModelManager.getInstance().getIRModel().fitsImageHDUChanged(fitsImage.getFitsImageHDU());
                 displaySelection(fitsImage.getFitsImageHDU());
             }
         }
@@ -457,6 +942,8 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         final FitsImage fitsImage = fitsImagePanel.getFitsImage();
         if (fitsImage != null) {
             if (fitsImagePanel.resampleFitsImage()) {
+                // image modified in place:
+                IRModelManager.getInstance().getIRModel().fitsImageHDUChanged(fitsImage.getFitsImageHDU());
                 displaySelection(fitsImage.getFitsImageHDU());
             }
         }
@@ -466,6 +953,8 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
         final FitsImage fitsImage = fitsImagePanel.getFitsImage();
         if (fitsImage != null) {
             if (fitsImagePanel.rescaleFitsImage()) {
+                // image modified in place:
+                IRModelManager.getInstance().getIRModel().fitsImageHDUChanged(fitsImage.getFitsImageHDU());
                 displaySelection(fitsImage.getFitsImageHDU());
             }
         }
@@ -710,6 +1199,11 @@ public class ViewerPanel extends javax.swing.JPanel implements ChangeListener {
 
         enableActions();
         storeLastPanel();
+
+        if (jTabbedPaneVizualizations.getSelectedComponent() == jPanelLive) {
+            // timer may be stopped (no running job):
+            refreshLiveLog();
+        }
     }
 
     private void enableActions() {
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.gui.action;
+
+import fr.jmmc.jmcs.gui.action.ActionRegistrar;
+import fr.jmmc.jmcs.gui.action.RegisteredAction;
+import fr.jmmc.jmcs.gui.component.StatusBar;
+import fr.jmmc.oimaging.services.JobScheduler;
+import java.awt.event.ActionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cancel all pending and running jobs.
+ * @author bourgesl
+ */
+public final class CancelRunAction extends RegisteredAction {
+
+    /** default serial UID for Serializable interface */
+    private static final long serialVersionUID = 1;
+    /** Class name. This name is used to register to the ActionRegistrar */
+    public final static String className = CancelRunAction.class.getName();
+    /** Action name. This name is used to register to the ActionRegistrar */
+    public final static String actionName = "cancelRun";
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(className);
+
+    /**
+     * Public constructor that automatically register the action in RegisteredAction.
+     */
+    public CancelRunAction() {
+        super(className, actionName);
+        setEnabled(false);
+    }
+
+    /**
+     * Return the registered CancelRunAction
+     * @return CancelRunAction or null if not registered
+     */
+    static CancelRunAction getInstance() {
+        return (CancelRunAction) ActionRegistrar.getInstance().get(className, actionName);
+    }
+
+    /**
+     * Handle the action event
+     * @param evt action event
+     */
+    @Override
+    public void actionPerformed(final ActionEvent evt) {
+        logger.debug("actionPerformed");
+
+        // cancel jobs
+        JobScheduler.getInstance().cancelAll();
+        StatusBar.show("Process cancelled.");
+    }
+
+}
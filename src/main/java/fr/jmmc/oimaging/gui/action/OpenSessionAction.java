@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.gui.action;
+
+import fr.jmmc.jmcs.data.MimeType;
+import fr.jmmc.jmcs.data.preference.SessionSettingsPreferences;
+import fr.jmmc.jmcs.gui.action.ActionRegistrar;
+import fr.jmmc.jmcs.gui.action.RegisteredAction;
+import fr.jmmc.jmcs.gui.component.FileChooser;
+import fr.jmmc.jmcs.gui.component.MessagePane;
+import fr.jmmc.jmcs.gui.component.StatusBar;
+import fr.jmmc.oimaging.model.IRModelManager;
+import fr.jmmc.oimaging.model.SessionArchive;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Open a session archive (input data, settings and results).
+ * @author bourgesl
+ */
+public final class OpenSessionAction extends RegisteredAction {
+
+    /** default serial UID for Serializable interface */
+    private static final long serialVersionUID = 1;
+    /** Class name. This name is used to register to the ActionRegistrar */
+    public final static String className = OpenSessionAction.class.getName();
+    /** Action name. This name is used to register to the ActionRegistrar */
+    public final static String actionName = "openSession";
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(className);
+    /** session MimeType */
+    private final static MimeType mimeType = SessionArchive.MIME_TYPE;
+
+    /**
+     * Public constructor that automatically register the action in RegisteredAction.
+     */
+    public OpenSessionAction() {
+        super(className, actionName);
+    }
+
+    /**
+     * Handle the action event
+     * @param evt action event
+     */
+    @Override
+    public void actionPerformed(final ActionEvent evt) {
+        logger.debug("actionPerformed");
+
+        File file = null;
+
+        // If the action was automatically triggered from App launch
+        if (evt.getSource() == ActionRegistrar.getInstance()) {
+            file = new File(evt.getActionCommand());
+
+            if (!file.exists() || !file.isFile()) {
+                MessagePane.showErrorMessage("Could not load the file : " + file.getAbsolutePath());
+                file = null;
+            } else {
+                // update current directory for sessions:
+                SessionSettingsPreferences.setCurrentDirectoryForMimeType(mimeType, file.getParent());
+            }
+        } else {
+            file = FileChooser.showOpenFileChooser("Open session", null, mimeType);
+        }
+
+        // If a file was defined (No cancel in the dialog)
+        if (file != null) {
+            try {
+                IRModelManager.getInstance().loadIRModel(file, null, null);
+                StatusBar.show("session loaded: " + file.getAbsolutePath());
+            } catch (IOException ioe) {
+                StatusBar.show("Could not load session : " + file.getAbsolutePath());
+                MessagePane.showErrorMessage("Could not load session : " + file.getAbsolutePath(), ioe);
+            }
+        }
+    }
+
+}
@@ -3,23 +3,25 @@
  ******************************************************************************/
 package fr.jmmc.oimaging.gui.action;
 
+import fr.jmmc.jmcs.gui.FeedbackReport;
+import fr.jmmc.jmcs.gui.action.ActionRegistrar;
 import fr.jmmc.jmcs.gui.action.RegisteredAction;
 import fr.jmmc.jmcs.gui.component.MessagePane;
 import fr.jmmc.jmcs.gui.component.StatusBar;
-import fr.jmmc.jmcs.gui.task.Task;
-import fr.jmmc.jmcs.gui.task.TaskSwingWorker;
-import fr.jmmc.jmcs.gui.task.TaskSwingWorkerExecutor;
+import fr.jmmc.jmcs.gui.util.SwingUtils;
 import fr.jmmc.jmcs.util.ImageUtils;
 import fr.jmmc.oimaging.model.IRModel;
 import fr.jmmc.oimaging.model.IRModelManager;
-import fr.jmmc.oimaging.services.Service;
+import fr.jmmc.oimaging.services.JobListener;
+import fr.jmmc.oimaging.services.JobScheduler;
+import fr.jmmc.oimaging.services.ResultIngestor;
+import fr.jmmc.oimaging.services.ServiceJob;
 import fr.jmmc.oimaging.services.ServiceResult;
 import fr.nom.tam.fits.FitsException;
 import java.awt.event.ActionEvent;
-import java.io.File;
 import java.io.IOException;
 import java.net.UnknownHostException;
-import java.util.Date;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import javax.swing.Action;
 import org.apache.commons.httpclient.ConnectTimeoutException;
@@ -35,128 +37,154 @@ public class RunAction extends RegisteredAction {
     public final static String className = RunAction.class.getName();
     /** Action name. This name is used to register to the ActionRegistrar */
     public static final String actionName = "run";
-    /** Task Run IR */
-    public static final Task TASK_RUN_IR = new Task("RUN_IR");
 
     public RunAction() {
         super(className, actionName);
     }
 
-    private void setRunningState(final IRModel irModel, boolean running) {
-        irModel.setRunning(running);
-        putValue(Action.NAME, (running) ? "Cancel" : "Run");
+    /**
+     * Return the registered RunAction
+     * @return RunAction
+     */
+    static RunAction getInstance() {
+        return (RunAction) ActionRegistrar.getInstance().get(className, actionName);
+    }
+
+    /**
+     * Update the action state according to the number of pending / running jobs.
+     * Must be called by the Swing EDT.
+     */
+    void updateRunningState() {
+        final int jobs = JobScheduler.getInstance().getJobCount();
+        final boolean running = (jobs != 0);
+
+        putValue(Action.NAME, (running) ? "Run (" + jobs + " running)" : "Run");
         putValue(Action.LARGE_ICON_KEY, running ? ImageUtils.loadResourceIcon("fr/jmmc/jmcs/resource/image/spinner.gif") : null);
+
+        final CancelRunAction cancelAction = CancelRunAction.getInstance();
+        if (cancelAction != null) {
+            cancelAction.setEnabled(running);
+        }
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        // TODO: make a snapshot of the required information from model
         final IRModel irModel = IRModelManager.getInstance().getIRModel();
-        if (irModel.isRunning()) {
-            // cancel job
-            TaskSwingWorkerExecutor.cancelTask(TASK_RUN_IR);
-            StatusBar.show("Process cancelled.");
-        } else {
-            try {
-                StatusBar.show("Spawn " + irModel.getSelectedService() + " process");
-                // change model state to lock it and extract its snapshot
-                setRunningState(irModel, true);
-                new RunFitActionWorker(irModel.getCliOptions(), irModel.prepareTempFile(), irModel, this).executeTask();
-            } catch (FitsException ex) {
-                setRunningState(irModel, false);
-                logger.error("Can't prepare temporary file before running process", ex);
-                StatusBar.show("Can't spawn new process : " + ex.getMessage());
-            } catch (IOException ex) {
-                logger.error("Can't prepare temporary file before running process", ex);
-                StatusBar.show("Can't spawn new process : " + ex.getMessage());
-                setRunningState(irModel, false);
-            }
+        try {
+            // immutable snapshot of the run configuration (the job never reads the model):
+            final ServiceJob job = new ServiceJob(irModel.createRunSnapshot());
+
+            StatusBar.show("Spawn " + job.getService() + " process");
+            submit(irModel, job);
+        } catch (FitsException ex) {
+            logger.error("Can't prepare temporary file before running process", ex);
+            StatusBar.show("Can't spawn new process : " + ex.getMessage());
+        } catch (IOException ex) {
+            logger.error("Can't prepare temporary file before running process", ex);
+            StatusBar.show("Can't spawn new process : " + ex.getMessage());
         }
     }
 
-    static final class RunFitActionWorker extends TaskSwingWorker<ServiceResult> {
+    /**
+     * Submit the given job to the JobScheduler: its result will be added into the given model.
+     * Must be called by the Swing EDT.
+     * @param irModel model to update with the job result
+     * @param job job to run
+     */
+    void submit(final IRModel irModel, final ServiceJob job) {
+        JobScheduler.getInstance().submit(job, new RunJobListener(irModel, this));
+        updateRunningState();
+    }
+
+    /**
+     * Submit all given jobs to the JobScheduler: their results will be added into the given model.
+     * Must be called by the Swing EDT.
+     * @param irModel model to update with the job results
+     * @param jobs jobs to run
+     */
+    void submitAll(final IRModel irModel, final List<ServiceJob> jobs) {
+        JobScheduler.getInstance().submitAll(jobs, new RunJobListener(irModel, this));
+        updateRunningState();
+    }
+
+    /**
+     * Job listener adding results into the model using the Swing EDT
+     */
+    static final class RunJobListener implements JobListener {
 
-        private final String cliOptions;
-        private final File inputFile;
         private final IRModel irModel;
         private final RunAction parentAction;
 
-        RunFitActionWorker(String cliOptions, File inputFile, IRModel irModel, RunAction runAction) {
-            super(TASK_RUN_IR);
-            this.cliOptions = cliOptions;
-            this.inputFile = inputFile;
+        RunJobListener(final IRModel irModel, final RunAction runAction) {
             this.irModel = irModel; // only for callback
             this.parentAction = runAction;
         }
 
         @Override
-        public ServiceResult computeInBackground() {
-            final Service service = irModel.getSelectedService();
-            ServiceResult result = null;
-            try {
-                boolean valid = false;
-
-                result = service.getExecMode().reconstructsImage(service.getProgram(), cliOptions, inputFile);
-                result.setService(service);
-
-                if (result.getErrorMessage() == null) {
-                    // Result is valid only if the OIFITS file was downloaded successfully:
-                    valid = result.getOifitsResultFile().exists();
-                    result.setValid(valid);
-
-                    if (!valid) {
-                        result.setErrorMessage("No OIFits ouput (probably a server error occured) !");
-                    }
-                }
-                return result;
-            } catch (IllegalStateException ise) {
-                logger.warn("computeInBackground: exception: ", ise);
-                throw ise;
-            } finally {
-                if (result != null) {
-                    result.setEndTime(new Date());
-                }
-            }
+        public void jobStarted(final ServiceJob job) {
+            // nothing to do
         }
 
         @Override
-        public void refreshUI(ServiceResult serviceResult) {
-            // action finished, we can change state and update model just after.
-            parentAction.setRunningState(irModel, false);
+        public void jobFinished(final ServiceJob job, final ServiceResult serviceResult) {
+            SwingUtils.invokeLaterEDT(new Runnable() {
+                @Override
+                public void run() {
+                    // job finished, we can change state.
+                    parentAction.updateRunningState();
+
+                    if (serviceResult.isCancelled()) {
+                        StatusBar.show("Error occured during process : " + serviceResult.getErrorMessage());
+                    } else if (serviceResult.getConvergedReason() != null) {
+                        StatusBar.show("Job " + job.getProgress().getName() + " " + serviceResult.getConvergedReason());
+                    }
+                }
+            });
 
             if (!serviceResult.isCancelled()) {
-                this.irModel.addServiceResult(serviceResult);
-            } else {
-                StatusBar.show("Error occured during process : " + serviceResult.getErrorMessage());
+                // load log and result in background then update model using the Swing EDT:
+                ResultIngestor.getInstance().ingest(serviceResult, new ResultIngestor.IngestionListener() {
+                    @Override
+                    public void resultReady(final ServiceResult result) {
+                        irModel.addServiceResult(result);
+                    }
+                });
             }
         }
 
-        /**
-         * Refresh GUI when no data (null returned or cancelled) invoked by the Swing Event Dispatcher Thread (Swing EDT)
-         * @param cancelled true if task cancelled; false if null returned by computeInBackground()
-         */
         @Override
-        public void refreshNoData(final boolean cancelled) {
-            // action finished, we can change state.
-            parentAction.setRunningState(irModel, false);
+        public void jobCancelled(final ServiceJob job) {
+            SwingUtils.invokeLaterEDT(new Runnable() {
+                @Override
+                public void run() {
+                    // job finished, we can change state.
+                    parentAction.updateRunningState();
+                }
+            });
         }
 
         @Override
-        public void handleException(ExecutionException ee) {
-            // action finished, we can change state.
-            parentAction.setRunningState(irModel, false);
-
-            // filter some exceptions to avoid feedback report
-            if (filterNetworkException(ee)) {
-                MessagePane.showErrorMessage("Please check your network setup", "Please check your network setup", ee);
-            } else {
-                super.handleException(ee);
-            }
+        public void jobFailed(final ServiceJob job, final ExecutionException ee) {
+            SwingUtils.invokeLaterEDT(new Runnable() {
+                @Override
+                public void run() {
+                    // job finished, we can change state.
+                    parentAction.updateRunningState();
+
+                    // filter some exceptions to avoid feedback report
+                    if (filterNetworkException(ee)) {
+                        MessagePane.showErrorMessage("Please check your network setup", "Please check your network setup", ee);
+                    } else {
+                        // Show the feedback report (modal) :
+                        FeedbackReport.openDialog(true, ee);
+                    }
 
-            StatusBar.show("Error occured during process");
+                    StatusBar.show("Error occured during process");
+                }
+            });
         }
 
-        public boolean filterNetworkException(Exception e) {
+        public static boolean filterNetworkException(Exception e) {
             Throwable c = getRootCause(e);
             return c != null
                     && (c instanceof UnknownHostException
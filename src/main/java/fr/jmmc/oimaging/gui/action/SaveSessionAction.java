@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.gui.action;
+
+import fr.jmmc.jmcs.data.MimeType;
+import fr.jmmc.jmcs.gui.action.RegisteredAction;
+import fr.jmmc.jmcs.gui.component.FileChooser;
+import fr.jmmc.jmcs.gui.component.MessagePane;
+import fr.jmmc.jmcs.gui.component.StatusBar;
+import fr.jmmc.oimaging.model.IRModelManager;
+import fr.jmmc.oimaging.model.SessionArchive;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Save the current session (input data, settings and results) into an archive.
+ * @author bourgesl
+ */
+public final class SaveSessionAction extends RegisteredAction {
+
+    /** default serial UID for Serializable interface */
+    private static final long serialVersionUID = 1;
+    /** Class name. This name is used to register to the ActionRegistrar */
+    public final static String className = SaveSessionAction.class.getName();
+    /** Action name. This name is used to register to the ActionRegistrar */
+    public final static String actionName = "saveSession";
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(className);
+    /** session MimeType */
+    private final static MimeType mimeType = SessionArchive.MIME_TYPE;
+
+    /**
+     * Public constructor that automatically register the action in RegisteredAction.
+     */
+    public SaveSessionAction() {
+        super(className, actionName);
+    }
+
+    /**
+     * Handle the action event
+     * @param evt action event
+     */
+    @Override
+    public void actionPerformed(final ActionEvent evt) {
+        logger.debug("actionPerformed");
+
+        final IRModelManager irModelManager = IRModelManager.getInstance();
+
+        final File current = irModelManager.getIRModelFile();
+
+        // extension and overwrite confirmation handled by the file chooser:
+        final File file = FileChooser.showSaveFileChooser("Save session",
+                (current != null) ? current.getParentFile() : null, mimeType,
+                (current != null) ? current.getName() : null);
+
+        // Cancel
+        if (file == null) {
+            return;
+        }
+
+        try {
+            irModelManager.saveIRModel(file);
+            StatusBar.show("session saved: " + file.getAbsolutePath());
+        } catch (IOException ioe) {
+            StatusBar.show("Could not save session : " + file.getAbsolutePath());
+            MessagePane.showErrorMessage("Could not save session : " + file.getAbsolutePath(), ioe);
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.gui.action;
+
+import fr.jmmc.jmcs.App;
+import fr.jmmc.jmcs.gui.action.RegisteredAction;
+import fr.jmmc.jmcs.gui.component.MessagePane;
+import fr.jmmc.jmcs.gui.component.StatusBar;
+import fr.jmmc.oimaging.model.IRModel;
+import fr.jmmc.oimaging.model.IRModelManager;
+import fr.jmmc.oimaging.model.ParameterSweep;
+import fr.jmmc.oimaging.services.ServiceJob;
+import fr.nom.tam.fits.FitsException;
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.util.List;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run a parameter sweep: one job per point of the cartesian grid of the given keyword values.
+ */
+public final class SweepAction extends RegisteredAction {
+
+    /** default serial UID for Serializable interface */
+    private static final long serialVersionUID = 1;
+    /** Class name. This name is used to register to the ActionRegistrar */
+    public final static String className = SweepAction.class.getName();
+    /** Action name. This name is used to register to the ActionRegistrar */
+    public final static String actionName = "sweep";
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(className);
+    /** default sweep definition */
+    private static final String DEFAULT_DEFINITION = "# KEYWORD = value1, value2 or KEYWORD = start:end:count[:log]\n"
+            + "RGL_WGT = 1e2:1e7:6:log\n";
+
+    /* members */
+    /** last sweep definition */
+    private String definition = DEFAULT_DEFINITION;
+
+    /**
+     * Public constructor that automatically register the action in RegisteredAction.
+     */
+    public SweepAction() {
+        super(className, actionName);
+    }
+
+    /**
+     * Handle the action event
+     * @param evt action event
+     */
+    @Override
+    public void actionPerformed(final ActionEvent evt) {
+        logger.debug("actionPerformed");
+
+        final IRModel irModel = IRModelManager.getInstance().getIRModel();
+
+        final JTextArea textArea = new JTextArea(definition, 8, 50);
+        final JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JLabel("<html>Parameter sweep (one keyword per line, e.g. RGL_WGT, RGL_NAME, MAXITER):</html>"), BorderLayout.NORTH);
+        panel.add(new JScrollPane(textArea), BorderLayout.CENTER);
+
+        while (true) {
+            final int res = JOptionPane.showConfirmDialog(App.getFrame(), panel, "Parameter sweep",
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+            if (res != JOptionPane.OK_OPTION) {
+                return;
+            }
+            definition = textArea.getText();
+
+            final ParameterSweep sweep;
+            try {
+                sweep = ParameterSweep.parse(definition, irModel.getImageOiData().getInputParam(),
+                        irModel.getSelectedService().getSupported_RGL_NAME());
+            } catch (IllegalArgumentException iae) {
+                MessagePane.showErrorMessage("Invalid parameter sweep: " + iae.getMessage());
+                continue;
+            }
+
+            final int count = sweep.getPointCount();
+            if (count > 1 && !MessagePane.showConfirmMessage(App.getFrame(), "Do you want to run " + count + " jobs ?")) {
+                return;
+            }
+
+            try {
+                final List<ServiceJob> jobs = irModel.prepareSweepJobs(sweep);
+
+                StatusBar.show("Spawn " + jobs.size() + " " + irModel.getSelectedService() + " processes");
+                RunAction.getInstance().submitAll(irModel, jobs);
+            } catch (FitsException ex) {
+                logger.error("Can't prepare temporary files before running processes", ex);
+                StatusBar.show("Can't spawn new processes : " + ex.getMessage());
+            } catch (IOException ex) {
+                logger.error("Can't prepare temporary files before running processes", ex);
+                StatusBar.show("Can't spawn new processes : " + ex.getMessage());
+            } catch (IllegalArgumentException iae) {
+                // invalid value for a software-specific keyword:
+                MessagePane.showErrorMessage("Invalid parameter sweep: " + iae.getMessage(), iae);
+                continue;
+            }
+            return;
+        }
+    }
+
+}
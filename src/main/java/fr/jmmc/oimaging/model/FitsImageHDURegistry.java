@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oitools.image.FitsImageHDU;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indexed registry of the available image HDUs (checksum and HDUNAME lookups in constant time)
+ * preserving the insertion order (combo box models).
+ * @author bourgesl
+ */
+public final class FitsImageHDURegistry {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(FitsImageHDURegistry.class);
+
+    /**
+     * Callback deciding how to resolve HDUNAME collisions
+     */
+    public interface NameConflictHandler {
+
+        /**
+         * @param name colliding HDUNAME
+         * @param newName proposed HDUNAME
+         * @return true to rename the HDU, false to skip it
+         */
+        boolean acceptRename(String name, String newName);
+
+        /**
+         * The proposed HDUNAME is also used: the HDU is skipped
+         * @param newName proposed HDUNAME
+         */
+        void skipDuplicate(String newName);
+    }
+
+    /* members */
+    /** HDUs in insertion order */
+    private final List<FitsImageHDU> hdus = new ArrayList<FitsImageHDU>();
+    /** read-only view of HDUs */
+    private final List<FitsImageHDU> hdusView = Collections.unmodifiableList(hdus);
+    /** checksum to HDU */
+    private final Map<Long, FitsImageHDU> byChecksum = new HashMap<Long, FitsImageHDU>();
+    /** HDUNAME to HDU */
+    private final Map<String, FitsImageHDU> byName = new HashMap<String, FitsImageHDU>();
+    /** HDU to file name */
+    private final Map<FitsImageHDU, String> filenames = new IdentityHashMap<FitsImageHDU, String>();
+
+    /**
+     * Remove all HDUs
+     */
+    public void clear() {
+        hdus.clear();
+        byChecksum.clear();
+        byName.clear();
+        filenames.clear();
+    }
+
+    /**
+     * @return HDUs in insertion order (read-only)
+     */
+    public List<FitsImageHDU> getList() {
+        return hdusView;
+    }
+
+    public int size() {
+        return hdus.size();
+    }
+
+    public FitsImageHDU getByChecksum(final long checksum) {
+        return byChecksum.get(Long.valueOf(checksum));
+    }
+
+    public FitsImageHDU getByName(final String hduName) {
+        return (hduName != null) ? byName.get(hduName) : null;
+    }
+
+    /**
+     * @param hdu image HDU
+     * @return true if the given HDU (or one with the same checksum) is registered
+     */
+    public boolean contains(final FitsImageHDU hdu) {
+        return (hdu != null) && (filenames.containsKey(hdu) || byChecksum.containsKey(Long.valueOf(hdu.getChecksum())));
+    }
+
+    /**
+     * @param hdu registered image HDU
+     * @return file name of the given HDU or null
+     */
+    public String getFilename(final FitsImageHDU hdu) {
+        return filenames.get(hdu);
+    }
+
+    /**
+     * Register the given HDUs (in order) and return the added ones:
+     * HDUs without image, with the excluded HDUNAME or already registered (same checksum) are skipped;
+     * missing HDUNAME are set (HDUNAME, EXTNAME or file name) and HDUNAME collisions are resolved
+     * by the given handler (rename with the given suffix or skip).
+     * @param candidates HDUs to add
+     * @param filename file name of the given HDUs
+     * @param excludedName HDUNAME to skip (selected input image) or null
+     * @param suffix suffix used to rename colliding HDUs
+     * @param handler name conflict handler
+     * @return added HDUs
+     */
+    public List<FitsImageHDU> addAll(final List<FitsImageHDU> candidates, final String filename, final String excludedName,
+                                     final String suffix, final NameConflictHandler handler) {
+        final List<FitsImageHDU> added = new ArrayList<FitsImageHDU>(candidates.size());
+
+        for (FitsImageHDU hdu : candidates) {
+            if (!hdu.hasImages()) {
+                continue;
+            }
+            // skip hdu with hduname present in current input oifits:
+            if ((excludedName != null) && excludedName.equals(hdu.getHduName())) {
+                logger.info("skipping image hdu '{}' : selected input image", hdu.getHduName());
+                continue;
+            }
+            if (byChecksum.containsKey(Long.valueOf(hdu.getChecksum()))) {
+                logger.info("skipping image hdu '{}' : already present ", hdu.getHduName());
+                continue;
+            }
+
+            final String tryName = (hdu.getHduName() != null) ? hdu.getHduName()
+                    : ((hdu.getExtName() != null) ? hdu.getExtName() : (filename.substring(0, Math.min(50, filename.length()))));
+            hdu.setHduName(tryName);
+
+            if (byName.containsKey(tryName)) {
+                final String newName = tryName + "-" + suffix;
+
+                if (byName.containsKey(newName)) {
+                    handler.skipDuplicate(newName);
+                    logger.info("hduname '{}' already used : skipped", newName);
+                    continue;
+                }
+                if (!handler.acceptRename(tryName, newName)) {
+                    logger.info("hduname '{}' already used : user skip prefer to skip it ", tryName);
+                    continue;
+                }
+                logger.info("hduname '{}' already used, user accepted to rename to '{}'  ", tryName, newName);
+                hdu.setHduName(newName);
+            }
+            add(hdu, filename);
+            added.add(hdu);
+        }
+        return added;
+    }
+
+    /**
+     * Replace the given HDU by another one having the same HDUNAME (placeholder or reloaded HDU):
+     * its position, checksum key and file name are kept
+     * @param hdu registered image HDU
+     * @param other HDU to register instead
+     * @return true if the HDU was registered
+     */
+    public boolean replace(final FitsImageHDU hdu, final FitsImageHDU other) {
+        final String filename = filenames.remove(hdu);
+        if (filename == null) {
+            return false;
+        }
+        filenames.put(other, filename);
+
+        for (int i = 0, len = hdus.size(); i < len; i++) {
+            if (hdus.get(i) == hdu) {
+                hdus.set(i, other);
+                break;
+            }
+        }
+        // the checksum of a placeholder is unknown:
+        for (Map.Entry<Long, FitsImageHDU> e : byChecksum.entrySet()) {
+            if (e.getValue() == hdu) {
+                e.setValue(other);
+                break;
+            }
+        }
+        if (byName.get(hdu.getHduName()) == hdu) {
+            byName.put(hdu.getHduName(), other);
+        }
+        return true;
+    }
+
+    private void add(final FitsImageHDU hdu, final String filename) {
+        hdus.add(hdu);
+        byChecksum.put(Long.valueOf(hdu.getChecksum()), hdu);
+        byName.put(hdu.getHduName(), hdu);
+        filenames.put(hdu, filename);
+    }
+
+    @Override
+    public String toString() {
+        return hdus.toString();
+    }
+}
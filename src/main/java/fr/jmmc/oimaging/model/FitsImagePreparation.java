@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oiexplorer.core.util.FitsImageUtils;
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Image preparation (negative values, padding, orientation) of all planes of all given HDUs,
+ * planes being prepared in parallel (fork-join) as they are independent (chromatic cubes).
+ * @author bourgesl
+ */
+public final class FitsImagePreparation {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(FitsImagePreparation.class);
+    /** minimum number of pixels to prepare in parallel */
+    static final long PARALLEL_THRESHOLD = 256L * 1024L;
+
+    /**
+     * Forbidden constructor
+     */
+    private FitsImagePreparation() {
+        super();
+    }
+
+    /**
+     * Prepare all images of the given HDUs (in parallel if worth it)
+     * @param hdus image HDUs
+     * @throws IllegalArgumentException if any image is invalid
+     */
+    public static void prepareAllImages(final List<FitsImageHDU> hdus) throws IllegalArgumentException {
+        if (hdus == null) {
+            return;
+        }
+        final List<FitsImage> images = new ArrayList<FitsImage>();
+        long pixels = 0L;
+        for (FitsImageHDU hdu : hdus) {
+            for (FitsImage image : hdu.getFitsImages()) {
+                images.add(image);
+                pixels += (long) image.getNbRows() * image.getNbCols();
+            }
+        }
+        final long start = System.nanoTime();
+
+        if (images.size() > 1 && pixels >= PARALLEL_THRESHOLD) {
+            prepareParallel(images);
+        } else {
+            prepareSerial(images);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("prepareAllImages: {} images ({} pixels) in {} ms", images.size(), pixels, 1e-6d * (System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Prepare the given images using the current thread
+     * @param images images to prepare
+     */
+    static void prepareSerial(final List<FitsImage> images) {
+        for (FitsImage image : images) {
+            FitsImageUtils.prepareImage(image);
+        }
+    }
+
+    /**
+     * Prepare the given images using the common fork-join pool
+     * @param images images to prepare
+     */
+    static void prepareParallel(final List<FitsImage> images) {
+        ForkJoinPool.commonPool().invoke(new PrepareTask(images, 0, images.size()));
+    }
+
+    /**
+     * Task preparing the images in the range [from, to[ (split in halves down to one image)
+     */
+    private static final class PrepareTask extends RecursiveAction {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1;
+        /* members */
+        private final List<FitsImage> images;
+        private final int from;
+        private final int to;
+
+        PrepareTask(final List<FitsImage> images, final int from, final int to) {
+            this.images = images;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                FitsImageUtils.prepareImage(images.get(from));
+            } else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new PrepareTask(images, from, mid), new PrepareTask(images, mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oitools.image.FitsImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lazy access to the image planes of a FITS file: only headers are read when the file is opened,
+ * the data unit of each image HDU is memory-mapped on first access and planes are materialized one at a time
+ * (no full OIFitsLoader / FitsImageLoader pass, so large cubes open instantly and use little heap).
+ * @author bourgesl
+ */
+public final class FitsPlaneReader {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(FitsPlaneReader.class);
+    /** FITS card size */
+    private static final int FITS_CARD = 80;
+
+    /** image HDU descriptor */
+    private static final class ImageInfo {
+
+        /** HDU index (0 = primary) */
+        int hdu;
+        /** extension name (may be null) */
+        String extName;
+        /** HDUNAME (may be null) */
+        String hduName;
+        /** BITPIX */
+        int bitpix;
+        /** NAXIS1 (columns) */
+        int nbCols;
+        /** NAXIS2 (rows) */
+        int nbRows;
+        /** NAXIS3 (planes) */
+        int nbPlanes;
+        /** data unit position */
+        long dataPos;
+        /** data unit size (bytes) */
+        long dataSize;
+        /** BSCALE / BZERO */
+        double bscale;
+        double bzero;
+        /** WCS: CRPIX, CRVAL, CDELT (axes 1 and 2) */
+        double crpix1, crpix2, crval1, crval2, cdelt1, cdelt2;
+        /** mapped data unit (lazy) */
+        MappedByteBuffer data = null;
+    }
+
+    /* members */
+    /** FITS file */
+    private final File file;
+    /** image HDUs */
+    private final List<ImageInfo> images = new ArrayList<ImageInfo>(4);
+
+    /**
+     * Open the given FITS file (headers only)
+     * @param file FITS file
+     * @throws IOException if any I/O error occurs
+     */
+    public FitsPlaneReader(final File file) throws IOException {
+        this.file = file;
+        index();
+    }
+
+    private void index() throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            final ByteBuffer block = ByteBuffer.allocate(OIFitsExportCache.FITS_BLOCK);
+
+            long pos = 0L;
+            for (int hdu = 0; pos < size; hdu++) {
+                final List<String> cards = new ArrayList<String>(36);
+                final long dataPos = OIFitsExportCache.readHeader(channel, pos, block, cards);
+                if (dataPos < 0L) {
+                    break;
+                }
+                final long dataSize = OIFitsExportCache.getDataSize(cards);
+
+                final String xtension = OIFitsExportCache.getCardValue(cards, "XTENSION");
+                final int naxis = (int) OIFitsExportCache.getCardLong(cards, "NAXIS", 0L);
+
+                if ((hdu == 0 || "IMAGE".equals(xtension)) && naxis >= 2 && dataSize > 0L) {
+                    final ImageInfo info = new ImageInfo();
+                    info.hdu = hdu;
+                    info.extName = OIFitsExportCache.getCardValue(cards, "EXTNAME");
+                    info.hduName = OIFitsExportCache.getCardValue(cards, "HDUNAME");
+                    info.bitpix = (int) OIFitsExportCache.getCardLong(cards, "BITPIX", 8L);
+                    info.nbCols = (int) OIFitsExportCache.getCardLong(cards, "NAXIS1", 0L);
+                    info.nbRows = (int) OIFitsExportCache.getCardLong(cards, "NAXIS2", 0L);
+                    info.nbPlanes = (naxis >= 3) ? (int) OIFitsExportCache.getCardLong(cards, "NAXIS3", 1L) : 1;
+                    info.dataPos = dataPos;
+                    info.dataSize = dataSize;
+                    info.bscale = getCardDouble(cards, "BSCALE", 1.0);
+                    info.bzero = getCardDouble(cards, "BZERO", 0.0);
+                    info.crpix1 = getCardDouble(cards, "CRPIX1", 1.0);
+                    info.crpix2 = getCardDouble(cards, "CRPIX2", 1.0);
+                    info.crval1 = getCardDouble(cards, "CRVAL1", 0.0);
+                    info.crval2 = getCardDouble(cards, "CRVAL2", 0.0);
+                    info.cdelt1 = getCardDouble(cards, "CDELT1", 1.0);
+                    info.cdelt2 = getCardDouble(cards, "CDELT2", 1.0);
+                    images.add(info);
+                }
+                pos = dataPos + OIFitsExportCache.getPaddedSize(dataSize);
+            }
+        } finally {
+            raf.close();
+        }
+        logger.debug("index: {} image HDUs in {}", images.size(), file);
+    }
+
+    /**
+     * @return FITS file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of image HDUs
+     */
+    public int getImageCount() {
+        return images.size();
+    }
+
+    /**
+     * @param image image HDU index (0 = first image HDU)
+     * @return HDUNAME, EXTNAME or file name with the HDU index
+     */
+    public String getImageName(final int image) {
+        final ImageInfo info = images.get(image);
+        if (info.hduName != null) {
+            return info.hduName;
+        }
+        return (info.extName != null) ? info.extName : (file.getName() + '#' + info.hdu);
+    }
+
+    /**
+     * @param image image HDU index (0 = first image HDU)
+     * @return number of planes of the given image HDU
+     */
+    public int getPlaneCount(final int image) {
+        return images.get(image).nbPlanes;
+    }
+
+    /**
+     * Materialize the given plane
+     * @param image image HDU index (0 = first image HDU)
+     * @param plane plane index
+     * @return plane data [rows][cols]
+     * @throws IOException if any I/O error occurs
+     */
+    public float[][] readPlane(final int image, final int plane) throws IOException {
+        final ImageInfo info = images.get(image);
+        if (plane < 0 || plane >= info.nbPlanes) {
+            throw new IllegalArgumentException("Invalid plane index: " + plane);
+        }
+        final ByteBuffer buffer = map(info).duplicate();
+
+        final int bytes = Math.abs(info.bitpix) / 8;
+        final long planeSize = (long) info.nbRows * info.nbCols * bytes;
+        if ((plane + 1) * planeSize > Integer.MAX_VALUE) {
+            throw new IOException("Image plane out of the mapped range: " + plane);
+        }
+        buffer.position((int) (plane * planeSize));
+
+        final boolean scaled = (info.bscale != 1.0) || (info.bzero != 0.0);
+        final float[][] data = new float[info.nbRows][info.nbCols];
+
+        for (int j = 0; j < info.nbRows; j++) {
+            final float[] row = data[j];
+            for (int i = 0; i < info.nbCols; i++) {
+                final double value;
+                switch (info.bitpix) {
+                    case 8:
+                        value = buffer.get() & 0xFF;
+                        break;
+                    case 16:
+                        value = buffer.getShort();
+                        break;
+                    case 32:
+                        value = buffer.getInt();
+                        break;
+                    case 64:
+                        value = buffer.getLong();
+                        break;
+                    case -32:
+                        value = buffer.getFloat();
+                        break;
+                    case -64:
+                        value = buffer.getDouble();
+                        break;
+                    default:
+                        throw new IOException("Unsupported BITPIX: " + info.bitpix);
+                }
+                row[i] = (float) (scaled ? info.bzero + info.bscale * value : value);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Materialize the given plane as a FitsImage (data and WCS)
+     * @param image image HDU index (0 = first image HDU)
+     * @param plane plane index
+     * @return FitsImage (not attached to any FitsImageHDU)
+     * @throws IOException if any I/O error occurs
+     */
+    public FitsImage createFitsImage(final int image, final int plane) throws IOException {
+        final ImageInfo info = images.get(image);
+
+        final FitsImage fitsImage = new FitsImage();
+        fitsImage.setFitsImageIdentifier(file.getName() + '#' + ((info.extName != null) ? info.extName : info.hdu)
+                + ((info.nbPlanes > 1) ? ("#" + (plane + 1)) : ""));
+        fitsImage.setPixRefCol(info.crpix1);
+        fitsImage.setPixRefRow(info.crpix2);
+        fitsImage.setValRefCol(Math.toRadians(info.crval1));
+        fitsImage.setValRefRow(Math.toRadians(info.crval2));
+        fitsImage.setSignedIncCol(Math.toRadians(info.cdelt1));
+        fitsImage.setSignedIncRow(Math.toRadians(info.cdelt2));
+        fitsImage.setData(readPlane(image, plane));
+        return fitsImage;
+    }
+
+    /**
+     * Release the mapped data units
+     */
+    public void close() {
+        for (ImageInfo info : images) {
+            info.data = null;
+        }
+    }
+
+    /**
+     * Return the minimum and maximum finite values of the given plane data
+     * @param data plane data
+     * @return [min, max] (NaN if no finite value)
+     */
+    public static double[] getDataRange(final float[][] data) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float[] row : data) {
+            for (float value : row) {
+                if (value < min) {
+                    min = value;
+                }
+                if (value > max) {
+                    max = value;
+                }
+            }
+        }
+        return (min <= max) ? new double[]{min, max} : new double[]{Double.NaN, Double.NaN};
+    }
+
+    private MappedByteBuffer map(final ImageInfo info) throws IOException {
+        if (info.data == null) {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                // the mapping remains valid once the channel is closed:
+                info.data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, info.dataPos, Math.min(info.dataSize, Integer.MAX_VALUE));
+            } finally {
+                raf.close();
+            }
+        }
+        return info.data;
+    }
+
+    /**
+     * Copy the given FITS file without its image data: the primary data unit is dropped (NAXIS = 0)
+     * and IMAGE extensions are skipped, other extensions (OI tables, input / output parameters) are copied verbatim.
+     * @param src FITS file to copy
+     * @param dest file to write
+     * @throws IOException if any I/O error occurs
+     */
+    public static void writeWithoutImages(final File src, final File dest) throws IOException {
+        final RandomAccessFile in = new RandomAccessFile(src, "r");
+        try {
+            final RandomAccessFile out = new RandomAccessFile(dest, "rw");
+            try {
+                final FileChannel channel = in.getChannel();
+                final FileChannel destChannel = out.getChannel();
+                destChannel.truncate(0L);
+
+                final long size = channel.size();
+                final ByteBuffer block = ByteBuffer.allocate(OIFitsExportCache.FITS_BLOCK);
+
+                long pos = 0L;
+                for (int hdu = 0; pos < size; hdu++) {
+                    final List<String> cards = new ArrayList<String>(36);
+                    final long dataPos = OIFitsExportCache.readHeader(channel, pos, block, cards);
+                    if (dataPos < 0L) {
+                        break;
+                    }
+                    final long end = dataPos + OIFitsExportCache.getPaddedSize(OIFitsExportCache.getDataSize(cards));
+
+                    if (hdu == 0) {
+                        // primary header without data unit:
+                        final StringBuilder sb = new StringBuilder(cards.size() * FITS_CARD);
+                        for (String card : cards) {
+                            final String key = card.substring(0, 8).trim();
+                            if ("NAXIS".equals(key)) {
+                                sb.append(String.format("%-8s= %20d", "NAXIS", 0));
+                                for (int i = 30; i < FITS_CARD; i++) {
+                                    sb.append(' ');
+                                }
+                            } else if (!key.startsWith("NAXIS")) {
+                                sb.append(card);
+                            }
+                        }
+                        while (sb.length() % OIFitsExportCache.FITS_BLOCK != 0) {
+                            sb.append(' ');
+                        }
+                        final ByteBuffer header = ByteBuffer.wrap(sb.toString().getBytes("US-ASCII"));
+                        while (header.hasRemaining()) {
+                            destChannel.write(header);
+                        }
+                    } else if (!"IMAGE".equals(OIFitsExportCache.getCardValue(cards, "XTENSION"))) {
+                        long p = pos;
+                        final long last = Math.min(end, size);
+                        while (p < last) {
+                            final long n = channel.transferTo(p, last - p, destChannel);
+                            if (n <= 0L) {
+                                throw new IOException("Unable to copy " + src + " at position " + p);
+                            }
+                            p += n;
+                        }
+                    }
+                    pos = end;
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static double getCardDouble(final List<String> cards, final String key, final double def) {
+        final String value = OIFitsExportCache.getCardValue(cards, key);
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.replace('D', 'E'));
+            } catch (NumberFormatException nfe) {
+                logger.debug("invalid {} value: {}", key, value);
+            }
+        }
+        return def;
+    }
+}
@@ -8,8 +8,10 @@ import fr.jmmc.jmcs.gui.component.MessagePane;
 import fr.jmmc.jmcs.gui.component.StatusBar;
 import fr.jmmc.jmcs.util.DateUtils;
 import fr.jmmc.jmcs.util.FileUtils;
-import fr.jmmc.oiexplorer.core.util.FitsImageUtils;
+import fr.jmmc.oimaging.services.ResultCache;
+import fr.jmmc.oimaging.services.RunSnapshot;
 import fr.jmmc.oimaging.services.Service;
+import fr.jmmc.oimaging.services.ServiceJob;
 import fr.jmmc.oimaging.services.ServiceList;
 import fr.jmmc.oimaging.services.ServiceResult;
 import fr.jmmc.oitools.image.FitsImageFile;
@@ -20,15 +22,18 @@ import fr.jmmc.oitools.meta.OIFitsStandard;
 import fr.jmmc.oitools.model.OIFitsChecker;
 import fr.jmmc.oitools.model.OIFitsFile;
 import fr.jmmc.oitools.model.OIFitsLoader;
-import fr.jmmc.oitools.model.OIFitsWriter;
 import fr.jmmc.oitools.model.range.Range;
 import fr.nom.tam.fits.FitsException;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,20 +58,53 @@ public class IRModel {
 
     /** Selected input image */
     private FitsImageHDU selectedInputImageHDU;
-    /** List of loaded imageHUDs */
-    private final List<FitsImageHDU> fitsImageHDUs = new LinkedList<FitsImageHDU>();
-    /** Mapping between FitsImageHDU and file names */
-    private final Hashtable<FitsImageHDU, String> fitsImageHduToFilenames = new Hashtable<FitsImageHDU, String>(32);
+    /** Registry of loaded imageHUDs (with their file names) */
+    private final FitsImageHDURegistry fitsImageHDUs = new FitsImageHDURegistry();
+    /** HDUNAME collisions are resolved by the user (default) */
+    private static final FitsImageHDURegistry.NameConflictHandler USER_NAME_CONFLICT_HANDLER = new FitsImageHDURegistry.NameConflictHandler() {
+        @Override
+        public boolean acceptRename(final String name, final String newName) {
+            return MessagePane.showConfirmMessage("'" + name + "' HDU already exists in the available init images.\n "
+                    + "Do you agree to rename it '" + newName + "' ? \nElse it will be ignored.");
+        }
+
+        @Override
+        public void skipDuplicate(final String newName) {
+            // TODO propose here to replace the previous loaded HDU
+            MessagePane.showErrorMessage("HDU already loaded with hduname='" + newName + "', skipping");
+        }
+    };
+    /** HDUNAME collision handler */
+    private FitsImageHDURegistry.NameConflictHandler nameConflictHandler = USER_NAME_CONFLICT_HANDLER;
+    /** false to log image loading errors instead of showing them (headless use) */
+    private boolean interactive = true;
+    /** loaded result image HDUs kept in the registry (latest result or selected images) */
+    private final List<ResultImageRef> resultImageHDUs = new ArrayList<ResultImageRef>();
+    /** placeholders of the released result image HDUs (reloaded from their result when selected) */
+    private final Map<FitsImageHDU, ResultImageRef> releasedImageHDUs = new IdentityHashMap<FitsImageHDU, ResultImageRef>();
     /** List model of target names */
     private final GenericListModel<String> targetListModel = new GenericListModel<String>(new ArrayList<String>(10), true);
     /** List of results */
     private final List<ServiceResult> serviceResults = new LinkedList<ServiceResult>();
 
-    /** status flag : set by RunAction */
-    private boolean running;
-
     /** export counter */
     private int exportCount;
+    /** revision of the OI data and selected image (incremented on every change) */
+    private int dataRevision = 0;
+    /** incremental export of the input file */
+    private final OIFitsExportCache exportCache = new OIFitsExportCache();
+    /** data revision of the cached validation report */
+    private int checkRevision = -1;
+    /** cached validation report */
+    private String checkReport = null;
+    /** input parameter values of the cached validation report */
+    private Map<String, Object> checkParams = null;
+    /** cached validation report of the input parameters alone */
+    private String checkParamsReport = null;
+    /** data revision of the cached image checksum */
+    private int checksumRevision = -1;
+    /** cached checksum of the selected input image */
+    private String imageChecksum = null;
 
     public IRModel() {
         reset();
@@ -79,11 +117,18 @@ public class IRModel {
         this.cliOptions = null;
         this.selectedInputImageHDU = null;
         this.fitsImageHDUs.clear();
-        this.fitsImageHduToFilenames.clear();
+        this.resultImageHDUs.clear();
+        this.releasedImageHDUs.clear();
         this.serviceResults.clear();
 
-        this.running = false;
         this.exportCount = 0;
+        this.exportCache.reset();
+        this.checkRevision = -1;
+        this.checkReport = null;
+        this.checkParams = null;
+        this.checkParamsReport = null;
+        this.checksumRevision = -1;
+        this.imageChecksum = null;
 
         resetOIFits();
     }
@@ -98,6 +143,7 @@ public class IRModel {
      */
     private void loadOIFits(final OIFitsFile oifitsFile) {
         this.oifitsFile = oifitsFile;
+        this.dataRevision++;
         // load inputImageOiData or create a new one
         final ImageOiInputParam inputParam = oifitsFile.getImageOiData().getInputParam();
 
@@ -142,14 +188,6 @@ public class IRModel {
         }
     }
 
-    public boolean isRunning() {
-        return running;
-    }
-
-    public void setRunning(boolean running) {
-        this.running = running;
-    }
-
     public OIFitsFile getOifitsFile() {
         return oifitsFile;
     }
@@ -172,80 +210,34 @@ public class IRModel {
      * @return true if some hdu have been added
      */
     private boolean addFitsImageHDUs(final List<FitsImageHDU> hdus, final String filename) {
-        logger.debug("addFitsImageHDUs: {} ImageHDUs from {}", hdus.size(), filename);
-
         try {
             // prepare images (negative values, padding, orientation):
-            FitsImageUtils.prepareAllImages(hdus);
+            FitsImagePreparation.prepareAllImages(hdus);
         } catch (IllegalArgumentException iae) {
-            MessagePane.showErrorMessage("Unable to load image from file '{}'", filename, iae);
-            return false;
-        }
-
-        // Start with all hdus
-        final List<FitsImageHDU> hdusToAdd = new LinkedList<FitsImageHDU>();
-
-        for (FitsImageHDU fitsImageHDU : hdus) {
-            if (fitsImageHDU.hasImages()) {
-                hdusToAdd.add(fitsImageHDU);
+            if (interactive) {
+                MessagePane.showErrorMessage("Unable to load image from file '{}'", filename, iae);
+            } else {
+                logger.error("Unable to load image from file '{}'", filename, iae);
             }
+            return false;
         }
+        return !addPreparedFitsImageHDUs(hdus, filename).isEmpty();
+    }
 
-        // Remove duplicates and skip hdu with hduname present in current input oifits
-        for (FitsImageHDU hdu : hdus) {
-            if ((getSelectedInputImageHDU() != null) && (hdu.getHduName() != null) && hdu.getHduName().equals(getSelectedInputImageHDU().getHduName())) {
-                hdusToAdd.remove(hdu);
-                break;
-            }
-            for (FitsImageHDU currentHDU : getFitsImageHDUs()) {
-                if (currentHDU.getChecksum() == hdu.getChecksum()) {
-                    logger.info("skipping image hdu '{}' : already present ", hdu.getHduName());
-                    hdusToAdd.remove(hdu);
-                    break;
-                }
-            }
-        }
+    /**
+     * Add HDU (images already prepared) to present ones and select the first new one as selected image input.
+     * @param hdus new hdus
+     * @param filename filename of given hdu
+     * @return added hdus
+     */
+    private List<FitsImageHDU> addPreparedFitsImageHDUs(final List<FitsImageHDU> hdus, final String filename) {
+        logger.debug("addFitsImageHDUs: {} ImageHDUs from {}", hdus.size(), filename);
 
         final String now = DateUtils.now().substring(0, 19);
+        final String excludedName = (getSelectedInputImageHDU() != null) ? getSelectedInputImageHDU().getHduName() : null;
 
-        // And continue with remaining ones to find proper name
-        for (FitsImageHDU hdu : hdusToAdd) {
-            final String tryName = (hdu.getHduName() != null) ? hdu.getHduName()
-                    : ((hdu.getExtName() != null) ? hdu.getExtName() : (filename.substring(0, Math.min(50, filename.length()))));
-            hdu.setHduName(tryName);
-
-            for (FitsImageHDU currentHDU : getFitsImageHDUs()) {
-                if (currentHDU.getHduName() == null) {
-                    currentHDU.setHduName("UNDEFINED_" + currentHDU.getChecksum());
-                    logger.warn("Hdu has no hduName {}", currentHDU);
-                } else if (currentHDU.getHduName().equals(tryName)) {
-                    final String newName = tryName + "-" + now;
-
-                    if (hdu.getHduName().equals(newName)) {
-                        // TODO check if this branch can be reached
-                        MessagePane.showErrorMessage("HDU already loaded with hduname='" + newName + "', skipping");
-                        // TODO propose here to replace the previous loaded HDU
-                        hdusToAdd.remove(hdu);
-                    } else {
-                        if (MessagePane.showConfirmMessage("'" + tryName + "' HDU already exists in the available init images.\n "
-                                + "Do you agree to rename it '" + newName + "' ? \nElse it will be ignored.")) {
-                            logger.info("hduname '{}' already used, user accepted to rename to '{}'  ", hdu.getHduName(), newName);
-                            hdu.setHduName(newName);
-                        } else {
-                            hdusToAdd.remove(hdu);
-                            logger.info("hduname '{}' already used : user skip prefer to skip it ", hdu.getHduName());
-                        }
-                    }
-                    break;
-                }
-            }
-        }
-
-        // Move all FitsImageHDUs into model:
-        this.fitsImageHDUs.addAll(hdusToAdd);
-        for (FitsImageHDU hdu : hdusToAdd) {
-            this.fitsImageHduToFilenames.put(hdu, filename);
-        }
+        // Remove duplicates (checksum), skip hdu with hduname present in current input oifits and resolve name collisions:
+        final List<FitsImageHDU> hdusToAdd = fitsImageHDUs.addAll(hdus, filename, excludedName, now, nameConflictHandler);
 
         // select first added as selected input
         final boolean added = !hdusToAdd.isEmpty();
@@ -256,7 +248,81 @@ public class IRModel {
             setSelectedInputImageHDU(selectedInputImageHDU);
         }
 
-        return added;
+        return hdusToAdd;
+    }
+
+    /**
+     * Replace the loaded result image HDUs (except the selected input image) by placeholders in the registry
+     * so the images are released when the ResultCache unloads their result: they remain available as init images
+     * and are reloaded when selected (see setSelectedInputImageHDU)
+     */
+    private void releaseResultImageHDUs() {
+        for (Iterator<ResultImageRef> it = resultImageHDUs.iterator(); it.hasNext();) {
+            final ResultImageRef ref = it.next();
+            if (ref.hdu != selectedInputImageHDU) {
+                final FitsImageHDU placeholder = new FitsImageHDU();
+                placeholder.setHduName(ref.hdu.getHduName());
+
+                if (fitsImageHDUs.replace(ref.hdu, placeholder)) {
+                    // do not keep the image HDU reachable:
+                    releasedImageHDUs.put(placeholder, new ResultImageRef(ref.result, ref.index, null));
+                }
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Register the given image HDUs of the given result (loaded)
+     * @param serviceResult result
+     * @param hdus added image HDUs of the result
+     */
+    private void addResultImageHDUs(final ServiceResult serviceResult, final List<FitsImageHDU> hdus) {
+        final List<FitsImageHDU> resultHdus = serviceResult.getOifitsFile().getFitsImageHDUs();
+        for (FitsImageHDU hdu : hdus) {
+            resultImageHDUs.add(new ResultImageRef(serviceResult, resultHdus.indexOf(hdu), hdu));
+        }
+    }
+
+    /**
+     * Reload the image HDU of the given placeholder from its result (ResultCache) and register it instead
+     * @param placeholder released image HDU
+     * @param ref result image reference
+     * @return reloaded image HDU or null if the result can not be loaded
+     */
+    private FitsImageHDU reloadResultImageHDU(final FitsImageHDU placeholder, final ResultImageRef ref) {
+        final ServiceResult serviceResult = ref.result;
+        Exception e = null;
+        try {
+            serviceResult.loadOIFitsFile();
+        } catch (IOException ioe) {
+            e = ioe;
+        } catch (FitsException fe) {
+            e = fe;
+        }
+        final OIFitsFile resultFile = serviceResult.getOifitsFile();
+
+        if ((e != null) || (resultFile == null) || (serviceResult.getImagePreparationError() != null)
+                || (ref.index < 0) || (ref.index >= resultFile.getFitsImageHDUs().size())) {
+            final String msg = "Unable to reload image '" + placeholder.getHduName() + "' from file '"
+                    + serviceResult.getOifitsResultFile().getName() + "'";
+            if (interactive) {
+                MessagePane.showErrorMessage(msg, (e != null) ? e : serviceResult.getImagePreparationError());
+            } else {
+                logger.error(msg, (e != null) ? e : serviceResult.getImagePreparationError());
+            }
+            return null;
+        }
+        final FitsImageHDU hdu = resultFile.getFitsImageHDUs().get(ref.index);
+        // restore the registered (maybe renamed) HDUNAME:
+        hdu.setHduName(placeholder.getHduName());
+
+        fitsImageHDUs.replace(placeholder, hdu);
+        releasedImageHDUs.remove(placeholder);
+        resultImageHDUs.add(new ResultImageRef(serviceResult, ref.index, hdu));
+
+        logger.info("reloaded image hdu '{}' from {}", hdu.getHduName(), serviceResult.getOifitsResultFile());
+        return hdu;
     }
 
     public GenericListModel<String> getTargetListModel() {
@@ -275,7 +341,19 @@ public class IRModel {
      * Set given fitsImageHDU as the selected one for input.
      * @param fitsImageHDU image to select (must be present in the previous list
      */
-    public void setSelectedInputImageHDU(final FitsImageHDU fitsImageHDU) {
+    public void setSelectedInputImageHDU(final FitsImageHDU selectedHDU) {
+        FitsImageHDU fitsImageHDU = selectedHDU;
+
+        // released result image: reload it first
+        final ResultImageRef ref = (fitsImageHDU != null) ? releasedImageHDUs.get(fitsImageHDU) : null;
+        if (ref != null) {
+            fitsImageHDU = reloadResultImageHDU(fitsImageHDU, ref);
+            if (fitsImageHDU == null) {
+                // keep the current selection:
+                return;
+            }
+        }
+
         final String hduName;
         if (fitsImageHDU == null) {
             hduName = "";
@@ -295,21 +373,17 @@ public class IRModel {
         if (fitsImageHDU == null) {
             match = true;
         } else {
-            for (FitsImageHDU currentHDU : getFitsImageHDUs()) {
-                if ((currentHDU == fitsImageHDU)
-                        || (currentHDU.getChecksum() == fitsImageHDU.getChecksum())) {
-
-                    match = true;
+            if (fitsImageHDUs.contains(fitsImageHDU)) {
+                match = true;
 
-                    // OIFITS2 are not supported (2017/09/08)
-                    imageHdus.add(fitsImageHDU);
-                    break;
-                }
+                // OIFITS2 are not supported (2017/09/08)
+                imageHdus.add(fitsImageHDU);
             }
         }
 
         if (match) {
             selectedInputImageHDU = fitsImageHDU;
+            dataRevision++;
             oifitsFile.getImageOiData().getInputParam().setInitImg(hduName);
 
             logger.info("Set new hdu '{}' as selectedInputImageHDU", hduName);
@@ -318,8 +392,20 @@ public class IRModel {
         }
     }
 
+    /**
+     * Notify the model that the given image HDU was modified in place (resampled, rescaled or viewport changed):
+     * the next export, validation report and image checksum are computed again if it is the selected input image
+     * @param fitsImageHDU modified image HDU
+     */
+    public void fitsImageHDUChanged(final FitsImageHDU fitsImageHDU) {
+        if ((fitsImageHDU != null) && (fitsImageHDU == selectedInputImageHDU)) {
+            dataRevision++;
+            logger.debug("fitsImageHDUChanged: '{}' (revision {})", fitsImageHDU.getHduName(), dataRevision);
+        }
+    }
+
     public List<FitsImageHDU> getFitsImageHDUs() {
-        return this.fitsImageHDUs;
+        return this.fitsImageHDUs.getList();
     }
 
     public List<ServiceResult> getResultSets() {
@@ -341,6 +427,26 @@ public class IRModel {
         }
     }
 
+    /**
+     * Add the HDUs of the given image file whose images are already prepared (FitsImagePreparation)
+     * without any user interaction except the name conflict handler (headless use)
+     * @param fitsImageFile image file (images prepared)
+     * @return true if some hdu have been added
+     */
+    public boolean addPreparedFitsImageFile(final FitsImageFile fitsImageFile) {
+        return !addPreparedFitsImageHDUs(fitsImageFile.getFitsImageHDUs(), fitsImageFile.getFileName()).isEmpty();
+    }
+
+    /**
+     * Use this model without user interaction (headless use): image loading errors are only logged
+     * and HDUNAME collisions are resolved by the given handler (the user is asked by default)
+     * @param nameConflictHandler handler resolving HDUNAME collisions
+     */
+    public void setHeadless(final FitsImageHDURegistry.NameConflictHandler nameConflictHandler) {
+        this.nameConflictHandler = nameConflictHandler;
+        this.interactive = false;
+    }
+
     /**
      * Set cliOptions. Blank or null values avoid cli option passing.
      * @param cliOptions software options on command line or null
@@ -358,7 +464,7 @@ public class IRModel {
     }
 
     public String getImageHDUFilename(FitsImageHDU hdu) {
-        return fitsImageHduToFilenames.get(hdu);
+        return fitsImageHDUs.getFilename(hdu);
     }
 
     public Service getSelectedService() {
@@ -379,27 +485,162 @@ public class IRModel {
         return "IRModel [" + oifitsFile + ", " + fitsImageHDUs + ", " + selectedService + "]";
     }
 
-    public File prepareTempFile() throws FitsException, IOException {
-        // TODO don't copy file on every loop (because the oifitsFile always is synchronized as an input file model)
+    /**
+     * Return the revision of the OI data and selected image
+     * @return data revision
+     */
+    public int getDataRevision() {
+        return dataRevision;
+    }
+
+    /**
+     * Return the validation report of the OIFits file (checked once per data revision):
+     * if only the input parameters changed, only the input parameter HDU is checked again
+     * and the whole file is checked again only if its diagnostics changed
+     * @return validation report
+     */
+    public String getCheckReport() {
+        final Map<String, Object> params = getInputParamValues();
+
+        if (checkRevision != dataRevision) {
+            checkAll(params, checkInputParams());
+        } else if (!params.equals(checkParams)) {
+            final String paramsReport = checkInputParams();
+
+            if (paramsReport.equals(checkParamsReport)) {
+                checkParams = params;
+                logger.debug("validation results unchanged (input parameters changed)");
+            } else {
+                checkAll(params, paramsReport);
+            }
+        } else {
+            logger.debug("validation results unchanged (revision {})", dataRevision);
+        }
+        return checkReport;
+    }
+
+    private void checkAll(final Map<String, Object> params, final String paramsReport) {
         // validate OIFITS:
         final OIFitsChecker checker = new OIFitsChecker();
         oifitsFile.check(checker);
+
+        checkReport = checker.getCheckReport();
+        checkRevision = dataRevision;
+        checkParams = params;
+        checkParamsReport = paramsReport;
+
         // validation results
-        logger.info("validation results:\n{}", checker.getCheckReport());
+        logger.info("validation results:\n{}", checkReport);
+    }
+
+    /**
+     * @return validation report of the input parameter HDU alone
+     */
+    private String checkInputParams() {
+        final OIFitsChecker checker = new OIFitsChecker();
+        getImageOiData().getInputParam().checkHDU(checker);
+        return checker.getCheckReport();
+    }
 
-        // store original filename
-        final String originalAbsoluteFilePath = oifitsFile.getAbsoluteFilePath();
+    /**
+     * @return current input parameter values keyed by keyword name
+     */
+    private Map<String, Object> getInputParamValues() {
+        final ImageOiInputParam params = getImageOiData().getInputParam();
 
-        File tmpFile = FileUtils.getTempFile(oifitsFile.getFileName(), ".export-" + exportCount + ".fits");
-        OIFitsWriter.writeOIFits(tmpFile.getAbsolutePath(), oifitsFile);
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (String name : params.getKeywordsDesc().keySet()) {
+            values.put(name, params.getKeywordValue(name));
+        }
+        return values;
+    }
 
-        //restore filename
-        oifitsFile.setAbsoluteFilePath(originalAbsoluteFilePath);
+    public File prepareTempFile() throws FitsException, IOException {
+        // validate OIFITS (cached until the data changes):
+        getCheckReport();
+
+        final File tmpFile = FileUtils.getTempFile(oifitsFile.getFileName(), ".export-" + exportCount + ".fits");
+
+        // only input params are written again if the OI data and image are unchanged:
+        exportCache.export(oifitsFile, dataRevision, tmpFile);
 
         exportCount++;
         return tmpFile;
     }
 
+    /**
+     * Create the immutable snapshot of the current run configuration (service, options, input parameters,
+     * selected image checksum and prepared input file). Must be called by the thread modifying the model (Swing EDT).
+     * @return run snapshot
+     * @throws FitsException if any FITS error occurs
+     * @throws IOException if any I/O error occurs
+     */
+    public RunSnapshot createRunSnapshot() throws FitsException, IOException {
+        final Map<String, Object> values = getInputParamValues();
+
+        // image checksum computed once per data revision:
+        if (checksumRevision != dataRevision) {
+            imageChecksum = RunSnapshot.computeChecksum(getSelectedInputImageHDU());
+            checksumRevision = dataRevision;
+        }
+        return new RunSnapshot(selectedService, cliOptions, values, imageChecksum, dataRevision, prepareTempFile());
+    }
+
+    /**
+     * Prepare one job per point of the given parameter sweep:
+     * input parameters are modified for each point then restored.
+     * @param sweep parameter sweep
+     * @return list of jobs to run
+     * @throws FitsException if any FITS error occurs
+     * @throws IOException if any I/O error occurs
+     */
+    public List<ServiceJob> prepareSweepJobs(final ParameterSweep sweep) throws FitsException, IOException {
+        final ImageOiInputParam params = getImageOiData().getInputParam();
+
+        // backup original values (specific keywords may be added or removed by initSpecificParams):
+        final Map<String, Object> originals = new LinkedHashMap<String, Object>();
+        for (String name : params.getKeywordsDesc().keySet()) {
+            originals.put(name, params.getKeywordValue(name));
+        }
+
+        final List<Map<String, String>> points = sweep.expand();
+        final List<ServiceJob> jobs = new ArrayList<ServiceJob>(points.size());
+        try {
+            for (Map<String, String> point : points) {
+                // apply twice as software-specific keywords may depend on other keywords (SPARCO SNMODS):
+                applySweepPoint(params, point);
+                initSpecificParams(false);
+                applySweepPoint(params, point);
+
+                logger.debug("prepareSweepJobs: point {}", point);
+
+                jobs.add(new ServiceJob(createRunSnapshot()));
+            }
+        } finally {
+            // restore original values (swept keywords first as specific keywords may depend on them):
+            for (String name : sweep.getKeywordNames()) {
+                params.setKeywordValue(name, originals.get(name));
+            }
+            initSpecificParams(false);
+
+            for (Map.Entry<String, Object> e : originals.entrySet()) {
+                if (params.getKeywordsDesc(e.getKey()) != null) {
+                    params.setKeywordValue(e.getKey(), e.getValue());
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private static void applySweepPoint(final ImageOiInputParam params, final Map<String, String> point) {
+        for (Map.Entry<String, String> e : point.entrySet()) {
+            // specific keywords may be missing before initSpecificParams:
+            if (params.getKeywordsDesc(e.getKey()) != null) {
+                params.updateKeyword(e.getKey(), e.getValue());
+            }
+        }
+    }
+
     public String getSelectedInputFitsImageError() {
         if (getSelectedInputImageHDU() == null) {
             return "No image data loaded";
@@ -452,7 +693,7 @@ public class IRModel {
         }
 
         // notify model change
-        IRModelManager.getInstance().fireIRModelChanged(this, null);
+        IRModelManager.getInstance().fireIRModelChanged(this, null, EnumSet.of(IRModelChange.IMAGE));
 
         return dataAdded;
     }
@@ -471,9 +712,13 @@ public class IRModel {
         MessagePane.showErrorMessage((executionLog != null) ? (prefixMessage + "\n\n" + executionLog) : prefixMessage, e);
     }
 
+    /**
+     * Add the given result (log and result file are loaded if needed, see ResultIngestor to do it in background)
+     * @param serviceResult result to add
+     */
     public void addServiceResult(ServiceResult serviceResult) {
         loadLog(serviceResult);
-        // Load result:
+        // Load result (no-op if already loaded):
         try {
             serviceResult.loadOIFitsFile();
         } catch (FitsException fe) {
@@ -483,23 +728,56 @@ public class IRModel {
         }
         getResultSets().add(0, serviceResult);
 
-        if (serviceResult.isValid()) {
-            addFitsImageHDUs(serviceResult.getOifitsFile().getFitsImageHDUs(), serviceResult.getInputFile().getName());
+        final OIFitsFile resultFile = serviceResult.getOifitsFile();
+        if (serviceResult.isValid() && (resultFile != null)) {
+            final String filename = serviceResult.getInputFile().getName();
+
+            if (serviceResult.getImagePreparationError() != null) {
+                MessagePane.showErrorMessage("Unable to load image from file '{}'", filename, serviceResult.getImagePreparationError());
+            } else {
+                // only the images of the latest result remain loaded (older ones are reloaded when selected):
+                releaseResultImageHDUs();
+                // images prepared when the result was loaded:
+                addResultImageHDUs(serviceResult, addPreparedFitsImageHDUs(resultFile.getFitsImageHDUs(), filename));
+            }
         }
 
         // notify model update
-        IRModelManager.getInstance().fireIRModelUpdated(this, null);
+        IRModelManager.getInstance().fireIRModelUpdated(this, null, EnumSet.of(IRModelChange.RESULT_ADDED));
     }
 
     public void removeServiceResult(ServiceResult serviceResultToDelete) {
         getResultSets().remove(serviceResultToDelete);
+        ResultCache.getInstance().remove(serviceResultToDelete);
         // notify model update
-        IRModelManager.getInstance().fireIRModelUpdated(this, null);
+        IRModelManager.getInstance().fireIRModelUpdated(this, null, EnumSet.of(IRModelChange.RESULTS_REMOVED));
     }
 
     public void removeServiceResults(List<ServiceResult> selectedServicesList) {
         getResultSets().removeAll(selectedServicesList);
+        for (ServiceResult result : selectedServicesList) {
+            ResultCache.getInstance().remove(result);
+        }
         // notify model update
-        IRModelManager.getInstance().fireIRModelUpdated(this, null);
+        IRModelManager.getInstance().fireIRModelUpdated(this, null, EnumSet.of(IRModelChange.RESULTS_REMOVED));
+    }
+
+    /**
+     * Reference to an image HDU of a result (position in the result file)
+     */
+    private static final class ResultImageRef {
+
+        /** result */
+        final ServiceResult result;
+        /** index of the image HDU in the result file */
+        final int index;
+        /** loaded image HDU (null if released) */
+        final FitsImageHDU hdu;
+
+        ResultImageRef(final ServiceResult result, final int index, final FitsImageHDU hdu) {
+            this.result = result;
+            this.index = index;
+            this.hdu = hdu;
+        }
     }
 }
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import java.util.EnumSet;
+
+/**
+ * This enumeration defines the parts of the IRModel changed by an IRModelEvent (change descriptor)
+ * so listeners only update what changed.
+ */
+public enum IRModelChange {
+
+    /** whole model replaced (new, reset, session loaded) */
+    MODEL,
+    /** OI data changed (targets, wavelength range, observables) */
+    DATA,
+    /** image list or selected input image changed */
+    IMAGE,
+    /** input parameters or software settings changed */
+    PARAMS,
+    /** a result was added (first in the result list) */
+    RESULT_ADDED,
+    /** results were removed */
+    RESULTS_REMOVED;
+
+    /** all changes */
+    public static final EnumSet<IRModelChange> ALL = EnumSet.allOf(IRModelChange.class);
+}
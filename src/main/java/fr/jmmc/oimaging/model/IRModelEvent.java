@@ -4,6 +4,8 @@
 package fr.jmmc.oimaging.model;
 
 import fr.jmmc.oiexplorer.core.model.event.GenericEvent;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Base class for IRModel events consumed by IRModelEventListener
@@ -15,21 +17,49 @@ import fr.jmmc.oiexplorer.core.model.event.GenericEvent;
 public final class IRModelEvent extends GenericEvent<IRModelEventType, Object> {
 
     private final IRModel irModel;
+    /** change descriptor */
+    private final Set<IRModelChange> changes;
 
     /**
-     * Public constructor dealing with an IR Model 
+     * Public constructor dealing with an IR Model (every part changed)
      * @param type event type
      * @param subjectId optional related object id
      */
     public IRModelEvent(final IRModelEventType type, final String subjectId, IRModel irModel) {
+        this(type, subjectId, irModel, IRModelChange.ALL);
+    }
+
+    /**
+     * Public constructor dealing with an IR Model
+     * @param type event type
+     * @param subjectId optional related object id
+     * @param changes changed parts of the model
+     */
+    public IRModelEvent(final IRModelEventType type, final String subjectId, IRModel irModel, final Set<IRModelChange> changes) {
         super(type, subjectId);
         this.irModel = irModel;
+        this.changes = (changes.isEmpty()) ? EnumSet.noneOf(IRModelChange.class) : EnumSet.copyOf(changes);
     }
 
     public IRModel getIrModel() {
         return irModel;
     }
 
+    /**
+     * @return changed parts of the model
+     */
+    public Set<IRModelChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @param change part of the model
+     * @return true if the given part changed
+     */
+    public boolean hasChange(final IRModelChange change) {
+        return changes.contains(change);
+    }
+
     /**
      * Resolve subject value using its subject id and event type
      */
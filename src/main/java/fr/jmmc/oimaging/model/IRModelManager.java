@@ -6,12 +6,11 @@ package fr.jmmc.oimaging.model;
 import fr.jmmc.jmcs.data.MimeType;
 import fr.jmmc.jmcs.data.preference.SessionSettingsPreferences;
 import fr.jmmc.jmcs.gui.component.StatusBar;
+import fr.jmmc.jmcs.gui.util.SwingUtils;
 import fr.jmmc.jmcs.service.RecentFilesManager;
 import fr.jmmc.jmcs.util.FileUtils;
-import fr.jmmc.jmcs.util.jaxb.JAXBFactory;
-import fr.jmmc.jmcs.util.jaxb.JAXBUtils;
-import fr.jmmc.jmcs.util.jaxb.XmlBindException;
 import fr.jmmc.oiexplorer.core.model.event.EventNotifier;
+import fr.jmmc.oimaging.Preferences;
 import fr.jmmc.oitools.image.FitsImageFile;
 import fr.jmmc.oitools.image.FitsImageLoader;
 import fr.jmmc.oitools.meta.OIFitsStandard;
@@ -19,11 +18,20 @@ import fr.jmmc.oitools.model.OIFitsChecker;
 import fr.jmmc.oitools.model.OIFitsFile;
 import fr.jmmc.oitools.model.OIFitsLoader;
 import fr.nom.tam.fits.FitsException;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.Timer;
 import org.apache.commons.httpclient.auth.AuthenticationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,13 +45,9 @@ public final class IRModelManager {
 
     /** Logger */
     private static final Logger logger = LoggerFactory.getLogger(IRModelManager.class);
-    /** package name for JAXB generated code */
-    //private final static String IRMODEL_JAXB_PATH = IRModel.class.getPackage().getName();
     /** Singleton pattern */
     private final static IRModelManager instance = new IRModelManager();
     /* members */
-    /** internal JAXB Factory */
-    private final JAXBFactory jf;
     /** flag to enable/disable firing events during startup (before calling start) */
     private boolean enableEvents = false;
 
@@ -54,6 +58,17 @@ public final class IRModelManager {
     /* event dispatchers */
     /** IRModelEventType event notifier map */
     private final EnumMap<IRModelEventType, EventNotifier<IRModelEvent, IRModelEventType, Object>> irModelManagerEventNotifierMap;
+    /** pending events to coalesce (guarded by itself) */
+    private final Map<PendingEvent, PendingEvent> pendingEvents = new LinkedHashMap<PendingEvent, PendingEvent>(8);
+    /** flag indicating that the dispatch of pending events is scheduled (guarded by pendingEvents) */
+    private boolean flushScheduled = false;
+    /** dispatch task */
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushEvents();
+        }
+    };
 
     /**
      * Return the Manager singleton
@@ -70,11 +85,6 @@ public final class IRModelManager {
     private IRModelManager() {
         super();
 
-//        this.jf = JAXBFactory.getInstance(IRMODEL_JAXB_PATH);
-        this.jf = null; // TODO
-
-        logger.debug("IRModelManager: JAXBFactory: {}", this.jf);
-
         this.irModelManagerEventNotifierMap = new EnumMap<IRModelEventType, EventNotifier<IRModelEvent, IRModelEventType, Object>>(IRModelEventType.class);
 
         int priority = 0;
@@ -98,10 +108,9 @@ public final class IRModelManager {
      * @param listener progress listener
      * @throws IOException if an I/O exception occurred
      * @throws IllegalStateException if an unexpected exception occurred
-     * @throws XmlBindException if a JAXBException was caught while creating an unmarshaller
      */
     public void loadIRModel(final File file, final OIFitsChecker checker,
-                            final LoadIRModelListener listener) throws IOException, IllegalStateException, XmlBindException {
+                            final LoadIRModelListener listener) throws IOException, IllegalStateException {
         loadIRModel(file, checker, listener, false);
     }
 
@@ -113,18 +122,22 @@ public final class IRModelManager {
      * @param appendOIFitsFilesOnly load only OIFits and skip plot+subset if true, else reset and load whole collection content
      * @throws IOException if an I/O exception occurred
      * @throws IllegalStateException if an unexpected exception occurred
-     * @throws XmlBindException if a JAXBException was caught while creating an unmarshaller
      */
     public void loadIRModel(final File file, final OIFitsChecker checker,
-                            final LoadIRModelListener listener, final boolean appendOIFitsFilesOnly) throws IOException, IllegalStateException, XmlBindException {
+                            final LoadIRModelListener listener, final boolean appendOIFitsFilesOnly) throws IOException, IllegalStateException {
 
-        final IRModel loadedModel = (IRModel) JAXBUtils.loadObject(file.toURI().toURL(), this.jf);
+        final long startTime = System.nanoTime();
 
-        // TODO
-        // OIDataCollectionFileProcessor.onLoad(loadedUserCollection);
+        // session archive: result files are only extracted (loaded lazily):
+        final IRModel loadedModel = SessionArchive.load(file, checker);
+
+        logger.info("loadIRModel: duration = {} ms.", 1e-6d * (System.nanoTime() - startTime));
+
+        postLoadIRModel(file, loadedModel, checker);
     }
 
     private void postLoadIRModel(final File file, final IRModel irModel, final OIFitsChecker checker) {
+        this.irModel = irModel;
 
         // after loadIRModel as it calls reset():
         setIRModelFile(file);
@@ -132,12 +145,12 @@ public final class IRModelManager {
         // add given file to Open recent menu
         RecentFilesManager.addFile(file);
 
-        throw new IllegalStateException("TODO");
+        fireIRModelChanged();
     }
 
     /**
-     * Load the IR Model at given URL
-     * @param file model file to load
+     * Save the IR Model (session archive) into the given file
+     * @param file session file to write
      * @throws IOException if an I/O exception occurred
      * @throws IllegalStateException if an unexpected exception occurred
      */
@@ -146,9 +159,8 @@ public final class IRModelManager {
 
         final IRModel saved = getIRModel();
 
-//        OIDataCollectionFileProcessor.onSave(savedUserCollection);
-        // TODO: may also save OIFits file copies into zip archive (xml + OIFits files) ??
-        JAXBUtils.saveObject(file, saved, this.jf);
+        // zip archive (input OIFits, result files and index):
+        SessionArchive.save(file, saved);
 
         setIRModelFile(file);
 
@@ -233,7 +245,7 @@ public final class IRModelManager {
     public boolean loadOIFitsFile(final OIFitsFile oiFitsFile) {
         if (oiFitsFile != null) {
             irModel.loadOifitsFile(oiFitsFile);
-            fireIRModelUpdated(this, null);
+            fireIRModelUpdated(this, null, EnumSet.of(IRModelChange.DATA, IRModelChange.IMAGE, IRModelChange.PARAMS));
             return true;
 
         }
@@ -314,7 +326,7 @@ public final class IRModelManager {
     public boolean addFitsImageFile(final FitsImageFile fitsImageFile) {
         if (fitsImageFile != null) {
             irModel.addFitsImageFile(fitsImageFile);
-            fireIRModelChanged();
+            fireIRModelChanged(this, null, EnumSet.of(IRModelChange.IMAGE));
             return true;
         }
         return false;
@@ -422,12 +434,22 @@ public final class IRModelManager {
      * @param destination destination listener (null means all)
      */
     public void fireIRModelChanged(final Object source, final IRModelEventListener destination) {
+        fireIRModelChanged(source, destination, IRModelChange.ALL);
+    }
+
+    /**
+     * This fires an IRMODEL_CHANGED event with the given change descriptor to given registered listener ASYNCHRONOUSLY !
+     *
+     * @param source event source
+     * @param destination destination listener (null means all)
+     * @param changes changed parts of the model
+     */
+    public void fireIRModelChanged(final Object source, final IRModelEventListener destination, final Set<IRModelChange> changes) {
         if (enableEvents) {
             if (logger.isDebugEnabled()) {
-                logger.debug("fireIRModelChanged TO {}", (destination != null) ? destination : "ALL");
+                logger.debug("fireIRModelChanged {} TO {}", changes, (destination != null) ? destination : "ALL");
             }
-            getIRModelChangedEventNotifier().queueEvent((source != null) ? source : this,
-                    new IRModelEvent(IRModelEventType.IRMODEL_CHANGED, null, getIRModel()), destination);
+            coalesceEvent(IRModelEventType.IRMODEL_CHANGED, (source != null) ? source : this, destination, changes);
         }
     }
 
@@ -438,12 +460,110 @@ public final class IRModelManager {
      * @param destination destination listener (null means all)
      */
     public void fireIRModelUpdated(final Object source, final IRModelEventListener destination) {
+        fireIRModelUpdated(source, destination, IRModelChange.ALL);
+    }
+
+    /**
+     * This fires an IRMODEL_UPDATED event with the given change descriptor to given registered listener ASYNCHRONOUSLY !
+     *
+     * @param source event source
+     * @param destination destination listener (null means all)
+     * @param changes changed parts of the model
+     */
+    public void fireIRModelUpdated(final Object source, final IRModelEventListener destination, final Set<IRModelChange> changes) {
         if (enableEvents) {
             if (logger.isDebugEnabled()) {
-                logger.debug("fireIRModelUpdated TO {}", (destination != null) ? destination : "ALL");
+                logger.debug("fireIRModelUpdated {} TO {}", changes, (destination != null) ? destination : "ALL");
+            }
+            coalesceEvent(IRModelEventType.IRMODEL_UPDATED, (source != null) ? source : this, destination, changes);
+        }
+    }
+
+    /**
+     * Merge the given event into the pending event having the same type, source and destination
+     * and schedule the dispatch of pending events (next EDT cycle or after the coalescing window)
+     * @param type event type
+     * @param source event source
+     * @param destination destination listener (null means all)
+     * @param changes changed parts of the model
+     */
+    private void coalesceEvent(final IRModelEventType type, final Object source, final IRModelEventListener destination,
+                               final Set<IRModelChange> changes) {
+        final boolean schedule;
+        synchronized (pendingEvents) {
+            final PendingEvent key = new PendingEvent(type, source, destination);
+            final PendingEvent pending = pendingEvents.get(key);
+            if (pending != null) {
+                pending.changes.addAll(changes);
+                logger.debug("coalesceEvent: merged {} {}", type, changes);
+            } else {
+                key.changes.addAll(changes);
+                pendingEvents.put(key, key);
+            }
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        if (schedule) {
+            final int window = Preferences.getInstance().getPreferenceAsInt(Preferences.EVENT_COALESCING_WINDOW);
+            if (window <= 0) {
+                SwingUtils.invokeLaterEDT(flushTask);
+            } else {
+                final Timer timer = new Timer(window, new ActionListener() {
+                    @Override
+                    public void actionPerformed(final ActionEvent e) {
+                        flushTask.run();
+                    }
+                });
+                timer.setRepeats(false);
+                timer.start();
+            }
+        }
+    }
+
+    /**
+     * Dispatch pending events (merged change sets) to the event notifier
+     */
+    private void flushEvents() {
+        final List<PendingEvent> events;
+        synchronized (pendingEvents) {
+            events = new ArrayList<PendingEvent>(pendingEvents.values());
+            pendingEvents.clear();
+            flushScheduled = false;
+        }
+        for (PendingEvent event : events) {
+            getIRModelChangedEventNotifier().queueEvent(event.source,
+                    new IRModelEvent(event.type, null, getIRModel(), event.changes), event.destination);
+        }
+    }
+
+    /**
+     * Pending event (key: type, source and destination) with its merged change set
+     */
+    private static final class PendingEvent {
+
+        final IRModelEventType type;
+        final Object source;
+        final IRModelEventListener destination;
+        final EnumSet<IRModelChange> changes = EnumSet.noneOf(IRModelChange.class);
+
+        PendingEvent(final IRModelEventType type, final Object source, final IRModelEventListener destination) {
+            this.type = type;
+            this.source = source;
+            this.destination = destination;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * type.hashCode() + System.identityHashCode(source)) + System.identityHashCode(destination);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof PendingEvent)) {
+                return false;
             }
-            getIRModelChangedEventNotifier().queueEvent((source != null) ? source : this,
-                    new IRModelEvent(IRModelEventType.IRMODEL_UPDATED, null, getIRModel()), destination);
+            final PendingEvent other = (PendingEvent) obj;
+            return (type == other.type) && (source == other.source) && (destination == other.destination);
         }
     }
 
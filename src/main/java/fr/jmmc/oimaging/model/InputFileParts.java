@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Split of an exported input file into its data part (OI data and images) and its IMAGE-OI INPUT PARAM HDU:
+ * jobs of a parameter sweep share the same data part and only differ by their input param HDU.
+ * Appending the input param HDU to the data part gives a valid input file.
+ * @author bourgesl
+ */
+public final class InputFileParts {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(InputFileParts.class);
+    /** copy buffer size */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /* members */
+    /** input file */
+    private final File file;
+    /** position of the input param HDU (-1 if not found) */
+    private final long paramStart;
+    /** end of the input param HDU (-1 if not found) */
+    private final long paramEnd;
+
+    /**
+     * Locate the input param HDU in the given input file
+     * @param file input file
+     * @return input file parts
+     * @throws IOException if any I/O error occurs
+     */
+    public static InputFileParts index(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            final ByteBuffer block = ByteBuffer.allocate(OIFitsExportCache.FITS_BLOCK);
+
+            long pos = 0L;
+            while (pos < size) {
+                final List<String> cards = new ArrayList<String>(36);
+                final long dataPos = OIFitsExportCache.readHeader(channel, pos, block, cards);
+                if (dataPos < 0L) {
+                    break;
+                }
+                final long end = dataPos + OIFitsExportCache.getPaddedSize(OIFitsExportCache.getDataSize(cards));
+
+                // only an extension (not the primary HDU):
+                if ((pos != 0L) && OIFitsExportCache.EXTNAME_INPUT_PARAM.equals(OIFitsExportCache.getCardValue(cards, "EXTNAME"))) {
+                    return new InputFileParts(file, pos, Math.min(end, size));
+                }
+                pos = end;
+            }
+        } finally {
+            raf.close();
+        }
+        logger.debug("index: {} HDU not found in {}", OIFitsExportCache.EXTNAME_INPUT_PARAM, file);
+        return new InputFileParts(file, -1L, -1L);
+    }
+
+    private InputFileParts(final File file, final long paramStart, final long paramEnd) {
+        this.file = file;
+        this.paramStart = paramStart;
+        this.paramEnd = paramEnd;
+    }
+
+    /**
+     * @return input file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return true if the input param HDU was found
+     */
+    public boolean hasInputParam() {
+        return paramStart >= 0L;
+    }
+
+    /**
+     * @return size of the data part in bytes
+     */
+    public long getDataSize() {
+        return file.length() - ((hasInputParam()) ? (paramEnd - paramStart) : 0L);
+    }
+
+    /**
+     * Compute the SHA-256 hash of the data part (content address shared by jobs that only differ by their input params)
+     * @return hexadecimal SHA-256 hash
+     * @throws IOException if any I/O error occurs
+     */
+    public String computeDataHash() throws IOException {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 not supported", nsae);
+        }
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+            if (hasInputParam()) {
+                digest(channel, 0L, paramStart, buffer, md);
+                digest(channel, paramEnd, channel.size(), buffer, md);
+            } else {
+                digest(channel, 0L, channel.size(), buffer, md);
+            }
+        } finally {
+            raf.close();
+        }
+        final byte[] digest = md.digest();
+        final StringBuilder sb = new StringBuilder(2 * digest.length);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the data part (input file without its input param HDU) into the given file
+     * @param dest file to write
+     * @throws IOException if any I/O error occurs
+     */
+    public void writeData(final File dest) throws IOException {
+        final RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            final RandomAccessFile out = new RandomAccessFile(dest, "rw");
+            try {
+                final FileChannel src = in.getChannel();
+                final FileChannel channel = out.getChannel();
+                channel.truncate(0L);
+
+                if (hasInputParam()) {
+                    transfer(src, 0L, paramStart, channel);
+                    transfer(src, paramEnd, src.size(), channel);
+                } else {
+                    transfer(src, 0L, src.size(), channel);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Write the input param HDU (header and data) into the given file
+     * @param dest file to write
+     * @throws IOException if any I/O error occurs
+     * @throws IllegalStateException if the input param HDU was not found
+     */
+    public void writeInputParam(final File dest) throws IOException {
+        if (!hasInputParam()) {
+            throw new IllegalStateException("No " + OIFitsExportCache.EXTNAME_INPUT_PARAM + " HDU in " + file);
+        }
+        final RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            final RandomAccessFile out = new RandomAccessFile(dest, "rw");
+            try {
+                final FileChannel channel = out.getChannel();
+                channel.truncate(0L);
+                transfer(in.getChannel(), paramStart, paramEnd, channel);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void digest(final FileChannel channel, final long start, final long end,
+                               final ByteBuffer buffer, final MessageDigest md) throws IOException {
+        long pos = start;
+        while (pos < end) {
+            buffer.clear();
+            if (end - pos < buffer.capacity()) {
+                buffer.limit((int) (end - pos));
+            }
+            final int n = channel.read(buffer, pos);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at position " + pos);
+            }
+            md.update(buffer.array(), 0, n);
+            pos += n;
+        }
+    }
+
+    private static void transfer(final FileChannel src, final long start, final long end, final FileChannel dest) throws IOException {
+        long pos = start;
+        while (pos < end) {
+            final long n = src.transferTo(pos, end - pos, dest);
+            if (n <= 0L) {
+                throw new IOException("Unable to copy the input file at position " + pos);
+            }
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.jmcs.util.FileUtils;
+import fr.jmmc.oiexplorer.core.util.FitsImageUtils;
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.nom.tam.fits.FitsException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Result file opened for display without a full load: the OI tables and parameters are loaded eagerly
+ * (OIFitsLoader on a copy without image data) while image planes are read from the memory-mapped file
+ * and prepared (negative values, padding, orientation) when first displayed.
+ * @author bourgesl
+ */
+public final class MappedResult {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(MappedResult.class);
+
+    /* members */
+    /** result file */
+    private final File file;
+    /** OI tables and parameters (no image) */
+    private final OIFitsFile oifitsFile;
+    /** mapped image planes */
+    private final FitsPlaneReader reader;
+    /** image HDUs (first plane materialized) */
+    private final List<FitsImageHDU> imageHDUs;
+    /** lazy plane lists per image HDU */
+    private final Map<FitsImageHDU, PlaneList> planes = new IdentityHashMap<FitsImageHDU, PlaneList>();
+
+    /**
+     * Open the given result file
+     * @param file result OIFits file
+     * @return opened result
+     * @throws IOException if any I/O error occurs
+     * @throws FitsException if any FITS error occurs
+     */
+    public static MappedResult open(final File file) throws IOException, FitsException {
+        final long start = System.nanoTime();
+
+        final File tablesFile = FileUtils.getTempFile(file.getName() + ".tables.fits");
+        final OIFitsFile oifitsFile;
+        try {
+            FitsPlaneReader.writeWithoutImages(file, tablesFile);
+            oifitsFile = OIFitsLoader.loadOIFits(tablesFile.getAbsolutePath());
+            oifitsFile.setAbsoluteFilePath(file.getAbsolutePath());
+        } finally {
+            tablesFile.delete();
+        }
+        final MappedResult result = new MappedResult(file, oifitsFile, new FitsPlaneReader(file));
+
+        logger.info("open: {} ({} image HDUs) in {} ms", file, result.imageHDUs.size(), 1e-6d * (System.nanoTime() - start));
+        return result;
+    }
+
+    private MappedResult(final File file, final OIFitsFile oifitsFile, final FitsPlaneReader reader) throws IOException {
+        this.file = file;
+        this.oifitsFile = oifitsFile;
+        this.reader = reader;
+
+        final List<FitsImageHDU> hdus = new ArrayList<FitsImageHDU>(reader.getImageCount());
+        for (int i = 0, len = reader.getImageCount(); i < len; i++) {
+            final FitsImageHDU hdu = new FitsImageHDU();
+            hdu.setHduName(reader.getImageName(i));
+
+            final PlaneList list = new PlaneList(hdu, i, reader.getPlaneCount(i));
+            // first plane (combo and default display):
+            hdu.getFitsImages().add(list.get(0));
+
+            planes.put(hdu, list);
+            hdus.add(hdu);
+        }
+        this.imageHDUs = Collections.unmodifiableList(hdus);
+    }
+
+    /**
+     * @return result file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return OI tables and parameters (no image)
+     */
+    public OIFitsFile getOIFitsFile() {
+        return oifitsFile;
+    }
+
+    /**
+     * @return image HDUs (only their first plane is materialized, see getPlanes)
+     */
+    public List<FitsImageHDU> getFitsImageHDUs() {
+        return imageHDUs;
+    }
+
+    /**
+     * Return all planes of the given image HDU, materialized on access
+     * @param hdu image HDU of this result
+     * @return planes or null if the given HDU does not belong to this result
+     */
+    public List<FitsImage> getPlanes(final FitsImageHDU hdu) {
+        return planes.get(hdu);
+    }
+
+    /**
+     * Materialize all planes of the given image HDU (complete HDU export)
+     * @param hdu image HDU of this result
+     */
+    public void materializeAll(final FitsImageHDU hdu) {
+        final PlaneList list = planes.get(hdu);
+        if ((list != null) && (hdu.getFitsImages().size() != list.size())) {
+            final List<FitsImage> images = new ArrayList<FitsImage>(list);
+            hdu.getFitsImages().clear();
+            hdu.getFitsImages().addAll(images);
+        }
+    }
+
+    /**
+     * Release the mapped data units
+     */
+    public void close() {
+        reader.close();
+    }
+
+    /**
+     * Planes of one image HDU: read and prepared on first access, kept softly reachable
+     */
+    private final class PlaneList extends AbstractList<FitsImage> {
+
+        /** parent HDU */
+        private final FitsImageHDU hdu;
+        /** image HDU index in the reader */
+        private final int image;
+        /** materialized planes */
+        private final List<SoftReference<FitsImage>> cache;
+
+        PlaneList(final FitsImageHDU hdu, final int image, final int nbPlanes) {
+            this.hdu = hdu;
+            this.image = image;
+            this.cache = new ArrayList<SoftReference<FitsImage>>(Collections.<SoftReference<FitsImage>>nCopies(nbPlanes, null));
+        }
+
+        @Override
+        public FitsImage get(final int index) {
+            final SoftReference<FitsImage> ref = cache.get(index);
+            FitsImage fitsImage = (ref != null) ? ref.get() : null;
+            if (fitsImage == null) {
+                try {
+                    fitsImage = reader.createFitsImage(image, index);
+                } catch (IOException ioe) {
+                    throw new IllegalStateException("Unable to read the image plane " + (index + 1) + " from " + file, ioe);
+                }
+                FitsImageUtils.prepareImage(fitsImage);
+                fitsImage.setFitsImageHDU(hdu);
+                cache.set(index, new SoftReference<FitsImage>(fitsImage));
+            }
+            return fitsImage;
+        }
+
+        @Override
+        public int size() {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oitools.image.ImageOiInputParam;
+import fr.jmmc.oitools.meta.KeywordMeta;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsWriter;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.HeaderCard;
+import fr.nom.tam.fits.HeaderCardException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental export of the IRModel input file:
+ * the complete OIFits file is only written (OIFitsWriter) when the OI data or the selected image change (data revision).
+ * Next exports copy the cached export at the file channel level and only re-emit the IMAGE-OI INPUT PARAM header
+ * with the current keyword values.
+ * @author bourgesl
+ */
+public final class OIFitsExportCache {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(OIFitsExportCache.class);
+    /** FITS block size */
+    static final int FITS_BLOCK = 2880;
+    /** FITS card size */
+    private static final int FITS_CARD = 80;
+    /** maximum length of a string value in a single card (quotes excluded) */
+    private static final int MAX_STRING_LENGTH = 68;
+    /** input param extension name */
+    static final String EXTNAME_INPUT_PARAM = "IMAGE-OI INPUT PARAM";
+    /** FITS header encoding */
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    /** structural keywords never taken from the input parameters */
+    private static final Set<String> RESERVED_KEYWORDS = new HashSet<String>(Arrays.asList(
+            "XTENSION", "BITPIX", "NAXIS", "NAXIS1", "NAXIS2", "PCOUNT", "GCOUNT", "TFIELDS", "EXTNAME", "EXTVER", "END"));
+
+    /* members */
+    /** data revision of the cached export */
+    private int revision = -1;
+    /** cached complete export */
+    private File baseFile = null;
+    /** header cards of the input param HDU in the cached export (null if not found) */
+    private List<String> baseCards = null;
+    /** input param keyword names when the cached export was written */
+    private Set<String> baseKeywords = null;
+    /** position of the input param HDU in the cached export */
+    private long paramHeaderStart = 0L;
+    /** position of the input param data (end of its header) in the cached export */
+    private long paramDataStart = 0L;
+
+    /**
+     * Discard the cached export
+     */
+    public void reset() {
+        this.revision = -1;
+        this.baseFile = null;
+        this.baseCards = null;
+        this.baseKeywords = null;
+    }
+
+    /**
+     * Export the given OIFits file into the given file
+     * @param oifitsFile OIFits file to export
+     * @param dataRevision revision of the OI data and selected image of the OIFits file
+     * @param file file to write
+     * @throws FitsException if any FITS error occurs
+     * @throws IOException if any I/O error occurs
+     */
+    public void export(final OIFitsFile oifitsFile, final int dataRevision, final File file) throws FitsException, IOException {
+        final ImageOiInputParam params = oifitsFile.getImageOiData().getInputParam();
+
+        if ((dataRevision == revision) && (baseCards != null) && (baseFile != null) && baseFile.exists()) {
+            final long start = System.nanoTime();
+
+            if (splice(params, file)) {
+                logger.info("export: input params updated in {} ms ({})", 1e-6d * (System.nanoTime() - start), file);
+                return;
+            }
+            logger.info("export: input params do not fit in single header cards, writing the complete file");
+        }
+        reset();
+
+        // store original filename
+        final String originalAbsoluteFilePath = oifitsFile.getAbsoluteFilePath();
+        try {
+            OIFitsWriter.writeOIFits(file.getAbsolutePath(), oifitsFile);
+        } finally {
+            //restore filename
+            oifitsFile.setAbsoluteFilePath(originalAbsoluteFilePath);
+        }
+
+        index(file, params);
+
+        this.revision = dataRevision;
+        this.baseFile = file;
+    }
+
+    /**
+     * Locate the input param HDU in the given (complete) export
+     * @param file exported file
+     * @param params input parameters
+     * @throws IOException if any I/O error occurs
+     */
+    private void index(final File file, final ImageOiInputParam params) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            final ByteBuffer block = ByteBuffer.allocate(FITS_BLOCK);
+
+            long pos = 0L;
+            while (pos < size) {
+                final List<String> cards = new ArrayList<String>(36);
+                final long dataPos = readHeader(channel, pos, block, cards);
+                if (dataPos < 0L) {
+                    break;
+                }
+                if (EXTNAME_INPUT_PARAM.equals(getCardValue(cards, "EXTNAME"))) {
+                    this.baseCards = cards;
+                    this.baseKeywords = new HashSet<String>(params.getKeywordsDesc().keySet());
+                    this.paramHeaderStart = pos;
+                    this.paramDataStart = dataPos;
+                    return;
+                }
+                pos = dataPos + getPaddedSize(getDataSize(cards));
+            }
+        } finally {
+            raf.close();
+        }
+        logger.warn("index: {} HDU not found in {}", EXTNAME_INPUT_PARAM, file);
+    }
+
+    /**
+     * Copy the cached export into the given file and replace the input param header by the current values
+     * @param params input parameters
+     * @param file file to write
+     * @return false if a keyword does not fit in a single header card (long string value): nothing written
+     * @throws IOException if any I/O error occurs
+     */
+    private boolean splice(final ImageOiInputParam params, final File file) throws IOException {
+        final Map<String, KeywordMeta> descs = params.getKeywordsDesc();
+
+        final List<String> cards = new ArrayList<String>(baseCards.size() + 8);
+        final Set<String> done = new HashSet<String>();
+
+        for (String card : baseCards) {
+            final String key = card.substring(0, 8).trim();
+            if ("END".equals(key)) {
+                break;
+            }
+            if (!RESERVED_KEYWORDS.contains(key) && (baseKeywords.contains(key) || descs.containsKey(key))) {
+                // replaced by its current value (or removed):
+                if (done.add(key) && !addCard(cards, params, descs.get(key))) {
+                    return false;
+                }
+            } else {
+                cards.add(card);
+            }
+        }
+        // new keywords:
+        for (KeywordMeta meta : descs.values()) {
+            if (!RESERVED_KEYWORDS.contains(meta.getName()) && !done.contains(meta.getName())
+                    && !addCard(cards, params, meta)) {
+                return false;
+            }
+        }
+        cards.add(StringUtils.rightPad("END", FITS_CARD));
+
+        final StringBuilder sb = new StringBuilder(getPaddedSize(cards.size() * FITS_CARD));
+        for (String card : cards) {
+            sb.append(card);
+        }
+        final ByteBuffer header = ByteBuffer.wrap(StringUtils.rightPad(sb.toString(), getPaddedSize(sb.length())).getBytes(ASCII));
+
+        final RandomAccessFile in = new RandomAccessFile(baseFile, "r");
+        try {
+            final RandomAccessFile out = new RandomAccessFile(file, "rw");
+            try {
+                final FileChannel src = in.getChannel();
+                final FileChannel dest = out.getChannel();
+                dest.truncate(0L);
+
+                transfer(src, 0L, paramHeaderStart, dest);
+                while (header.hasRemaining()) {
+                    dest.write(header);
+                }
+                transfer(src, paramDataStart, src.size() - paramDataStart, dest);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        return true;
+    }
+
+    /**
+     * Add the header card of the given keyword with its current value (if any)
+     * @return false if the keyword does not fit in a single card (long string values need CONTINUE cards)
+     */
+    private static boolean addCard(final List<String> cards, final ImageOiInputParam params, final KeywordMeta meta) {
+        if (meta == null) {
+            return true;
+        }
+        final String name = meta.getName();
+        final Object value = params.getKeywordValue(name);
+        if (value == null) {
+            return true;
+        }
+        final HeaderCard card;
+        try {
+            if (value instanceof Double) {
+                card = new HeaderCard(name, ((Double) value).doubleValue(), meta.getDescription());
+            } else if (value instanceof Integer) {
+                card = new HeaderCard(name, ((Integer) value).intValue(), meta.getDescription());
+            } else if (value instanceof Boolean) {
+                card = new HeaderCard(name, ((Boolean) value).booleanValue(), meta.getDescription());
+            } else {
+                final String str = value.toString();
+                // quoted value (quotes doubled) must fit in the card (no CONTINUE support):
+                if (str.replace("'", "''").length() > MAX_STRING_LENGTH) {
+                    logger.debug("addCard: {} value too long for a single card", name);
+                    return false;
+                }
+                card = new HeaderCard(name, str, meta.getDescription());
+            }
+        } catch (HeaderCardException hce) {
+            logger.debug("addCard: invalid card for {}", name, hce);
+            return false;
+        }
+        final String text = card.toString();
+        if (text.length() > FITS_CARD) {
+            // only the comment may be truncated:
+            final int slash = text.lastIndexOf(" / ");
+            if ((slash < 0) || (slash >= FITS_CARD)) {
+                logger.debug("addCard: {} value too long for a single card", name);
+                return false;
+            }
+        }
+        cards.add(StringUtils.rightPad(text, FITS_CARD).substring(0, FITS_CARD));
+        return true;
+    }
+
+    private static void transfer(final FileChannel src, final long position, final long count, final FileChannel dest) throws IOException {
+        long pos = position;
+        final long end = position + count;
+        while (pos < end) {
+            final long n = src.transferTo(pos, end - pos, dest);
+            if (n <= 0L) {
+                throw new IOException("Unable to copy the cached export at position " + pos);
+            }
+            pos += n;
+        }
+    }
+
+    /**
+     * Read the header starting at the given position
+     * @return position of the data (after the header blocks) or -1 if the file is truncated
+     */
+    static long readHeader(final FileChannel channel, final long start, final ByteBuffer block, final List<String> cards) throws IOException {
+        long pos = start;
+        while (true) {
+            block.clear();
+            while (block.hasRemaining()) {
+                if (channel.read(block, pos + block.position()) < 0) {
+                    return -1L;
+                }
+            }
+            pos += FITS_BLOCK;
+
+            final String text = new String(block.array(), ASCII);
+            for (int i = 0; i < FITS_BLOCK; i += FITS_CARD) {
+                final String card = text.substring(i, i + FITS_CARD);
+                cards.add(card);
+                if ("END".equals(card.substring(0, 8).trim())) {
+                    return pos;
+                }
+            }
+        }
+    }
+
+    static String getCardValue(final List<String> cards, final String key) {
+        for (String card : cards) {
+            if ((card.charAt(8) == '=') && key.equals(card.substring(0, 8).trim())) {
+                final String value = card.substring(10).trim();
+                if (value.startsWith("'")) {
+                    final int end = value.indexOf('\'', 1);
+                    return value.substring(1, (end > 0) ? end : value.length()).trim();
+                }
+                final int slash = value.indexOf('/');
+                return ((slash >= 0) ? value.substring(0, slash) : value).trim();
+            }
+        }
+        return null;
+    }
+
+    static long getCardLong(final List<String> cards, final String key, final long def) {
+        final String value = getCardValue(cards, key);
+        return (value != null) ? Long.parseLong(value) : def;
+    }
+
+    static long getDataSize(final List<String> cards) {
+        final int naxis = (int) getCardLong(cards, "NAXIS", 0L);
+        if (naxis == 0) {
+            return 0L;
+        }
+        long size = 1L;
+        for (int i = 1; i <= naxis; i++) {
+            size *= getCardLong(cards, "NAXIS" + i, 0L);
+        }
+        return (Math.abs(getCardLong(cards, "BITPIX", 8L)) / 8L)
+                * getCardLong(cards, "GCOUNT", 1L) * (getCardLong(cards, "PCOUNT", 0L) + size);
+    }
+
+    static long getPaddedSize(final long size) {
+        return ((size + FITS_BLOCK - 1L) / FITS_BLOCK) * FITS_BLOCK;
+    }
+
+    private static int getPaddedSize(final int size) {
+        return ((size + FITS_BLOCK - 1) / FITS_BLOCK) * FITS_BLOCK;
+    }
+}
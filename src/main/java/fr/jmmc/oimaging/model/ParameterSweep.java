@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oitools.image.ImageOiConstants;
+import fr.jmmc.oitools.image.ImageOiInputParam;
+import fr.jmmc.oitools.meta.KeywordMeta;
+import fr.jmmc.oitools.meta.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parameter sweep definition: one axis per input keyword (RGL_WGT, RGL_NAME, MAXITER or any
+ * software-specific keyword) giving either a list of values or a numeric range.
+ *
+ * Syntax (one axis per line, '#' starts a comment):
+ * <pre>
+ * KEYWORD = value1, value2, value3
+ * KEYWORD = start:end:count       (linear range)
+ * KEYWORD = start:end:count:log   (logarithmic range)
+ * </pre>
+ * The sweep expands into the cartesian product of all axes.
+ * @author bourgesl
+ */
+public final class ParameterSweep {
+
+    /** maximum number of points (sanity check) */
+    public static final int MAX_POINTS = 1000;
+
+    /* members */
+    /** axes: keyword name to values (string representation) */
+    private final Map<String, List<String>> axes = new LinkedHashMap<String, List<String>>();
+
+    /**
+     * Parse the given sweep definition and check keywords against the given input parameters
+     * @param definition sweep definition
+     * @param params input parameters (keyword descriptors)
+     * @return new ParameterSweep instance
+     * @throws IllegalArgumentException if the definition is invalid
+     */
+    public static ParameterSweep parse(final String definition, final ImageOiInputParam params) throws IllegalArgumentException {
+        return parse(definition, params, null);
+    }
+
+    /**
+     * Parse the given sweep definition and check keywords and values against the given input parameters
+     * (keyword type and accepted values) and the given supported RGL_NAME values
+     * @param definition sweep definition
+     * @param params input parameters (keyword descriptors)
+     * @param rglNames supported RGL_NAME values (selected software) or null to skip this check
+     * @return new ParameterSweep instance
+     * @throws IllegalArgumentException if the definition is invalid
+     */
+    public static ParameterSweep parse(final String definition, final ImageOiInputParam params,
+                                       final String[] rglNames) throws IllegalArgumentException {
+        final ParameterSweep sweep = new ParameterSweep();
+
+        if (definition != null) {
+            for (String line : definition.split("\n")) {
+                final int pos = line.indexOf('#');
+                if (pos != -1) {
+                    line = line.substring(0, pos);
+                }
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final int eq = line.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Invalid line (KEYWORD = values expected): " + line);
+                }
+                final String name = line.substring(0, eq).trim().toUpperCase();
+                final String values = line.substring(eq + 1).trim();
+
+                final KeywordMeta meta = params.getKeywordsDesc(name);
+                if (meta == null) {
+                    throw new IllegalArgumentException("Unsupported keyword: " + name);
+                }
+                if (sweep.axes.containsKey(name)) {
+                    throw new IllegalArgumentException("Duplicated keyword: " + name);
+                }
+                final List<String> list = parseValues(name, meta.getDataType(), values);
+
+                final String[] accepted = ImageOiConstants.KEYWORD_RGL_NAME.equals(name) ? rglNames : meta.getStringAcceptedValues();
+                for (String value : list) {
+                    checkValue(name, meta.getDataType(), accepted, value);
+                }
+                sweep.axes.put(name, list);
+            }
+        }
+        if (sweep.axes.isEmpty()) {
+            throw new IllegalArgumentException("Empty sweep definition !");
+        }
+        if (sweep.getPointCount() > MAX_POINTS) {
+            throw new IllegalArgumentException("Too many points in the sweep: " + sweep.getPointCount() + " > " + MAX_POINTS);
+        }
+        return sweep;
+    }
+
+    private static List<String> parseValues(final String name, final Types type, final String values) {
+        final List<String> list = new ArrayList<String>();
+
+        if (values.indexOf(':') != -1) {
+            // range:
+            if (type != Types.TYPE_DBL && type != Types.TYPE_INT) {
+                throw new IllegalArgumentException("Range is only supported for numerical keyword: " + name);
+            }
+            final String[] parts = values.split(":");
+            if (parts.length < 3 || parts.length > 4) {
+                throw new IllegalArgumentException("Invalid range (start:end:count[:log] expected) for " + name + ": " + values);
+            }
+            final boolean log = (parts.length == 4);
+            if (log && !"log".equalsIgnoreCase(parts[3].trim())) {
+                throw new IllegalArgumentException("Invalid range scale (log expected) for " + name + ": " + parts[3]);
+            }
+            final double start, end;
+            final int count;
+            try {
+                start = Double.parseDouble(parts[0].trim());
+                end = Double.parseDouble(parts[1].trim());
+                count = Integer.parseInt(parts[2].trim());
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid range for " + name + ": " + values, nfe);
+            }
+            if (count < 1) {
+                throw new IllegalArgumentException("Invalid range count for " + name + ": " + count);
+            }
+            if (log && (start <= 0.0 || end <= 0.0)) {
+                throw new IllegalArgumentException("Invalid log range (positive bounds expected) for " + name + ": " + values);
+            }
+            for (int i = 0; i < count; i++) {
+                final double t = (count == 1) ? 0.0 : ((double) i) / (count - 1);
+                final double value = (log)
+                        ? Math.exp(Math.log(start) + t * (Math.log(end) - Math.log(start)))
+                        : start + t * (end - start);
+
+                final String str = (type == Types.TYPE_INT) ? Long.toString(Math.round(value)) : Double.toString(value);
+                // skip duplicates (integer rounding):
+                if (!list.contains(str)) {
+                    list.add(str);
+                }
+            }
+        } else {
+            // list:
+            for (String value : values.split(",")) {
+                value = value.trim();
+                if (!value.isEmpty()) {
+                    list.add(value);
+                }
+            }
+        }
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("No value given for " + name);
+        }
+        return list;
+    }
+
+    /**
+     * Check the given value against the keyword type and accepted values
+     * @param name keyword name
+     * @param type keyword type
+     * @param accepted accepted values or null if any
+     * @param value value to check
+     * @throws IllegalArgumentException if the value is invalid
+     */
+    private static void checkValue(final String name, final Types type, final String[] accepted, final String value) {
+        try {
+            switch (type) {
+                case TYPE_INT:
+                    Integer.parseInt(value);
+                    break;
+                case TYPE_DBL:
+                    Double.parseDouble(value);
+                    break;
+                case TYPE_LOGICAL:
+                    if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)
+                            && !"T".equalsIgnoreCase(value) && !"F".equalsIgnoreCase(value)) {
+                        throw new IllegalArgumentException("Invalid boolean value for " + name + ": " + value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid " + ((type == Types.TYPE_INT) ? "integer" : "numerical")
+                    + " value for " + name + ": " + value, nfe);
+        }
+        if ((accepted != null) && (accepted.length != 0) && !Arrays.asList(accepted).contains(value)) {
+            throw new IllegalArgumentException("Unsupported value for " + name + ": " + value
+                    + " (expected one of " + Arrays.toString(accepted) + ")");
+        }
+    }
+
+    /**
+     * Private constructor
+     */
+    private ParameterSweep() {
+        super();
+    }
+
+    /**
+     * Return the swept keyword names
+     * @return keyword names
+     */
+    public List<String> getKeywordNames() {
+        return new ArrayList<String>(axes.keySet());
+    }
+
+    /**
+     * Return the values of the given keyword
+     * @param name keyword name
+     * @return values or null if not swept
+     */
+    public List<String> getValues(final String name) {
+        final List<String> values = axes.get(name);
+        return (values != null) ? Collections.unmodifiableList(values) : null;
+    }
+
+    /**
+     * Return the number of points in the grid
+     * @return number of points
+     */
+    public int getPointCount() {
+        long count = 1L;
+        for (List<String> values : axes.values()) {
+            count *= values.size();
+            if (count > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return (int) count;
+    }
+
+    /**
+     * Expand the cartesian grid (last keyword varying fastest)
+     * @return list of points (keyword name to value)
+     */
+    public List<Map<String, String>> expand() {
+        final List<Map<String, String>> points = new ArrayList<Map<String, String>>(getPointCount());
+        points.add(new LinkedHashMap<String, String>());
+
+        for (Map.Entry<String, List<String>> axis : axes.entrySet()) {
+            final List<Map<String, String>> next = new ArrayList<Map<String, String>>(points.size() * axis.getValue().size());
+
+            for (Map<String, String> point : points) {
+                for (String value : axis.getValue()) {
+                    final Map<String, String> p = new LinkedHashMap<String, String>(point);
+                    p.put(axis.getKey(), value);
+                    next.add(p);
+                }
+            }
+            points.clear();
+            points.addAll(next);
+        }
+        return points;
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterSweep" + axes;
+    }
+}
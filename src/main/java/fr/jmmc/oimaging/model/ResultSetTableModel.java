@@ -32,6 +32,16 @@ public class ResultSetTableModel extends AbstractTableModel {
         fireTableDataChanged();
     }
 
+    /**
+     * Insert the given result (incremental update)
+     * @param rowIndex row index
+     * @param result result to insert
+     */
+    public void addResult(final int rowIndex, final ServiceResult result) {
+        this.results.add(rowIndex, result);
+        fireTableRowsInserted(rowIndex, rowIndex);
+    }
+
     public ServiceResult getServiceResult(final int rowIndex) {
         return this.results.get(rowIndex);
     }
@@ -101,28 +111,19 @@ public class ResultSetTableModel extends AbstractTableModel {
                 return result.getInputFile().getName();
 
             case TARGET:
-                if (result.getOifitsFile() != null) {
-                    return result.getOifitsFile().getImageOiData().getInputParam().getTarget();
-                }
-                break;
+                return result.getTarget();
 
             case TIMESTAMP_RECONSTRUCTION:
                 return result.getEndTime();
 
             case WAVELENGTH:
-                if (result.getOifitsFile() != null) {
-                    return result.getOifitsFile().getWavelengthRange();
-                }
-                break;
+                return result.getWavelengthRange();
 
             case ALGORITHM:
                 return result.getService().getProgram();
 
             case RGL_WGT:
-                if (result.getOifitsFile() != null) {
-                    return result.getOifitsFile().getImageOiData().getInputParam().getRglWgt();
-                }
-                break;
+                return result.getRglWgt();
 
             case SUCCESS:
                 return result.isValid();
@@ -136,6 +137,5 @@ public class ResultSetTableModel extends AbstractTableModel {
             default:
                 return null;
         }
-        return null;
     }
 }
@@ -0,0 +1,432 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.jmcs.data.MimeType;
+import fr.jmmc.jmcs.util.FileUtils;
+import fr.jmmc.oimaging.services.Service;
+import fr.jmmc.oimaging.services.ServiceList;
+import fr.jmmc.oimaging.services.ServiceResult;
+import fr.jmmc.oitools.image.ImageOiInputParam;
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.range.Range;
+import fr.nom.tam.fits.FitsException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Session archive (zip file) storing the input OIFits file, the files of every result (OIFits, log, additional results)
+ * and an index (properties) giving the session settings and the result metadata (status, rating, comments, timing,
+ * target, wavelength range, RGL_WGT and image range).
+ * On load, only the index and the input file are extracted: result files are extracted from the archive
+ * when first accessed (displayed) then loaded lazily; the result table only needs the index.
+ * @author bourgesl
+ */
+public final class SessionArchive {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(SessionArchive.class);
+    /** archive file extension */
+    public static final String EXTENSION = "zip";
+    /** session archive MimeType (file chooser filter and current directory) */
+    public static final MimeType MIME_TYPE = new MimeType(SessionArchive.class, "OIMAGING_SESSION",
+            "application/x-oimaging-session+zip", "OImaging session", EXTENSION);
+    /** index entry */
+    private static final String ENTRY_INDEX = "session.properties";
+    /** input OIFits entry */
+    private static final String ENTRY_INPUT = "input.fits";
+    /** result entry prefix */
+    private static final String ENTRY_RESULTS = "results/";
+    /** archive format version */
+    private static final String VERSION = "1";
+    /** copy buffer size */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Forbidden constructor
+     */
+    private SessionArchive() {
+        super();
+    }
+
+    /**
+     * Save the given model into the given archive
+     * @param file archive file to write
+     * @param irModel model to save
+     * @throws IOException if any I/O error occurs
+     */
+    public static void save(final File file, final IRModel irModel) throws IOException {
+        final Properties index = new Properties();
+        index.setProperty("version", VERSION);
+
+        if (irModel.getSelectedService() != null) {
+            index.setProperty("service", irModel.getSelectedService().getName());
+        }
+        if (irModel.getCliOptions() != null) {
+            index.setProperty("cliOptions", irModel.getCliOptions());
+        }
+
+        // extract result files not accessed yet (the archive may be the loaded one):
+        for (ServiceResult result : irModel.getResultSets()) {
+            result.getOifitsResultFile();
+            result.getExecutionLogResultFile();
+            result.getAdditionalResultFiles();
+        }
+
+        final ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        try {
+            // input OIFits (data, selected image and input parameters):
+            final File inputFile;
+            try {
+                inputFile = irModel.prepareTempFile();
+            } catch (FitsException fe) {
+                throw new IOException("Unable to export the input OIFits file", fe);
+            }
+            addEntry(zos, ENTRY_INPUT, inputFile);
+            index.setProperty("input", ENTRY_INPUT);
+
+            final List<ServiceResult> results = irModel.getResultSets();
+            index.setProperty("result.count", Integer.toString(results.size()));
+
+            for (int i = 0, len = results.size(); i < len; i++) {
+                final ServiceResult result = results.get(i);
+                final String prefix = "result." + i + '.';
+                final String path = ENTRY_RESULTS + i;
+
+                setProperty(index, prefix + "input", result.getInputFile().getName());
+                if (result.getService() != null) {
+                    setProperty(index, prefix + "service", result.getService().getName());
+                }
+                if (addEntry(zos, path + ".output.fits", result.getOifitsResultFile())) {
+                    setProperty(index, prefix + "output", path + ".output.fits");
+                }
+                if (addEntry(zos, path + ".log.txt", result.getExecutionLogResultFile())) {
+                    setProperty(index, prefix + "log", path + ".log.txt");
+                }
+                // additional results (intermediate images, convergence tables...):
+                int extra = 0;
+                for (Map.Entry<String, File> e : result.getAdditionalResultFiles().entrySet()) {
+                    final String ext = FileUtils.getExtension(e.getValue().getName());
+                    final String entry = path + ".extra." + extra + ((ext != null) ? ('.' + ext) : "");
+                    if (addEntry(zos, entry, e.getValue())) {
+                        setProperty(index, prefix + "extra." + extra + ".id", e.getKey());
+                        setProperty(index, prefix + "extra." + extra + ".entry", entry);
+                        extra++;
+                    }
+                }
+                setProperty(index, prefix + "extra.count", Integer.toString(extra));
+                setProperty(index, prefix + "valid", Boolean.toString(result.isValid()));
+                setProperty(index, prefix + "cancelled", Boolean.toString(result.isCancelled()));
+                setProperty(index, prefix + "error", result.getErrorMessage());
+                setProperty(index, prefix + "start", toString(result.getStartTime()));
+                setProperty(index, prefix + "end", toString(result.getEndTime()));
+                setProperty(index, prefix + "rating", Integer.toString(result.getRating()));
+                setProperty(index, prefix + "comments", result.getComments());
+                setProperty(index, prefix + "peakMemory", Long.toString(result.getPeakMemory()));
+
+                // resident metadata (result table):
+                if (result.hasMetadata()) {
+                    setProperty(index, prefix + "metadata", Boolean.TRUE.toString());
+                    setProperty(index, prefix + "target", result.getTarget());
+                    if (result.getWavelengthRange() != null) {
+                        setProperty(index, prefix + "waveMin", Double.toString(result.getWavelengthRange().getMin()));
+                        setProperty(index, prefix + "waveMax", Double.toString(result.getWavelengthRange().getMax()));
+                    }
+                    if (result.getRglWgt() != null) {
+                        setProperty(index, prefix + "rglWgt", result.getRglWgt().toString());
+                    }
+                }
+                if (!Double.isNaN(result.getImageMin())) {
+                    setProperty(index, prefix + "imageMin", Double.toString(result.getImageMin()));
+                    setProperty(index, prefix + "imageMax", Double.toString(result.getImageMax()));
+                }
+            }
+
+            // index at the end (complete):
+            zos.putNextEntry(new ZipEntry(ENTRY_INDEX));
+            index.store(zos, "OImaging session");
+            zos.closeEntry();
+        } finally {
+            zos.close();
+        }
+        logger.info("save: {} results saved in {}", irModel.getResultSets().size(), file);
+    }
+
+    /**
+     * Load the given archive into a new model: the input OIFits file is loaded
+     * but result files are extracted on first access (lazy loading)
+     * @param file archive file to read
+     * @param checker optional OIFits checker instance (may be null)
+     * @return new model
+     * @throws IOException if any I/O error occurs
+     */
+    public static IRModel load(final File file, final OIFitsChecker checker) throws IOException {
+        final File dir = FileUtils.getTempFile(FileUtils.getFileNameWithoutExtension(file.getName()) + "-session-" + System.currentTimeMillis());
+        if (!dir.mkdirs()) {
+            throw new IOException("Unable to create the session directory: " + dir);
+        }
+
+        final Properties index = new Properties();
+        final File inputFile;
+        // result files are extracted on first access:
+        final ArchiveFileSource fileSource = new ArchiveFileSource(file);
+
+        final ZipFile zip = new ZipFile(file);
+        try {
+            final ZipEntry indexEntry = zip.getEntry(ENTRY_INDEX);
+            if (indexEntry == null) {
+                throw new IOException("Invalid session archive (missing index): " + file);
+            }
+            final InputStream in = zip.getInputStream(indexEntry);
+            try {
+                index.load(in);
+            } finally {
+                in.close();
+            }
+
+            // extract only the input file (no parsing):
+            final ZipEntry inputEntry = zip.getEntry(index.getProperty("input", ENTRY_INPUT));
+            if (inputEntry != null) {
+                inputFile = getFile(dir, inputEntry.getName());
+                extractEntry(zip, inputEntry, inputFile);
+            } else {
+                inputFile = null;
+            }
+
+            // register result entries:
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+                final ZipEntry entry = e.nextElement();
+                if (!entry.isDirectory() && entry.getName().startsWith(ENTRY_RESULTS)) {
+                    fileSource.add(getFile(dir, entry.getName()), entry.getName());
+                }
+            }
+        } finally {
+            zip.close();
+        }
+
+        final IRModel irModel = new IRModel();
+
+        // input OIFits:
+        if (inputFile != null) {
+            final OIFitsFile oifitsFile;
+            try {
+                oifitsFile = OIFitsLoader.loadOIFits(OIFitsStandard.VERSION_1, checker, inputFile.getAbsolutePath());
+            } catch (FitsException fe) {
+                throw new IOException("Could not load the session input file: " + inputFile, fe);
+            }
+            // backup saved input parameters (reset by loadOifitsFile):
+            final Map<String, Object> params = getParams(oifitsFile.getImageOiData().getInputParam());
+
+            irModel.loadOifitsFile(oifitsFile);
+
+            final Service service = ServiceList.getAvailableService(index.getProperty("service"));
+            if (service != null) {
+                irModel.setSelectedService(service);
+            }
+            irModel.setCliOptions(index.getProperty("cliOptions"));
+
+            // restore input parameters:
+            final ImageOiInputParam inputParam = irModel.getImageOiData().getInputParam();
+            for (Map.Entry<String, Object> e : params.entrySet()) {
+                if (inputParam.getKeywordsDesc(e.getKey()) != null) {
+                    inputParam.setKeywordValue(e.getKey(), e.getValue());
+                }
+            }
+        }
+
+        // results (metadata only):
+        final int count;
+        try {
+            count = Integer.parseInt(index.getProperty("result.count", "0"));
+            final List<ServiceResult> results = irModel.getResultSets();
+
+            for (int i = 0; i < count; i++) {
+                final String prefix = "result." + i + '.';
+
+                final File output = getFile(dir, index.getProperty(prefix + "output", ENTRY_RESULTS + i + ".output.fits"));
+                final File log = getFile(dir, index.getProperty(prefix + "log", ENTRY_RESULTS + i + ".log.txt"));
+
+                final ServiceResult result = new ServiceResult(new File(dir, index.getProperty(prefix + "input", "result-" + i)), output, log);
+                result.setService(ServiceList.getAvailableService(index.getProperty(prefix + "service")));
+                result.setValid(Boolean.parseBoolean(index.getProperty(prefix + "valid")));
+                result.setCancelled(Boolean.parseBoolean(index.getProperty(prefix + "cancelled")));
+                result.setErrorMessage(index.getProperty(prefix + "error"));
+                result.setStartTime(toDate(index.getProperty(prefix + "start")));
+                result.setEndTime(toDate(index.getProperty(prefix + "end")));
+                result.setRating(Integer.parseInt(index.getProperty(prefix + "rating", "0")));
+                result.setComments(index.getProperty(prefix + "comments", ""));
+                result.setPeakMemory(Long.parseLong(index.getProperty(prefix + "peakMemory", "-1")));
+
+                // additional results (extracted on first access):
+                final int extra = Integer.parseInt(index.getProperty(prefix + "extra.count", "0"));
+                for (int j = 0; j < extra; j++) {
+                    final String id = index.getProperty(prefix + "extra." + j + ".id");
+                    final String entry = index.getProperty(prefix + "extra." + j + ".entry");
+                    if (id != null && entry != null) {
+                        result.addAdditionalResultFile(id, getFile(dir, entry));
+                    }
+                }
+
+                // resident metadata (result table) without extracting the result file:
+                if (Boolean.parseBoolean(index.getProperty(prefix + "metadata"))) {
+                    final String waveMin = index.getProperty(prefix + "waveMin");
+                    final String waveMax = index.getProperty(prefix + "waveMax");
+                    final String rglWgt = index.getProperty(prefix + "rglWgt");
+
+                    result.setMetadata(index.getProperty(prefix + "target"),
+                            (waveMin != null && waveMax != null) ? new Range(Double.parseDouble(waveMin), Double.parseDouble(waveMax)) : null,
+                            (rglWgt != null) ? Double.valueOf(rglWgt) : null);
+                }
+                final String imageMin = index.getProperty(prefix + "imageMin");
+                final String imageMax = index.getProperty(prefix + "imageMax");
+                if (imageMin != null && imageMax != null) {
+                    result.setImageRange(Double.parseDouble(imageMin), Double.parseDouble(imageMax));
+                }
+                result.setFileSource(fileSource);
+
+                results.add(result);
+            }
+        } catch (NumberFormatException nfe) {
+            // corrupted or edited index:
+            throw new IOException("Invalid session file (bad index value): " + file, nfe);
+        }
+        logger.info("load: {} results loaded from {}", count, file);
+
+        return irModel;
+    }
+
+    private static Map<String, Object> getParams(final ImageOiInputParam inputParam) {
+        final Map<String, Object> params = new LinkedHashMap<String, Object>();
+        for (String name : inputParam.getKeywordsDesc().keySet()) {
+            final Object value = inputParam.getKeywordValue(name);
+            if (value != null) {
+                params.put(name, value);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * @param dir session directory
+     * @param entry entry name
+     * @return file of the given entry in the session directory (missing entry: the file never exists)
+     */
+    private static File getFile(final File dir, final String entry) {
+        return new File(dir, entry.replace('/', '_'));
+    }
+
+    private static void setProperty(final Properties index, final String key, final String value) {
+        if (value != null) {
+            index.setProperty(key, value);
+        }
+    }
+
+    private static String toString(final Date date) {
+        return (date != null) ? Long.toString(date.getTime()) : null;
+    }
+
+    private static Date toDate(final String value) {
+        return (value != null) ? new Date(Long.parseLong(value)) : null;
+    }
+
+    private static boolean addEntry(final ZipOutputStream zos, final String name, final File file) throws IOException {
+        if (file == null || !file.exists()) {
+            return false;
+        }
+        zos.putNextEntry(new ZipEntry(name));
+        final InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            copy(in, zos);
+        } finally {
+            in.close();
+        }
+        zos.closeEntry();
+        return true;
+    }
+
+    private static void extractEntry(final ZipFile zip, final ZipEntry entry, final File dest) throws IOException {
+        final InputStream in = zip.getInputStream(entry);
+        try {
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(dest), BUFFER_SIZE);
+            try {
+                copy(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Result files extracted from the session archive on first access
+     */
+    private static final class ArchiveFileSource implements ServiceResult.ResultFileSource {
+
+        /** session archive */
+        private final File archive;
+        /** entry names keyed by extracted file */
+        private final Map<File, String> entries = new HashMap<File, String>();
+
+        ArchiveFileSource(final File archive) {
+            this.archive = archive;
+        }
+
+        void add(final File file, final String entry) {
+            entries.put(file, entry);
+        }
+
+        @Override
+        public synchronized void extract(final File file) throws IOException {
+            final String name = entries.get(file);
+            if (name != null && !file.exists()) {
+                final ZipFile zip = new ZipFile(archive);
+                try {
+                    final ZipEntry entry = zip.getEntry(name);
+                    if (entry != null) {
+                        // never leave a partial file:
+                        final File tmp = new File(file.getPath() + ".part");
+                        extractEntry(zip, entry, tmp);
+                        if (!tmp.renameTo(file)) {
+                            tmp.delete();
+                            throw new IOException("Unable to rename the extracted file: " + tmp);
+                        }
+                        logger.debug("extract: {} from {}", name, archive);
+                    }
+                } finally {
+                    zip.close();
+                }
+            }
+        }
+    }
+
+    private static void copy(final InputStream in, final OutputStream out) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+    }
+}
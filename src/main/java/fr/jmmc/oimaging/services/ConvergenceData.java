@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import java.util.Arrays;
+
+/**
+ * Convergence series (iteration, chi2, cost) extracted from the execution log (thread-safe).
+ * Missing values are stored as NaN.
+ * @author bourgesl
+ */
+public final class ConvergenceData {
+
+    /** initial capacity */
+    private static final int INITIAL_CAPACITY = 128;
+
+    /* members (guarded by this) */
+    /** number of points */
+    private int size = 0;
+    /** iteration numbers */
+    private double[] iterations = new double[INITIAL_CAPACITY];
+    /** chi2 values */
+    private double[] chi2 = new double[INITIAL_CAPACITY];
+    /** cost (criterion) values */
+    private double[] cost = new double[INITIAL_CAPACITY];
+
+    /**
+     * Add a new point
+     * @param iteration iteration number
+     * @param chi2Value chi2 or NaN
+     * @param costValue cost or NaN
+     */
+    public synchronized void add(final double iteration, final double chi2Value, final double costValue) {
+        if (size == iterations.length) {
+            final int capacity = 2 * size;
+            iterations = Arrays.copyOf(iterations, capacity);
+            chi2 = Arrays.copyOf(chi2, capacity);
+            cost = Arrays.copyOf(cost, capacity);
+        }
+        iterations[size] = iteration;
+        chi2[size] = chi2Value;
+        cost[size] = costValue;
+        size++;
+    }
+
+    /**
+     * @return number of points
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return iteration numbers (copy)
+     */
+    public synchronized double[] getIterations() {
+        return Arrays.copyOf(iterations, size);
+    }
+
+    /**
+     * @return chi2 values (copy)
+     */
+    public synchronized double[] getChi2() {
+        return Arrays.copyOf(chi2, size);
+    }
+
+    /**
+     * @return cost values (copy)
+     */
+    public synchronized double[] getCost() {
+        return Arrays.copyOf(cost, size);
+    }
+
+    /**
+     * @return chi2 value of the last point (NaN if none)
+     */
+    public synchronized double getLastChi2() {
+        return (size != 0) ? chi2[size - 1] : Double.NaN;
+    }
+
+    /**
+     * @return cost value of the last point (NaN if none)
+     */
+    public synchronized double getLastCost() {
+        return (size != 0) ? cost[size - 1] : Double.NaN;
+    }
+
+    /**
+     * Return the series used to check convergence: chi2 if given by the software else the cost
+     * @return chi2 or cost values (copy)
+     */
+    public synchronized double[] getCriterion() {
+        for (int i = 0; i < size; i++) {
+            if (!Double.isNaN(chi2[i])) {
+                return getChi2();
+            }
+        }
+        return getCost();
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import fr.jmmc.oimaging.Preferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Live convergence monitor of a running job: log lines are parsed into the convergence data
+ * and the optional early-stop rule (Preferences.CONVERGENCE_EARLY_STOP) requests the job to stop
+ * when the criterion (chi2 or cost) diverges. A plateau is reported (live log, status bar and service result)
+ * and the user may cancel the job: the software output image is only written when it completes.
+ * The criterion is checked incrementally (running minimum and ring buffer of the plateau window).
+ * @author bourgesl
+ */
+public final class ConvergenceMonitor {
+
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(ConvergenceMonitor.class.getName());
+    /** divergence factor: criterion larger than factor x its minimum */
+    private static final double DIVERGENCE_FACTOR = 100.0;
+
+    /* members */
+    /** job name */
+    private final String name;
+    /** log parser */
+    private final ConvergenceParser parser;
+    /** convergence data */
+    private final ConvergenceData data;
+    /** true to stop the job on divergence (and report plateaus) */
+    private final boolean earlyStop;
+    /** plateau window (iterations) */
+    private final int window;
+    /** plateau relative tolerance */
+    private final double tolerance;
+    /** reason of the stop request (null if none) */
+    private volatile String stopReason = null;
+    /** convergence detected (plateau) while the job continues (null if none) */
+    private volatile String convergedReason = null;
+    /* check state (parsing thread) */
+    /** true if the criterion is the chi2 (else the cost) */
+    private boolean useChi2 = false;
+    /** minimum of the criterion */
+    private double min = Double.POSITIVE_INFINITY;
+    /** last window + 1 criterion values */
+    private final double[] ring;
+    /** number of checked values */
+    private int count = 0;
+
+    /**
+     * Create a new monitor using the early-stop preferences
+     * @param name job name
+     * @param software software name (program)
+     * @param data convergence data to fill
+     */
+    public ConvergenceMonitor(final String name, final String software, final ConvergenceData data) {
+        final Preferences prefs = Preferences.getInstance();
+        this.name = name;
+        this.parser = ConvergenceParser.forSoftware(software);
+        this.data = data;
+        this.earlyStop = prefs.getPreferenceAsBoolean(Preferences.CONVERGENCE_EARLY_STOP);
+        this.window = Math.max(2, prefs.getPreferenceAsInt(Preferences.CONVERGENCE_WINDOW));
+        this.tolerance = prefs.getPreferenceAsDouble(Preferences.CONVERGENCE_TOLERANCE);
+        this.ring = new double[window + 1];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ConvergenceData getData() {
+        return data;
+    }
+
+    /**
+     * @return reason of the stop request (divergence) or null if the job may continue
+     */
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * @return convergence reason (plateau) or null if not detected; the job is not stopped
+     */
+    public String getConvergedReason() {
+        return convergedReason;
+    }
+
+    /**
+     * Parse the given log line
+     * @param line log line
+     */
+    public void parse(final String line) {
+        if (parser.parse(line, data)) {
+            if (earlyStop && stopReason == null) {
+                check();
+            }
+        }
+    }
+
+    private void check() {
+        final double chi2 = data.getLastChi2();
+        if (!useChi2 && !Double.isNaN(chi2)) {
+            // chi2 given by the software: restart on the chi2 series
+            useChi2 = true;
+            min = Double.POSITIVE_INFINITY;
+            count = 0;
+        }
+        final double last = (useChi2) ? chi2 : data.getLastCost();
+
+        if (Double.isNaN(last)) {
+            return;
+        }
+        if (Double.isInfinite(last)) {
+            requestStop("diverged (infinite criterion)");
+            return;
+        }
+        if (last < min) {
+            min = last;
+        }
+        if (min > 0.0 && last > DIVERGENCE_FACTOR * min) {
+            requestStop("diverged (criterion " + last + " > " + DIVERGENCE_FACTOR + " x " + min + ")");
+            return;
+        }
+        ring[count % ring.length] = last;
+        count++;
+
+        if ((convergedReason == null) && (count > window)) {
+            // value window iterations ago:
+            final double ref = ring[(count - 1 - window) % ring.length];
+            if (Math.abs(ref - last) <= tolerance * Math.max(Math.abs(ref), Double.MIN_NORMAL)) {
+                // let the software finish (its output image is kept) unless the user cancels the job:
+                convergedReason = "converged (criterion plateau over " + window + " iterations)";
+                logger.info("Job[{}] {}", name, convergedReason);
+            }
+        }
+    }
+
+    private void requestStop(final String reason) {
+        logger.info("Job[{}] early stop: {}", name, reason);
+        stopReason = reason;
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-software parser of the convergence metrics (iteration, chi2, cost) in execution log lines:
+ * - MiRA prints one table row per iteration (iteration, time, evaluations, rejections, objective function ...)
+ * - BSMEM, WISARD and other softwares print 'key = value' pairs (iteration, chi2, criterion / cost ...)
+ * @author bourgesl
+ */
+public abstract class ConvergenceParser {
+
+    /** floating point number */
+    private static final String NUMBER = "([-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eEdD][-+]?\\d+)?)";
+    /** generic iteration pattern */
+    private static final Pattern ITERATION = Pattern.compile("(?i)\\biter(?:ation)?s?\\b\\s*[:=#]?\\s*(\\d+)");
+    /** generic chi2 pattern */
+    private static final Pattern CHI2 = Pattern.compile("(?i)\\bchi2(?:/n|r|_?red)?\\s*[:=]\\s*" + NUMBER);
+    /** generic cost pattern */
+    private static final Pattern COST = Pattern.compile("(?i)\\b(?:cost|crit(?:erion)?|obj(?:ective)?|f(?:unc)?)\\s*[:=]\\s*" + NUMBER);
+    /** MiRA iteration row: iter time eval reject objective ... */
+    private static final Pattern MIRA_ROW = Pattern.compile("^\\s*(\\d+)\\s+" + NUMBER + "\\s+(\\d+)\\s+(\\d+)\\s+" + NUMBER + "(?:\\s|$)");
+
+    /** 'key = value' parser */
+    private static final ConvergenceParser GENERIC = new ConvergenceParser() {
+        @Override
+        public boolean parse(final String line, final ConvergenceData data) {
+            final Matcher mIter = ITERATION.matcher(line);
+            if (!mIter.find()) {
+                return false;
+            }
+            final double chi2 = find(CHI2, line);
+            final double cost = find(COST, line);
+            if (Double.isNaN(chi2) && Double.isNaN(cost)) {
+                return false;
+            }
+            data.add(Double.parseDouble(mIter.group(1)), chi2, cost);
+            return true;
+        }
+    };
+
+    /** MiRA parser (iteration table) */
+    private static final ConvergenceParser MIRA = new ConvergenceParser() {
+        @Override
+        public boolean parse(final String line, final ConvergenceData data) {
+            final Matcher m = MIRA_ROW.matcher(line);
+            if (m.find()) {
+                data.add(Double.parseDouble(m.group(1)), Double.NaN, parseNumber(m.group(5)));
+                return true;
+            }
+            return GENERIC.parse(line, data);
+        }
+    };
+
+    /**
+     * Return the parser suited to the given software
+     * @param software software name (program)
+     * @return parser (never null)
+     */
+    public static ConvergenceParser forSoftware(final String software) {
+        if (software != null && software.toLowerCase().contains("mira")) {
+            return MIRA;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Parse the given line and add the convergence point (if any) to the given data
+     * @param line log line
+     * @param data convergence data to fill
+     * @return true if a point was added
+     */
+    public abstract boolean parse(final String line, final ConvergenceData data);
+
+    /**
+     * Parse the given (complete) log
+     * @param log log text
+     * @param data convergence data to fill
+     */
+    public final void parseText(final String log, final ConvergenceData data) {
+        for (String line : log.split("\n")) {
+            parse(line, data);
+        }
+    }
+
+    private static double find(final Pattern pattern, final String line) {
+        final Matcher m = pattern.matcher(line);
+        return m.find() ? parseNumber(m.group(1)) : Double.NaN;
+    }
+
+    private static double parseNumber(final String value) {
+        try {
+            // fortran exponent:
+            return Double.parseDouble(value.replace('d', 'e').replace('D', 'E'));
+        } catch (NumberFormatException nfe) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounded ring buffer of the execution log lines of a running job (thread-safe, see JobProgress):
+ * oldest lines are dropped when the buffer is full.
+ * @author bourgesl
+ */
+public final class ExecutionLogBuffer {
+
+    /** maximum number of lines kept by the buffer of a job */
+    public static final int MAX_LINES = 5000;
+
+    /* members */
+    /** maximum number of lines */
+    private final int maxLines;
+    /** lines (guarded by this) */
+    private final ArrayDeque<String> lines;
+    /** modification counter (guarded by this) */
+    private long revision = 0L;
+
+    /**
+     * Create a new buffer
+     * @param maxLines maximum number of lines
+     */
+    public ExecutionLogBuffer(final int maxLines) {
+        this.maxLines = maxLines;
+        this.lines = new ArrayDeque<String>(Math.min(maxLines, 1024));
+    }
+
+    /**
+     * Add the given line (the oldest line is dropped if the buffer is full)
+     * @param line line to add
+     */
+    public synchronized void add(final String line) {
+        if (lines.size() == maxLines) {
+            lines.removeFirst();
+        }
+        lines.addLast(line);
+        revision++;
+    }
+
+    /**
+     * Remove all lines
+     */
+    public synchronized void clear() {
+        lines.clear();
+        revision++;
+    }
+
+    /**
+     * @return number of lines
+     */
+    public synchronized int size() {
+        return lines.size();
+    }
+
+    /**
+     * Return the modification counter to detect changes
+     * @return modification counter
+     */
+    public synchronized long getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return all lines separated by new lines
+     */
+    public synchronized String getText() {
+        final StringBuilder sb = new StringBuilder(lines.size() * 80);
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This interface defines callbacks invoked by the JobScheduler when a job starts or ends.
+ *
+ * Note: callbacks are invoked by the worker thread (NOT the Swing EDT)
+ * @author bourgesl
+ */
+public interface JobListener {
+
+    /**
+     * The job starts running (a slot is available)
+     * @param job started job
+     */
+    public void jobStarted(final ServiceJob job);
+
+    /**
+     * The job completed (successfully or not, see ServiceResult)
+     * @param job finished job
+     * @param result service result
+     */
+    public void jobFinished(final ServiceJob job, final ServiceResult result);
+
+    /**
+     * The job was cancelled (before or during its execution)
+     * @param job cancelled job
+     */
+    public void jobCancelled(final ServiceJob job);
+
+    /**
+     * The job failed with an unexpected exception
+     * @param job failed job
+     * @param ee execution exception wrapping the root cause
+     */
+    public void jobFailed(final ServiceJob job, final ExecutionException ee);
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+/**
+ * Live state of one job (thread-safe): its execution log lines and its convergence monitor
+ * (set by the execution mode once the job runs). Read by the GUI to display the selected running job.
+ * @author bourgesl
+ */
+public final class JobProgress {
+
+    /* members */
+    /** job name */
+    private final String name;
+    /** execution log lines */
+    private final ExecutionLogBuffer log = new ExecutionLogBuffer(ExecutionLogBuffer.MAX_LINES);
+    /** convergence monitor (null until the job runs) */
+    private volatile ConvergenceMonitor monitor = null;
+
+    /**
+     * Create a new job progress
+     * @param name job name
+     */
+    public JobProgress(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ExecutionLogBuffer getLog() {
+        return log;
+    }
+
+    /**
+     * @return convergence monitor or null if the job is not running yet
+     */
+    public ConvergenceMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Create the convergence monitor of the running job
+     * @param software software name (program)
+     * @param data convergence data to fill (service result)
+     * @return new monitor
+     */
+    public ConvergenceMonitor createMonitor(final String software, final ConvergenceData data) {
+        final ConvergenceMonitor m = new ConvergenceMonitor(name, software, data);
+        this.monitor = m;
+        return m;
+    }
+
+    /**
+     * Create the log tailer of the running job filling this log and the convergence monitor
+     * @return new log tailer
+     */
+    public LogTailer createTailer() {
+        final LogTailer tailer = new LogTailer(name, log);
+        tailer.setConvergenceMonitor(monitor);
+        return tailer;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
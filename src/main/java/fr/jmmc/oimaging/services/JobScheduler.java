@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import fr.jmmc.oimaging.Preferences;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Job scheduler running several reconstruction jobs in parallel using a bounded number of slots.
+ * Pending jobs are queued (FIFO) until a slot is available.
+ *
+ * The number of slots is given by the Preferences.JOB_MAX_SLOTS preference.
+ * Listeners given with jobs are notified of their own events, global listeners (GUI) of every job events.
+ * @author bourgesl
+ */
+public final class JobScheduler implements Observer {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(JobScheduler.class);
+    /** idle worker timeout in seconds */
+    private static final long KEEP_ALIVE_TIME = 60L;
+    /** singleton */
+    private static JobScheduler _instance = null;
+
+    /* members */
+    /** thread pool executor */
+    private final ThreadPoolExecutor executor;
+    /** pending or running tasks */
+    private final List<JobTask> tasks = new ArrayList<JobTask>();
+    /** global listeners notified of every job events */
+    private final List<JobListener> listeners = new CopyOnWriteArrayList<JobListener>();
+
+    /**
+     * Return the JobScheduler singleton
+     * @return singleton instance
+     */
+    public static synchronized JobScheduler getInstance() {
+        if (_instance == null) {
+            _instance = new JobScheduler();
+        }
+        return _instance;
+    }
+
+    /**
+     * Private constructor
+     */
+    private JobScheduler() {
+        final int slots = getPreferedSlots();
+
+        this.executor = new ThreadPoolExecutor(slots, slots, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new JobThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        logger.info("JobScheduler: {} slots", slots);
+
+        // listen to preference changes:
+        Preferences.getInstance().addObserver(this);
+    }
+
+    /**
+     * Listen to preferences changes to adjust the number of slots
+     * @param o Preferences
+     * @param arg unused
+     */
+    @Override
+    public void update(final Observable o, final Object arg) {
+        setMaxSlots(getPreferedSlots());
+    }
+
+    private static int getPreferedSlots() {
+        return Math.max(1, Preferences.getInstance().getPreferenceAsInt(Preferences.JOB_MAX_SLOTS));
+    }
+
+    /**
+     * Return the maximum number of jobs running concurrently
+     * @return maximum number of jobs running concurrently
+     */
+    public int getMaxSlots() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Define the maximum number of jobs running concurrently
+     * @param slots maximum number of jobs running concurrently (1 at least)
+     */
+    public void setMaxSlots(final int slots) {
+        final int n = Math.max(1, slots);
+        if (n != executor.getMaximumPoolSize()) {
+            logger.info("JobScheduler: {} slots", n);
+            // keep core <= max at each step:
+            if (n > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(n);
+                executor.setCorePoolSize(n);
+            } else {
+                executor.setCorePoolSize(n);
+                executor.setMaximumPoolSize(n);
+            }
+        }
+    }
+
+    /**
+     * Register the given listener notified of every job events (any thread)
+     * @param listener listener to add
+     */
+    public void addJobListener(final JobListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister the given listener
+     * @param listener listener to remove
+     */
+    public void removeJobListener(final JobListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Submit the given job
+     * @param job job to execute
+     * @param listener listener notified when the job ends
+     * @return future
+     */
+    public Future<ServiceResult> submit(final ServiceJob job, final JobListener listener) {
+        final JobTask task = new JobTask(job, listener);
+        synchronized (tasks) {
+            tasks.add(task);
+        }
+        logger.debug("submit: {}", job);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Submit all given jobs
+     * @param jobs jobs to execute
+     * @param listener listener notified when each job ends
+     * @return futures
+     */
+    public List<Future<ServiceResult>> submitAll(final List<ServiceJob> jobs, final JobListener listener) {
+        final List<Future<ServiceResult>> futures = new ArrayList<Future<ServiceResult>>(jobs.size());
+        for (ServiceJob job : jobs) {
+            futures.add(submit(job, listener));
+        }
+        return futures;
+    }
+
+    /**
+     * Cancel the given job (pending or running)
+     * @param job job to cancel
+     * @return true if the job was found and cancelled
+     */
+    public boolean cancel(final ServiceJob job) {
+        final JobTask task = findTask(job);
+        if (task != null) {
+            return task.cancel(true);
+        }
+        return false;
+    }
+
+    /**
+     * Cancel all pending and running jobs
+     */
+    public void cancelAll() {
+        final List<JobTask> copy;
+        synchronized (tasks) {
+            copy = new ArrayList<JobTask>(tasks);
+        }
+        logger.info("cancelAll: {} jobs", copy.size());
+        for (JobTask task : copy) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Return the number of pending and running jobs
+     * @return number of pending and running jobs
+     */
+    public int getJobCount() {
+        synchronized (tasks) {
+            return tasks.size();
+        }
+    }
+
+    /**
+     * Return true if any job is pending or running
+     * @return true if any job is pending or running
+     */
+    public boolean isRunning() {
+        return getJobCount() != 0;
+    }
+
+    /**
+     * Return the number of running jobs
+     * @return number of running jobs
+     */
+    public int getRunningJobCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Return the pending and running jobs
+     * @return pending and running jobs (copy)
+     */
+    public List<ServiceJob> getJobs() {
+        synchronized (tasks) {
+            final List<ServiceJob> jobs = new ArrayList<ServiceJob>(tasks.size());
+            for (JobTask task : tasks) {
+                jobs.add(task.job);
+            }
+            return jobs;
+        }
+    }
+
+    private JobTask findTask(final ServiceJob job) {
+        synchronized (tasks) {
+            for (JobTask task : tasks) {
+                if (task.job == job) {
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void remove(final JobTask task) {
+        synchronized (tasks) {
+            tasks.remove(task);
+        }
+    }
+
+    /**
+     * FutureTask notifying the job listener (and global listeners) once started and done
+     */
+    private final class JobTask extends FutureTask<ServiceResult> {
+
+        /** job */
+        final ServiceJob job;
+        /** listener */
+        private final JobListener listener;
+
+        JobTask(final ServiceJob job, final JobListener listener) {
+            super(job);
+            this.job = job;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            if (!isDone()) {
+                if (listener != null) {
+                    listener.jobStarted(job);
+                }
+                for (JobListener l : listeners) {
+                    l.jobStarted(job);
+                }
+            }
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            remove(this);
+
+            if (listener != null) {
+                notifyDone(listener);
+            }
+            for (JobListener l : listeners) {
+                notifyDone(l);
+            }
+        }
+
+        private void notifyDone(final JobListener l) {
+            if (isCancelled()) {
+                l.jobCancelled(job);
+            } else {
+                try {
+                    l.jobFinished(job, get());
+                } catch (CancellationException ce) {
+                    l.jobCancelled(job);
+                } catch (InterruptedException ie) {
+                    logger.debug("done: interrupted", ie);
+                    l.jobCancelled(job);
+                } catch (ExecutionException ee) {
+                    l.jobFailed(job, ee);
+                }
+            }
+        }
+    }
+
+    /**
+     * Thread factory giving meaningful names to job threads
+     */
+    private static final class JobThreadFactory implements ThreadFactory {
+
+        /** thread counter */
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "JobScheduler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
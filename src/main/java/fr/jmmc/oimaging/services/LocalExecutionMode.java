@@ -8,13 +8,27 @@ import fr.jmmc.jmcs.util.StringUtils;
 import fr.jmmc.jmcs.util.runner.LocalLauncher;
 import fr.jmmc.jmcs.util.runner.RootContext;
 import fr.jmmc.jmcs.util.runner.RunContext;
+import fr.jmmc.oimaging.Preferences;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang.SystemUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Support local service runner.
+ * Local processes are limited (Preferences.LOCAL_MAX_PROCESSES), may be pinned on a cpu (taskset)
+ * and killed when exceeding the wall-clock or cpu time limits (ulimit -t); their peak memory is sampled from /proc
+ * (at short intervals first to sample short processes) and their exit status is stored by the shell wrapper.
+ * The log file is tailed into the live log of the job (JobProgress) while the process runs
+ * and the process is killed if its convergence monitor detects a divergence.
  * @author Guillaume MELLA.
  */
 public final class LocalExecutionMode implements OImagingExecutionMode {
@@ -27,6 +41,26 @@ public final class LocalExecutionMode implements OImagingExecutionMode {
     public final static String USER_NAME = "JMMC";
     /** task identifier for LocalExecutionMode */
     public final static String TASK_NAME = "LocalRunner";
+    /** process monitoring period in milliseconds */
+    private final static long MONITOR_PERIOD = 1000L;
+    /** first process monitoring period in milliseconds (doubled until MONITOR_PERIOD) */
+    private final static long MONITOR_MIN_PERIOD = 20L;
+    /** delay (ms) given to the software to handle SIGTERM before killing it */
+    private final static long KILL_GRACE_PERIOD = 2000L;
+    /** cpu time margin (s) between the soft limit (SIGXCPU) and the hard limit (SIGKILL) */
+    private final static int CPU_HARD_LIMIT_MARGIN = 5;
+    /** exit status of a process killed by SIGKILL (shell convention: 128 + signal) */
+    private final static int STATUS_SIGKILL = 128 + 9;
+    /** exit status of a process killed by SIGXCPU (cpu time limit exceeded) */
+    private final static int STATUS_SIGXCPU = 128 + 24;
+    /** taskset command (null if not available) */
+    private final static String TASKSET = findCommand("taskset");
+    /** lock for process slots and cpus */
+    private final static Object SLOT_LOCK = new Object();
+    /** number of running processes (guarded by SLOT_LOCK) */
+    private static int runningProcesses = 0;
+    /** cpus in use (guarded by SLOT_LOCK) */
+    private final static BitSet USED_CPUS = new BitSet();
 
     /** singleton */
     public static final LocalExecutionMode INSTANCE = new LocalExecutionMode();
@@ -42,10 +76,11 @@ public final class LocalExecutionMode implements OImagingExecutionMode {
      * @param cliOptions software options on command line or null
      * @param inputFilename input filename
      * @param result the service result pointing result file to write data into.
-     * @return the job context identifier
+     * @param progress live state of the job to fill
      * @throws IllegalStateException if the job can not be submitted to the job queue
      */
-    public static void exec(final String software, final String cliOptions, final String inputFilename, final ServiceResult result) throws IllegalStateException {
+    public static void exec(final String software, final String cliOptions, final String inputFilename, final ServiceResult result,
+                            final JobProgress progress) throws IllegalStateException {
 
         if (StringUtils.isEmpty(software)) {
             throw new IllegalArgumentException("empty application name !");
@@ -63,47 +98,170 @@ public final class LocalExecutionMode implements OImagingExecutionMode {
         final String outputFilename = result.getOifitsResultFile().getAbsolutePath();
         final String logFilename = result.getExecutionLogResultFile().getAbsolutePath();
 
-        logger.info("exec: software={} cliOptions={} inputFilenane={} outputFilenane={} logFilename={}", software, cliOptions, inputFilename, outputFilename, logFilename);
+        // Wait for a free process slot:
+        try {
+            acquireSlot();
+        } catch (InterruptedException ie) {
+            logger.info("exec: interrupted while waiting for a process slot");
+            result.setCancelled(true);
+            return;
+        }
+
+        final int cpu = (TASKSET != null && Preferences.getInstance().getPreferenceAsBoolean(Preferences.LOCAL_CPU_AFFINITY)) ? acquireCpu() : -1;
+        try {
+            exec(software, cliOptions, inputFilename, outputFilename, logFilename, cpu, result, progress);
+        } finally {
+            releaseSlot(cpu);
+        }
+    }
+
+    private static void exec(final String software, final String cliOptions, final String inputFilename,
+                             final String outputFilename, final String logFilename, final int cpu,
+                             final ServiceResult result, final JobProgress progress) throws IllegalStateException {
+
+        final Preferences prefs = Preferences.getInstance();
+        final int wallTimeLimit = prefs.getPreferenceAsInt(Preferences.LOCAL_WALL_TIME_LIMIT);
+        final int cpuTimeLimit = prefs.getPreferenceAsInt(Preferences.LOCAL_CPU_TIME_LIMIT);
+
+        logger.info("exec: software={} cliOptions={} inputFilenane={} outputFilenane={} logFilename={} cpu={} limits={}s/{}s",
+                software, cliOptions, inputFilename, outputFilename, logFilename, cpu, wallTimeLimit, cpuTimeLimit);
 
         // create the execution context without log file:
         final RootContext jobContext = LocalLauncher.prepareMainJob(APP_NAME, USER_NAME, FileUtils.getTempDirPath(), logFilename);
 
-        final String[] cmd;
-        if (cliOptions == null) {
-            cmd = new String[]{software, inputFilename, outputFilename};
+        final List<String> cmd = new ArrayList<String>(12);
+        final File pidFile;
+        final File statusFile;
+
+        if (SystemUtils.IS_OS_UNIX) {
+            if (cpu != -1) {
+                cmd.addAll(Arrays.asList(TASKSET, "-c", Integer.toString(cpu)));
+            }
+            // shell wrapper: set the cpu time limits (SIGXCPU then SIGKILL), start the software and store its pid,
+            // forward termination signals (kill) then store its exit status (128 + signal if killed):
+            pidFile = new File(logFilename + ".pid");
+            statusFile = new File(logFilename + ".status");
+            cmd.addAll(Arrays.asList("/bin/sh", "-c",
+                    "f=\"$1\"; shift; " + ((cpuTimeLimit > 0) ? "ulimit -S -t " + cpuTimeLimit
+                            + "; ulimit -H -t " + (cpuTimeLimit + CPU_HARD_LIMIT_MARGIN) + "; " : "")
+                    + "\"$@\" & p=$!; echo $p > \"$0\"; trap 'kill $p 2>/dev/null' TERM INT HUP; "
+                    + "wait $p; s=$?; while kill -0 $p 2>/dev/null; do wait $p; s=$?; done; "
+                    + "echo $s > \"$f\"; exit $s",
+                    pidFile.getAbsolutePath(), statusFile.getAbsolutePath()));
         } else {
-            cmd = new String[]{software, cliOptions, inputFilename, outputFilename};
+            pidFile = null;
+            statusFile = null;
+        }
+
+        cmd.add(software);
+        if (cliOptions != null) {
+            cmd.add(cliOptions);
         }
+        cmd.add(inputFilename);
+        cmd.add(outputFilename);
 
-        LocalLauncher.prepareChildJob(jobContext, TASK_NAME, cmd);
+        LocalLauncher.prepareChildJob(jobContext, TASK_NAME, cmd.toArray(new String[cmd.size()]));
 
         // Puts the job in the job queue (can throw IllegalStateException if job not queued)
         LocalLauncher.startJob(jobContext);
 
         final Long jobId = jobContext.getId();
+        final long deadline = (wallTimeLimit > 0) ? System.currentTimeMillis() + 1000L * wallTimeLimit : Long.MAX_VALUE;
+
+        boolean timeout = false;
+        int pid = -1;
+        long peakMemory = -1L;
+
+        // live log:
+        final File logFile = new File(logFilename);
+        final ConvergenceMonitor convergenceMonitor = progress.createMonitor(software, result.getConvergence());
+        final LogTailer tailer = progress.createTailer();
+        String stopReason = null;
 
         // Wait for process completion
         try {
-            // TODO: use timeout to kill (too long or hanging) jobs anyway ?
-            // Wait for task to be done :
-            jobContext.getFuture().get();
-        } catch (InterruptedException ie) {
-            logger.warn("exec: interrupted", ie);
+            // short periods first: the process memory is released on exit (short jobs)
+            long period = MONITOR_MIN_PERIOD;
 
-            LocalLauncher.cancelOrKillJob(jobId);
+            // Wait for task to be done while monitoring it:
+            while (true) {
+                try {
+                    jobContext.getFuture().get(period, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException te) {
+                    period = Math.min(MONITOR_PERIOD, 2L * period);
+                    tailer.tail(logFile);
 
-            try {
-                // Wait for process to die:
-                jobContext.getFuture().get();
-            } catch (InterruptedException ie2) {
-                logger.debug("Job[{}] waitFor: interrupted 2 {}", jobId);
-            } catch (ExecutionException ee) {
-                logger.debug("Job[{}] waitFor: execution error", jobId, ee);
+                    stopReason = convergenceMonitor.getStopReason();
+                    if (stopReason != null) {
+                        logger.info("Job[{}] early stop: {}: killing it", jobId, stopReason);
+                        killJob(jobContext, pidFile);
+                        break;
+                    }
+
+                    if (pidFile != null) {
+                        if (pid == -1) {
+                            pid = readPid(pidFile);
+                        }
+                        if (pid != -1) {
+                            peakMemory = Math.max(peakMemory, readPeakMemory(pid));
+                        }
+                    }
+                    if (System.currentTimeMillis() > deadline) {
+                        logger.warn("Job[{}] exceeded the wall-clock time limit ({} s): killing it", jobId, wallTimeLimit);
+                        timeout = true;
+                        killJob(jobContext, pidFile);
+                        break;
+                    }
+                }
             }
-            logger.debug("Job[{}] waitFor: interrupted, done", jobId);
+        } catch (InterruptedException ie) {
+            logger.warn("exec: interrupted", ie);
+            killJob(jobContext, pidFile);
 
         } catch (ExecutionException ee) {
             logger.info("exec: execution error", ee);
+        } finally {
+            if (pidFile != null) {
+                pidFile.delete();
+            }
+            tailer.tail(logFile);
+            tailer.flush();
+            result.setConvergedReason(convergenceMonitor.getConvergedReason());
+        }
+
+        final int status = (statusFile != null) ? readStatus(statusFile) : -1;
+        if (statusFile != null) {
+            statusFile.delete();
+        }
+        if (status > 0) {
+            logger.info("Job[{}] exit status: {}", jobId, status);
+        }
+
+        if (peakMemory > 0L) {
+            logger.info("Job[{}] peak memory: {} MB", jobId, peakMemory / (1024L * 1024L));
+            result.setPeakMemory(peakMemory);
+        }
+
+        if (timeout) {
+            result.setErrorMessage("The process was killed after exceeding the time limit (" + wallTimeLimit + " s)");
+            return;
+        }
+        if (stopReason != null) {
+            result.setErrorMessage("The process was killed: " + stopReason);
+            return;
+        }
+        if (cpuTimeLimit > 0) {
+            if (status == STATUS_SIGXCPU) {
+                result.setErrorMessage("The process was killed after exceeding the cpu time limit (" + cpuTimeLimit + " s)");
+                return;
+            }
+            if (status == STATUS_SIGKILL) {
+                // hard limit reached (SIGXCPU handled or ignored) or out of memory:
+                result.setErrorMessage("The process was killed (exit status " + status
+                        + "): cpu time limit (" + cpuTimeLimit + " s) exceeded or out of memory");
+                return;
+            }
         }
 
         // retrieve command execution status code
@@ -117,10 +275,187 @@ public final class LocalExecutionMode implements OImagingExecutionMode {
         }
     }
 
+    /**
+     * Kill the given job and wait for the process to die: the software runs as a child of the shell wrapper
+     * so it is terminated first then killed if still alive once the wrapper died (not orphaned)
+     * @param jobContext job context
+     * @param pidFile file giving the software pid (shell wrapper) or null
+     */
+    private static void killJob(final RootContext jobContext, final File pidFile) {
+        final Long jobId = jobContext.getId();
+
+        final int pid = (pidFile != null) ? readPid(pidFile) : -1;
+        if (pid != -1) {
+            signal(pid, "TERM");
+        }
+
+        LocalLauncher.cancelOrKillJob(jobId);
+
+        try {
+            // Wait for process to die:
+            jobContext.getFuture().get();
+        } catch (InterruptedException ie2) {
+            logger.debug("Job[{}] waitFor: interrupted 2 {}", jobId);
+        } catch (ExecutionException ee) {
+            logger.debug("Job[{}] waitFor: execution error", jobId, ee);
+        }
+        logger.debug("Job[{}] waitFor: interrupted, done", jobId);
+
+        if (pid != -1) {
+            // the software must die even if this thread was interrupted:
+            boolean interrupted = Thread.interrupted();
+
+            // give the software some time to handle SIGTERM:
+            for (int i = 0; !interrupted && (i < KILL_GRACE_PERIOD / MONITOR_MIN_PERIOD) && signal(pid, "0"); i++) {
+                try {
+                    Thread.sleep(MONITOR_MIN_PERIOD);
+                } catch (InterruptedException ie) {
+                    logger.debug("Job[{}] kill: interrupted", jobId);
+                    interrupted = true;
+                }
+            }
+            if (signal(pid, "0")) {
+                logger.warn("Job[{}] process {} still alive: killing it", jobId, pid);
+                signal(pid, "KILL");
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Send the given signal to the given process (kill command)
+     * @param pid process id
+     * @param signal signal name (0 to test if the process exists)
+     * @return true if the signal was sent
+     */
+    private static boolean signal(final int pid, final String signal) {
+        try {
+            final Process process = new ProcessBuilder("kill", "-" + signal, Integer.toString(pid))
+                    .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+            return process.waitFor() == 0;
+        } catch (IOException ioe) {
+            logger.debug("signal: failure", ioe);
+        } catch (InterruptedException ie) {
+            logger.debug("signal: interrupted", ie);
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static int getMaxProcesses() {
+        return Math.max(1, Preferences.getInstance().getPreferenceAsInt(Preferences.LOCAL_MAX_PROCESSES));
+    }
+
+    private static void acquireSlot() throws InterruptedException {
+        synchronized (SLOT_LOCK) {
+            while (runningProcesses >= getMaxProcesses()) {
+                SLOT_LOCK.wait();
+            }
+            runningProcesses++;
+        }
+    }
+
+    /**
+     * @return first free cpu or -1 if all cpus are used
+     */
+    private static int acquireCpu() {
+        synchronized (SLOT_LOCK) {
+            final int cpu = USED_CPUS.nextClearBit(0);
+            if (cpu >= Runtime.getRuntime().availableProcessors()) {
+                return -1;
+            }
+            USED_CPUS.set(cpu);
+            return cpu;
+        }
+    }
+
+    private static void releaseSlot(final int cpu) {
+        synchronized (SLOT_LOCK) {
+            runningProcesses--;
+            if (cpu != -1) {
+                USED_CPUS.clear(cpu);
+            }
+            SLOT_LOCK.notifyAll();
+        }
+    }
+
+    private static String findCommand(final String name) {
+        if (SystemUtils.IS_OS_LINUX) {
+            for (String path : new String[]{"/usr/bin/", "/bin/"}) {
+                final File file = new File(path + name);
+                if (file.canExecute()) {
+                    return file.getAbsolutePath();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int readPid(final File pidFile) {
+        if (pidFile.exists()) {
+            try {
+                return Integer.parseInt(FileUtils.readFile(pidFile).trim());
+            } catch (IOException ioe) {
+                logger.debug("readPid: failure", ioe);
+            } catch (NumberFormatException nfe) {
+                // file not completely written yet
+                logger.debug("readPid: failure", nfe);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return exit status stored by the shell wrapper or -1 if not available
+     */
+    private static int readStatus(final File statusFile) {
+        if (statusFile.exists()) {
+            try {
+                return Integer.parseInt(FileUtils.readFile(statusFile).trim());
+            } catch (IOException ioe) {
+                logger.debug("readStatus: failure", ioe);
+            } catch (NumberFormatException nfe) {
+                logger.debug("readStatus: failure", nfe);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return peak resident memory (VmHWM) in bytes or -1 if not available
+     */
+    private static long readPeakMemory(final int pid) {
+        final File status = new File("/proc/" + pid + "/status");
+        if (status.exists()) {
+            try {
+                for (String line : FileUtils.readFile(status).split("\n")) {
+                    if (line.startsWith("VmHWM:")) {
+                        // VmHWM:     12345 kB
+                        return 1024L * Long.parseLong(line.substring(6).replace("kB", "").trim());
+                    }
+                }
+            } catch (IOException ioe) {
+                // process terminated
+                logger.debug("readPeakMemory: failure", ioe);
+            } catch (NumberFormatException nfe) {
+                logger.debug("readPeakMemory: failure", nfe);
+            }
+        }
+        return -1L;
+    }
+
     @Override
     public ServiceResult reconstructsImage(final String software, final String cliOptions, final File inputFile) {
+        return reconstructsImage(software, cliOptions, inputFile, new JobProgress(inputFile.getName()));
+    }
+
+    @Override
+    public ServiceResult reconstructsImage(final String software, final String cliOptions, final File inputFile,
+                                           final JobProgress progress) {
         final ServiceResult result = new ServiceResult(inputFile);
-        LocalExecutionMode.exec(software, cliOptions, inputFile.getAbsolutePath(), result);
+        LocalExecutionMode.exec(software, cliOptions, inputFile.getAbsolutePath(), result, progress);
         return result;
     }
 
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental reader of an execution log (local file or remote result read by ranges):
+ * new complete lines are added to the given log buffer, prefixed by the job name,
+ * and given to the optional convergence monitor.
+ * Bytes of an UTF-8 sequence split between two chunks are kept until the next chunk.
+ * @author bourgesl
+ */
+public final class LogTailer {
+
+    /** Class logger */
+    private static final Logger logger = LoggerFactory.getLogger(LogTailer.class.getName());
+    /** log encoding */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /** read buffer size */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /* members */
+    /** line prefix */
+    private final String prefix;
+    /** log buffer */
+    private final ExecutionLogBuffer buffer;
+    /** number of bytes read so far */
+    private long offset = 0L;
+    /** last incomplete line */
+    private final StringBuilder partial = new StringBuilder(256);
+    /** UTF-8 decoder (stateful) */
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /** undecoded bytes of the last chunk (incomplete UTF-8 sequence) */
+    private byte[] pending = new byte[0];
+    /** optional convergence monitor */
+    private ConvergenceMonitor convergenceMonitor = null;
+
+    /**
+     * Create a new tailer
+     * @param name job name used as line prefix
+     * @param buffer log buffer
+     */
+    public LogTailer(final String name, final ExecutionLogBuffer buffer) {
+        this.prefix = '[' + name + "] ";
+        this.buffer = buffer;
+    }
+
+    public void setConvergenceMonitor(final ConvergenceMonitor convergenceMonitor) {
+        this.convergenceMonitor = convergenceMonitor;
+    }
+
+    /**
+     * @return number of bytes read so far
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Read the new content of the given local file (if any)
+     * @param file log file
+     */
+    public void tail(final File file) {
+        final long length = file.length();
+        if (length <= offset) {
+            return;
+        }
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                raf.seek(offset);
+
+                final byte[] data = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = raf.read(data)) != -1) {
+                    append(data, n);
+                }
+            } finally {
+                raf.close();
+            }
+        } catch (IOException ioe) {
+            logger.debug("tail: failure", ioe);
+        }
+    }
+
+    /**
+     * Add the given new content
+     * @param data bytes
+     * @param len number of bytes
+     */
+    public void append(final byte[] data, final int len) {
+        offset += len;
+
+        final ByteBuffer in;
+        if (pending.length != 0) {
+            in = ByteBuffer.allocate(pending.length + len);
+            in.put(pending).put(data, 0, len).flip();
+        } else {
+            in = ByteBuffer.wrap(data, 0, len);
+        }
+        decode(in, false);
+
+        // keep the undecoded tail bytes for the next chunk:
+        pending = new byte[in.remaining()];
+        in.get(pending);
+
+        splitLines();
+    }
+
+    private void decode(final ByteBuffer in, final boolean endOfInput) {
+        // UTF-8: never more chars than bytes
+        final CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+        decoder.decode(in, out, endOfInput);
+        if (endOfInput) {
+            decoder.flush(out);
+            decoder.reset();
+        }
+        out.flip();
+        partial.append(out);
+    }
+
+    private void splitLines() {
+        int start = 0;
+        int eol;
+        while ((eol = partial.indexOf("\n", start)) != -1) {
+            final int end = (eol > start && partial.charAt(eol - 1) == '\r') ? eol - 1 : eol;
+            addLine(partial.substring(start, end));
+            start = eol + 1;
+        }
+        partial.delete(0, start);
+    }
+
+    /**
+     * Add the last incomplete line (end of log)
+     */
+    public void flush() {
+        if (pending.length != 0) {
+            // truncated UTF-8 sequence (replaced):
+            decode(ByteBuffer.wrap(pending), true);
+            pending = new byte[0];
+            splitLines();
+        }
+        if (partial.length() != 0) {
+            addLine(partial.toString());
+            partial.setLength(0);
+        }
+    }
+
+    private void addLine(final String line) {
+        buffer.add(prefix + line);
+        if (convergenceMonitor != null) {
+            convergenceMonitor.parse(line);
+        }
+    }
+}
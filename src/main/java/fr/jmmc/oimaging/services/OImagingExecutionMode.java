@@ -20,4 +20,15 @@ public interface OImagingExecutionMode {
      */
     public ServiceResult reconstructsImage(final String software, final String cliOptions, final File inputFile);
 
+    /**
+     * Main basic interface giving the live state of the job (log lines, convergence).
+     * @param software algorithm to run
+     * @param cliOptions software options on command line or null
+     * @param inputFile oifits file that must be used by the service.
+     * @param progress live state of the job to fill
+     * @return the result file produced by the algorithm (oifits) as first file, program output as second file (text) if any
+     */
+    public ServiceResult reconstructsImage(final String software, final String cliOptions, final File inputFile,
+                                           final JobProgress progress);
+
 }
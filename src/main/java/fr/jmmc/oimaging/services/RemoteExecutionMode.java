@@ -5,12 +5,25 @@ package fr.jmmc.oimaging.services;
 
 import fr.cnes.sitools.extensions.astro.application.uws.client.ClientUWS;
 import fr.cnes.sitools.extensions.astro.application.uws.client.ClientUWSException;
+import fr.cnes.sitools.extensions.astro.application.uws.client.DownloadListener;
 import fr.jmmc.jmcs.data.app.ApplicationDescription;
+import fr.jmmc.jmcs.gui.component.StatusBar;
+import fr.jmmc.jmcs.util.FileUtils;
 import fr.jmmc.jmcs.util.StringUtils;
+import fr.jmmc.oimaging.model.InputFileParts;
 import java.io.File;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.ivoa.xml.uws.v1.ExecutionPhase;
 import net.ivoa.xml.uws.v1.JobSummary;
 import net.ivoa.xml.uws.v1.ResultReference;
@@ -36,6 +49,9 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
     // Use -DRemoteExecution.beta=true (dev) to use remote beta uws server (docker)
     private static final boolean USE_BETA = Boolean.getBoolean("RemoteExecution.beta") || ApplicationDescription.isBetaVersion();
 
+    /** Use -DRemoteExecutionMode.url=http://host:port/OImaging-uws/ to use another uws server (tests), read on first connection */
+    public static final String SERVER_URL_PROPERTY = "RemoteExecutionMode.url";
+
     /** Class logger */
     private static final Logger _logger = LoggerFactory.getLogger(RemoteExecutionMode.class.getName());
 
@@ -45,6 +61,32 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
             : ((USE_BETA) ? (new String[]{"http://oimaging-beta.jmmc.fr/OImaging-uws/"})
                     : (new String[]{"http://oimaging.jmmc.fr/OImaging-uws/"})));
 
+    /** UWS 1.1 blocking WAIT duration in seconds (also the cancellation latency) */
+    private static final int WAIT_TIMEOUT = 10;
+    /** maximum wait on the shared job monitor in milliseconds (before checking again) */
+    private static final long MONITOR_TIMEOUT = 10000L;
+    /** minimal polling delay in milliseconds (servers without WAIT support) */
+    private static final long POLL_MIN_DELAY = 100L;
+    /** maximal polling delay in milliseconds (servers without WAIT support) */
+    private static final long POLL_MAX_DELAY = 2000L;
+
+    /** maximum number of concurrent result downloads */
+    private static final int MAX_DOWNLOADS = 4;
+    /** shared executor to download job results concurrently */
+    private static final ExecutorService DOWNLOADER = Executors.newFixedThreadPool(MAX_DOWNLOADS, new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "RemoteDownload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** additional connections for job creation, blob uploads, job deletion and the job monitor */
+    private static final int CONNECTION_HEADROOM = 4;
+
     private static final ClientFactory FACTORY = new ClientFactory();
 
     /** singleton */
@@ -54,6 +96,8 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
 
         /** UWS client to execute IR on a remote server */
         private ClientUWS uwsClient = null;
+        /** shared job monitor associated to the UWS client */
+        private RemoteJobMonitor monitor = null;
 
         ClientFactory() {
         }
@@ -62,17 +106,21 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
          * try to connect to the first server of the hardcoded list.
          * // TODO move this method in a factory
          */
-        public ClientUWS getClient() throws ClientUWSException {
+        public synchronized ClientUWS getClient() throws ClientUWSException {
+            // one blocking WAIT connection per job slot (may change) + downloads + headroom:
+            ClientUWS.setMaxConnectionsPerHost(JobScheduler.getInstance().getMaxSlots() + MAX_DOWNLOADS + CONNECTION_HEADROOM);
+
             if (uwsClient == null) {
                 ClientUWSException cue = null;
                 // Move it in a property file (or constant at least)
-                for (String url : SERVER_URLS) {
+                for (String url : getServerURLs()) {
                     try {
                         final ClientUWS c = new ClientUWS(url, SERVICE_PATH);
 
                         // Get home page as an isAlive request:
                         if (c.getHomePage() != null) {
                             uwsClient = c;
+                            monitor = new RemoteJobMonitor(c, RemoteJobMonitor.DEFAULT_TICK);
                             _logger.info("UWS service endpoint : '{}'", url);
                             break;
                         }
@@ -97,8 +145,22 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
             return uwsClient;
         }
 
-        public void reset() {
+        /**
+         * Return the job monitor associated to the given client
+         * @param client UWS client
+         * @return job monitor or null if the client is not the current one
+         */
+        public synchronized RemoteJobMonitor getMonitor(final ClientUWS client) {
+            return (client == uwsClient) ? monitor : null;
+        }
+
+        public synchronized void reset() {
+            if (monitor != null) {
+                // release the timer thread:
+                monitor.shutdown();
+            }
             this.uwsClient = null;
+            this.monitor = null;
         }
     }
 
@@ -106,6 +168,21 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
         super();
     }
 
+    /**
+     * @return server URLs (given by the SERVER_URL_PROPERTY system property if defined)
+     */
+    private static String[] getServerURLs() {
+        final String url = System.getProperty(SERVER_URL_PROPERTY);
+        return (StringUtils.isEmpty(url)) ? SERVER_URLS : new String[]{url};
+    }
+
+    /**
+     * Forget the current UWS client so the next job connects again (server URL changed)
+     */
+    public static void resetClient() {
+        FACTORY.reset();
+    }
+
     /**
      * Start the remote application and wait end of execution.
      *
@@ -113,9 +190,11 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
      * @param cliOptions software options on command line or null
      * @param inputFilename input filename
      * @param result the service result pointing result file to write data into.
+     * @param progress live state of the job to fill
      * @throws IllegalStateException if the job can not be submitted to the job queue
      */
-    public void callUwsOimagingService(final String software, final String cliOptions, final String inputFilename, ServiceResult result) throws IllegalStateException, ClientUWSException, URISyntaxException, IOException {
+    public void callUwsOimagingService(final String software, final String cliOptions, final String inputFilename, ServiceResult result,
+                                       final JobProgress progress) throws IllegalStateException, ClientUWSException, URISyntaxException, IOException {
 
         if (StringUtils.isEmpty(software)) {
             throw new IllegalArgumentException("empty application name !");
@@ -132,23 +211,10 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
 
         _logger.info("callUwsOimagingService: software={} cliOptions={} inputFilenane={}", software, cliOptions, inputFilename);
 
-        // prepare input of next uws call
-        final FormDataSet formDataSet = new FormDataSet();
-        formDataSet.setMultipart(true);
-
-        final Series<FormData> fdsEntries = formDataSet.getEntries();
-
-        // TODO declare field name as constant ( and share them with server side )
-        fdsEntries.add(new FormData("inputfile",
-                new FileRepresentation(new File(inputFilename), MediaType.IMAGE_ALL)));
-        fdsEntries.add(new FormData("software", software));
-
-        if (cliOptions != null) {
-            fdsEntries.add(new FormData("cliOptions", cliOptions));
-        }
-
-        // start task in autostart mode
-        formDataSet.add("PHASE", "RUN");
+        final File inputFile = new File(inputFilename);
+        // content address of the OI data and images (shared by jobs only differing by their input params):
+        final InputFileParts inputParts = InputFileParts.index(inputFile);
+        final String inputHash = inputParts.computeDataHash();
 
         // create job
         ClientUWS client = null;
@@ -160,7 +226,7 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
             client = FACTORY.getClient();
 
             try {
-                jobId = client.createJob(formDataSet);
+                jobId = createJob(client, software, cliOptions, inputParts, inputHash);
             } catch (ClientUWSException cue) {
                 final Throwable rootCause = getRootCause(cue);
                 if (rootCause instanceof ConnectException) {
@@ -185,28 +251,76 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
         // Assume that first state is executing
         ExecutionPhase phase = ExecutionPhase.EXECUTING;
 
+        final RemoteJobMonitor monitor = FACTORY.getMonitor(client);
+        boolean monitored = false;
+
+        // live log:
+        final ConvergenceMonitor convergenceMonitor = progress.createMonitor(software, result.getConvergence());
+        final LogTailer tailer = progress.createTailer();
+
         boolean cancelled = false;
         try {
+            // adaptive polling delay (fallback):
+            long delay = POLL_MIN_DELAY;
+
             // loop and query return status
-            while (phase == ExecutionPhase.EXECUTING) {
-                try {
-                    Thread.sleep(1000L);
-                } catch (InterruptedException ie) {
-                    _logger.debug("Interrupted.");
-                    result.setErrorMessage("Cancelled job.");
-
-                    _logger.debug("Job[{}] aborting ...", jobId);
-                    client.setAbortJob(jobId);
-                    _logger.debug("Job[{}] aborted.", jobId);
-
-                    cancelled = true;
-                    phase = ExecutionPhase.ABORTED;
-                    break;
-                }
-                phase = client.getJobPhase(jobId);
+            while (isActive(phase)) {
+                if (client.isWaitSupported() == Boolean.TRUE) {
+                    // UWS 1.1: block until the phase changes (or timeout):
+                    phase = client.waitJobPhase(jobId, phase, WAIT_TIMEOUT);
+
+                    if (Thread.interrupted()) {
+                        abortJob(client, jobId, result);
+                        cancelled = true;
+                        phase = ExecutionPhase.ABORTED;
+                        break;
+                    }
+                } else if (client.isWaitSupported() == Boolean.FALSE && monitor != null && !monitor.isShutdown()) {
+                    // shared monitor: one job list request per tick for all jobs:
+                    if (!monitored) {
+                        // false if the client was reset meanwhile (polling fallback):
+                        monitored = monitor.register(jobId, phase);
+                    }
+                    try {
+                        phase = monitor.waitPhaseChange(jobId, phase, MONITOR_TIMEOUT);
+                    } catch (InterruptedException ie) {
+                        abortJob(client, jobId, result);
+                        cancelled = true;
+                        phase = ExecutionPhase.ABORTED;
+                        break;
+                    }
+                } else {
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException ie) {
+                        abortJob(client, jobId, result);
+                        cancelled = true;
+                        phase = ExecutionPhase.ABORTED;
+                        break;
+                    }
+                    // backoff:
+                    delay = Math.min(POLL_MAX_DELAY, (delay * 3L) / 2L);
 
+                    // probe WAIT support until detected:
+                    phase = (client.isWaitSupported() == null)
+                            ? client.waitJobPhase(jobId, phase, WAIT_TIMEOUT)
+                            : client.getJobPhase(jobId);
+                }
                 _logger.debug("getJobPhase[{}] : {}", jobId, phase);
 
+                if (phase == ExecutionPhase.EXECUTING) {
+                    tailLog(client, jobId, tailer);
+
+                    final String stopReason = convergenceMonitor.getStopReason();
+                    if (stopReason != null) {
+                        abortJob(client, jobId, result);
+                        result.setErrorMessage("The job was aborted: " + stopReason);
+                        cancelled = true;
+                        phase = ExecutionPhase.ABORTED;
+                        break;
+                    }
+                }
+
                 // TODO timeout ? or just wait 'Cancel' button
             }
             _logger.info("End of execution for job '{}' in phase '{}'", jobId, phase);
@@ -224,6 +338,11 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
                 result.setCancelled(true);
             }
         } finally {
+            tailer.flush();
+            result.setConvergedReason(convergenceMonitor.getConvergedReason());
+            if (monitored) {
+                monitor.unregister(jobId);
+            }
             // TODO: decide if cleanup is delayed on the server-side to collect datasets in error:
             if (true) {
                 try {
@@ -235,43 +354,201 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
         }
     }
 
-    private static void prepareResult(final ClientUWS client, String jobId, ServiceResult result) throws ClientUWSException, URISyntaxException, IOException {
-        final Results results = client.getJobResults(jobId);
+    /**
+     * Create the job: the data part of the input file (OI data and images) is only uploaded if the server blob store
+     * does not have it yet (or if the server does not support the blob store);
+     * the input param HDU is always sent with the job form
+     */
+    private static String createJob(final ClientUWS client, final String software, final String cliOptions,
+                                    final InputFileParts inputParts, final String inputHash) throws ClientUWSException, IOException {
+
+        final File inputFile = inputParts.getFile();
+
+        if (storeInputBlob(client, inputParts, inputHash)) {
+            File paramFile = null;
+            try {
+                if (inputParts.hasInputParam()) {
+                    paramFile = FileUtils.getTempFile(inputFile.getName() + ".params.fits");
+                    inputParts.writeInputParam(paramFile);
+                }
+                return client.createJob(createForm(software, cliOptions, null, inputHash, paramFile));
+            } catch (ClientUWSException cue) {
+                if (cue.getStatus() == null || !cue.getStatus().isClientError()) {
+                    throw cue;
+                }
+                // blob evicted ? upload the file:
+                _logger.info("createJob: input blob {} rejected ({}), uploading input file", inputHash, cue.getStatus());
+                client.forgetBlob(inputHash);
+            } finally {
+                if (paramFile != null) {
+                    paramFile.delete();
+                }
+            }
+        }
+        return client.createJob(createForm(software, cliOptions, inputFile, null, null));
+    }
+
+    /**
+     * Ensure the data part of the input file is stored on the server blob store
+     * (only written to a temporary file when it must be uploaded)
+     * @return true if the server has the blob; false if the server does not support the blob store
+     */
+    private static boolean storeInputBlob(final ClientUWS client, final InputFileParts inputParts, final String inputHash) throws ClientUWSException, IOException {
+        if (client.isBlobSupported() == Boolean.FALSE) {
+            return false;
+        }
+        if (client.hasBlob(inputHash)) {
+            return true;
+        }
+        if (!inputParts.hasInputParam()) {
+            return client.putBlob(inputParts.getFile(), inputHash);
+        }
+        final File dataFile = FileUtils.getTempFile(inputParts.getFile().getName() + ".data.fits");
+        try {
+            inputParts.writeData(dataFile);
+            return client.putBlob(dataFile, inputHash);
+        } finally {
+            dataFile.delete();
+        }
+    }
+
+    /**
+     * Create the job form: either the input file or the hash of the stored data part and the input param HDU
+     * (the server appends the input param HDU to the data part to get the input file)
+     */
+    private static FormDataSet createForm(final String software, final String cliOptions,
+                                          final File inputFile, final String inputHash, final File paramFile) {
+        // prepare input of next uws call
+        final FormDataSet formDataSet = new FormDataSet();
+        formDataSet.setMultipart(true);
 
-        for (ResultReference resultRef : results.getResult()) {
-            final String id = resultRef.getId();
-            final String href = resultRef.getHref();
+        final Series<FormData> fdsEntries = formDataSet.getEntries();
 
-            if ("logfile".equals(id)) {
-                // get logfile
-                _logger.info("Downloading logfile from: {}", href);
+        // TODO declare field name as constant ( and share them with server side )
+        if (inputHash != null) {
+            fdsEntries.add(new FormData("inputhash", inputHash));
+            if (paramFile != null) {
+                fdsEntries.add(new FormData("inputparams",
+                        new FileRepresentation(paramFile, MediaType.IMAGE_ALL)));
+            }
+        } else {
+            fdsEntries.add(new FormData("inputfile",
+                    new FileRepresentation(inputFile, MediaType.IMAGE_ALL)));
+        }
+        fdsEntries.add(new FormData("software", software));
 
-                if (client.downloadFile(resultRef.getHref(), result.getExecutionLogResultFile())) {
-                    _logger.info("logfile downloaded at: {}", result.getExecutionLogResultFile());
+        if (cliOptions != null) {
+            fdsEntries.add(new FormData("cliOptions", cliOptions));
+        }
+
+        // start task in autostart mode
+        formDataSet.add("PHASE", "RUN");
+
+        return formDataSet;
+    }
+
+    /**
+     * Read the new lines of the log file of the executing job (if the server gives it before completion)
+     */
+    private static void tailLog(final ClientUWS client, final String jobId, final LogTailer tailer) {
+        try {
+            final byte[] data = client.getJobResultPart(jobId, "logfile", tailer.getOffset());
+            if (data != null && data.length != 0) {
+                tailer.append(data, data.length);
+            }
+        } catch (ClientUWSException cue) {
+            _logger.debug("Unable to get the log of job '{}'", jobId, cue);
+        }
+    }
+
+    private static boolean isActive(final ExecutionPhase phase) {
+        return (phase == ExecutionPhase.EXECUTING) || (phase == ExecutionPhase.QUEUED);
+    }
+
+    private static void abortJob(final ClientUWS client, final String jobId, final ServiceResult result) throws ClientUWSException {
+        _logger.debug("Interrupted.");
+        result.setErrorMessage("Cancelled job.");
+
+        _logger.debug("Job[{}] aborting ...", jobId);
+        client.setAbortJob(jobId);
+        _logger.debug("Job[{}] aborted.", jobId);
+    }
+
+    private static void prepareResult(final ClientUWS client, String jobId, ServiceResult result) throws ClientUWSException, URISyntaxException, IOException {
+        final Results results = client.getJobResults(jobId);
+
+        final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(results.getResult().size());
+        try {
+            // download all results concurrently:
+            for (ResultReference resultRef : results.getResult()) {
+                final String id = resultRef.getId();
+                final String href = resultRef.getHref();
+
+                final File file;
+                if ("logfile".equals(id)) {
+                    file = result.getExecutionLogResultFile();
+                } else if ("outputfile".equals(id)) {
+                    file = result.getOifitsResultFile();
+                } else {
+                    // store additional information (intermediate images, convergence tables...)
+                    file = result.createAdditionalResultFile(id, href);
                 }
-            } else if ("outputfile".equals(id)) {
-                // get result file
-                _logger.info("Downloading outputfile from: {}", href);
+                _logger.info("Downloading {} from: {}", id, href);
+
+                futures.add(DOWNLOADER.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws ClientUWSException {
+                        final boolean done = client.downloadFile(href, file, new StatusDownloadListener(id));
+                        if (done) {
+                            _logger.info("{} downloaded at: {}", id, file);
+                        }
+                        return Boolean.valueOf(done);
+                    }
+                }));
+            }
 
-                if (client.downloadFile(href, result.getOifitsResultFile())) {
-                    _logger.info("outputfile downloaded at: {}", result.getOifitsResultFile());
+            // wait for all downloads:
+            for (Future<Boolean> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ee) {
+                    final Throwable cause = ee.getCause();
+                    if (cause instanceof ClientUWSException) {
+                        throw (ClientUWSException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException("Unable to download results", cause);
                 }
-            } else {
-                // TODO: FIX such error
-                // store additional information
-                throw new IllegalStateException("UWS service returned more results than required : " + id);
+            }
+        } catch (InterruptedException ie) {
+            _logger.debug("Interrupted.");
+            // restore interrupted status:
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", ie);
+        } finally {
+            // cancel pending downloads if any failure:
+            for (Future<Boolean> future : futures) {
+                future.cancel(true);
             }
         }
     }
 
     @Override
     public ServiceResult reconstructsImage(final String software, final String options, final File inputFile) {
+        return reconstructsImage(software, options, inputFile, new JobProgress(inputFile.getName()));
+    }
+
+    @Override
+    public ServiceResult reconstructsImage(final String software, final String options, final File inputFile,
+                                           final JobProgress progress) {
         final ServiceResult result = new ServiceResult(inputFile);
 
         Exception e = null;
         try {
             // TODO add log output retrieval
-            callUwsOimagingService(software, options, inputFile.getAbsolutePath(), result);
+            callUwsOimagingService(software, options, inputFile.getAbsolutePath(), result, progress);
         } catch (IllegalStateException ise) {
             throw ise;
         } catch (ClientUWSException ce) {
@@ -294,6 +571,36 @@ public final class RemoteExecutionMode implements OImagingExecutionMode {
         return result;
     }
 
+    /**
+     * Show the download progress in the status bar (at most every 500 ms)
+     */
+    private static final class StatusDownloadListener implements DownloadListener {
+
+        /** minimum delay between status updates in milliseconds */
+        private static final long UPDATE_DELAY = 500L;
+
+        private final String name;
+        private long lastUpdate = 0L;
+
+        StatusDownloadListener(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void progress(final String url, final long bytes, final long total) {
+            final long now = System.currentTimeMillis();
+            if (now - lastUpdate >= UPDATE_DELAY || bytes == total) {
+                lastUpdate = now;
+                StatusBar.show("Downloading " + name + ": " + toMB(bytes)
+                        + ((total > 0L) ? (" / " + toMB(total) + " MB (" + (100L * bytes / total) + "%)") : " MB"));
+            }
+        }
+
+        private static String toMB(final long bytes) {
+            return String.format("%.1f", bytes / (1024.0 * 1024.0));
+        }
+    }
+
     private static Throwable getRootCause(final Throwable th) {
         Throwable parent = th;
         while (parent.getCause() != null) {
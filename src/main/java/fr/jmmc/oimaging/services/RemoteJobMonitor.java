@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import fr.cnes.sitools.extensions.astro.application.uws.client.ClientUWS;
+import fr.cnes.sitools.extensions.astro.application.uws.client.ClientUWSException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import net.ivoa.xml.uws.v1.ExecutionPhase;
+import net.ivoa.xml.uws.v1.Jobs;
+import net.ivoa.xml.uws.v1.ShortJobDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared monitor of all in-flight jobs on one UWS endpoint:
+ * the job list is fetched once per tick (getJobs) to update the phase of every registered job
+ * and waiting workers are woken up when their job phase changes.
+ * Jobs missing in the job list (owner filtering ?) are queried individually but only once every few ticks.
+ * @author bourgesl
+ */
+public final class RemoteJobMonitor {
+
+    /** Class logger */
+    private static final Logger _logger = LoggerFactory.getLogger(RemoteJobMonitor.class.getName());
+    /** default tick period in milliseconds */
+    public static final long DEFAULT_TICK = 500L;
+    /** number of ticks between individual queries of a job missing in the job list */
+    private static final int MISSING_QUERY_TICKS = 10;
+
+    /* members */
+    /** UWS client */
+    private final ClientUWS client;
+    /** tick period in milliseconds */
+    private final long tick;
+    /** job phases keyed by job id (guarded by this) */
+    private final Map<String, ExecutionPhase> phases = new HashMap<String, ExecutionPhase>();
+    /** timer */
+    private final ScheduledExecutorService timer;
+    /** running poll task (guarded by this) */
+    private ScheduledFuture<?> pollTask = null;
+    /** shutdown flag (guarded by this) */
+    private boolean shutdown = false;
+    /** ticks elapsed since the last individual query of jobs missing in the job list (poll thread only) */
+    private final Map<String, Integer> missingTicks = new HashMap<String, Integer>();
+
+    /**
+     * Create a new monitor for the given UWS client
+     * @param client UWS client
+     * @param tick tick period in milliseconds
+     */
+    public RemoteJobMonitor(final ClientUWS client, final long tick) {
+        this.client = client;
+        this.tick = tick;
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "RemoteJobMonitor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Register the given job to monitor
+     * @param jobId job identifier
+     * @param phase current phase
+     * @return true if registered, false if this monitor is shut down
+     */
+    public synchronized boolean register(final String jobId, final ExecutionPhase phase) {
+        if (shutdown) {
+            return false;
+        }
+        phases.put(jobId, phase);
+        if (pollTask == null) {
+            _logger.debug("start polling");
+            pollTask = timer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    poll();
+                }
+            }, tick, tick, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Unregister the given job
+     * @param jobId job identifier
+     */
+    public synchronized void unregister(final String jobId) {
+        phases.remove(jobId);
+        if (phases.isEmpty() && pollTask != null) {
+            _logger.debug("stop polling");
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+    }
+
+    /**
+     * Stop polling and release the timer thread: waiting workers are woken up
+     * and must use another way to get their job phase (see isShutdown)
+     */
+    public synchronized void shutdown() {
+        if (!shutdown) {
+            _logger.debug("shutdown");
+            shutdown = true;
+            if (pollTask != null) {
+                pollTask.cancel(false);
+                pollTask = null;
+            }
+            timer.shutdownNow();
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return true if this monitor is shut down
+     */
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Return the number of monitored jobs
+     * @return number of monitored jobs
+     */
+    public synchronized int getJobCount() {
+        return phases.size();
+    }
+
+    /**
+     * Wait until the phase of the given (registered) job differs from the given phase or the timeout expires
+     * @param jobId job identifier
+     * @param phase current phase
+     * @param timeout maximum time to wait in milliseconds
+     * @return current phase (given phase if this monitor is shut down)
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public synchronized ExecutionPhase waitPhaseChange(final String jobId, final ExecutionPhase phase, final long timeout) throws InterruptedException {
+        final long end = System.currentTimeMillis() + timeout;
+
+        ExecutionPhase current = phases.get(jobId);
+        long remaining = timeout;
+
+        while (current == phase && remaining > 0L && !shutdown) {
+            wait(remaining);
+            current = phases.get(jobId);
+            remaining = end - System.currentTimeMillis();
+        }
+        return (current != null) ? current : phase;
+    }
+
+    /**
+     * Poll the job list (one request) and update the phase of all registered jobs
+     */
+    void poll() {
+        final Set<String> jobIds;
+        synchronized (this) {
+            if (phases.isEmpty()) {
+                return;
+            }
+            jobIds = new HashSet<String>(phases.keySet());
+        }
+        // forget unregistered jobs:
+        missingTicks.keySet().retainAll(jobIds);
+
+        final Map<String, ExecutionPhase> updates = new HashMap<String, ExecutionPhase>(jobIds.size());
+        try {
+            final Jobs jobs = client.getJobs();
+
+            for (ShortJobDescription job : jobs.getJobref()) {
+                if (jobIds.contains(job.getId()) && job.getPhase() != null) {
+                    updates.put(job.getId(), job.getPhase());
+                }
+            }
+            // jobs missing in the job list (owner filtering ?): query them individually every few ticks
+            for (String jobId : jobIds) {
+                if (updates.containsKey(jobId)) {
+                    missingTicks.remove(jobId);
+                } else {
+                    final Integer ticks = missingTicks.get(jobId);
+                    if (ticks == null || ticks.intValue() >= MISSING_QUERY_TICKS) {
+                        missingTicks.put(jobId, Integer.valueOf(1));
+                        updates.put(jobId, client.getJobPhase(jobId));
+                    } else {
+                        missingTicks.put(jobId, Integer.valueOf(ticks.intValue() + 1));
+                    }
+                }
+            }
+        } catch (ClientUWSException cue) {
+            _logger.warn("Unable to get the job list: ", cue);
+        } catch (RuntimeException re) {
+            // do not kill the timer:
+            _logger.warn("Unable to get the job list: ", re);
+        }
+
+        if (!updates.isEmpty()) {
+            synchronized (this) {
+                for (Map.Entry<String, ExecutionPhase> e : updates.entrySet()) {
+                    // ignore unregistered jobs:
+                    if (phases.containsKey(e.getKey())) {
+                        phases.put(e.getKey(), e.getValue());
+                    }
+                }
+                notifyAll();
+            }
+            _logger.debug("poll: {}", updates);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import fr.jmmc.oimaging.Preferences;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of the loaded result OIFits files (thread-safe) bounded by a memory budget (preference):
+ * least recently used results are unloaded (their metadata remain available) and reloaded from disk on demand.
+ * @author bourgesl
+ */
+public final class ResultCache {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+    /** loaded data size relative to the file size (float data converted to double arrays) */
+    private static final int SIZE_FACTOR = 2;
+    /** singleton */
+    private static final ResultCache INSTANCE = new ResultCache();
+
+    /**
+     * Return the singleton
+     * @return singleton
+     */
+    public static ResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /* members */
+    /** loaded results in access order with their estimated size in bytes (guarded by this) */
+    private final LinkedHashMap<ServiceResult, Long> entries = new LinkedHashMap<ServiceResult, Long>(64, 0.75f, true);
+    /** total estimated size in bytes (guarded by this) */
+    private long totalSize = 0L;
+
+    /**
+     * Private constructor
+     */
+    private ResultCache() {
+        super();
+    }
+
+    /**
+     * Register the given loaded result and unload the least recently used results exceeding the memory budget
+     * (the given result is never unloaded)
+     * @param result loaded result
+     */
+    synchronized void put(final ServiceResult result) {
+        final long size = SIZE_FACTOR * result.getOifitsResultFile().length();
+
+        final Long previous = entries.put(result, Long.valueOf(size));
+        if (previous != null) {
+            totalSize -= previous.longValue();
+        }
+        totalSize += size;
+
+        final long budget = getBudget();
+
+        for (Iterator<Map.Entry<ServiceResult, Long>> it = entries.entrySet().iterator(); (totalSize > budget) && it.hasNext();) {
+            final Map.Entry<ServiceResult, Long> e = it.next();
+            if (e.getKey() != result) {
+                it.remove();
+                totalSize -= e.getValue().longValue();
+                e.getKey().unloadOIFitsFile();
+
+                logger.debug("put: unloaded {}", e.getKey().getOifitsResultFile());
+            }
+        }
+        logger.debug("put: {} results loaded ({} / {} bytes)", entries.size(), totalSize, budget);
+    }
+
+    /**
+     * Mark the given result as recently used
+     * @param result loaded result
+     */
+    synchronized void touch(final ServiceResult result) {
+        entries.get(result);
+    }
+
+    /**
+     * Forget the given result (removed result)
+     * @param result result
+     */
+    public synchronized void remove(final ServiceResult result) {
+        final Long size = entries.remove(result);
+        if (size != null) {
+            totalSize -= size.longValue();
+        }
+    }
+
+    /**
+     * @return number of loaded results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return memory budget in bytes
+     */
+    private static long getBudget() {
+        return 1024L * 1024L * Preferences.getInstance().getPreferenceAsInt(Preferences.RESULT_CACHE_MEMORY);
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import fr.jmmc.jmcs.gui.util.SwingUtils;
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background post-processing of finished job results: the execution log is loaded (convergence parsed),
+ * the result OIFits file is loaded (metadata extracted) and its images prepared by worker threads,
+ * then only the model insertion is performed by the Swing EDT.
+ * @author bourgesl
+ */
+public final class ResultIngestor {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ResultIngestor.class);
+    /** idle worker timeout in seconds */
+    private static final long KEEP_ALIVE_TIME = 60L;
+    /** singleton */
+    private static final ResultIngestor INSTANCE = new ResultIngestor();
+
+    /**
+     * Return the singleton
+     * @return singleton
+     */
+    public static ResultIngestor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Callback invoked by the Swing EDT once the result is ready
+     */
+    public interface IngestionListener {
+
+        /**
+         * The result is ingested (log and OIFits loaded if possible, see ServiceResult)
+         * @param result ingested result
+         */
+        public void resultReady(final ServiceResult result);
+    }
+
+    /* members */
+    /** thread pool executor */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Private constructor
+     */
+    private ResultIngestor() {
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new IngestorThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Ingest the given result in background then notify the given listener using the Swing EDT
+     * @param result finished job result
+     * @param listener listener notified by the Swing EDT
+     */
+    public void ingest(final ServiceResult result, final IngestionListener listener) {
+        logger.debug("ingest: {}", result.getOifitsResultFile());
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                prepare(result);
+
+                SwingUtils.invokeLaterEDT(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.resultReady(result);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Run the given task in background then the given callback using the Swing EDT
+     * @param task task to run by a worker thread
+     * @param callback callback run by the Swing EDT once the task is done
+     */
+    public void execute(final Runnable task, final Runnable callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (RuntimeException re) {
+                    logger.error("Background task failure", re);
+                }
+                SwingUtils.invokeLaterEDT(callback);
+            }
+        });
+    }
+
+    /**
+     * Load the execution log and the result OIFits file (images prepared) of the given result
+     * @param result result to prepare
+     */
+    static void prepare(final ServiceResult result) {
+        final long start = System.nanoTime();
+        try {
+            result.loadExecutionLogFile();
+        } catch (IOException ioe) {
+            logger.error("Can't read content of executionLog file ", ioe);
+        }
+        try {
+            result.loadOIFitsFile();
+        } catch (FitsException fe) {
+            logger.error("Can't get imageHDU from result oifile", fe);
+        } catch (IOException ioe) {
+            logger.error("Can't get imageHDU from result oifile", ioe);
+        }
+        logger.debug("prepare: {} ms for {}", 1e-6d * (System.nanoTime() - start), result.getOifitsResultFile());
+    }
+
+    /**
+     * Thread factory giving meaningful names to ingestion threads
+     */
+    private static final class IngestorThreadFactory implements ThreadFactory {
+
+        /** thread counter */
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "ResultIngestor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
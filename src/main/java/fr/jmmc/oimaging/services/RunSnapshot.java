@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the run configuration taken on the Swing EDT: jobs only consume this snapshot
+ * so the model can be modified (and other jobs queued) while they run.
+ * @author bourgesl
+ */
+public final class RunSnapshot {
+
+    /* members */
+    /** service to run */
+    private final Service service;
+    /** optional cliOptions (may be null) */
+    private final String cliOptions;
+    /** input parameter values (read-only) */
+    private final Map<String, Object> inputParams;
+    /** checksum of the selected input image (may be null) */
+    private final String imageChecksum;
+    /** revision of the OI data and selected image */
+    private final int dataRevision;
+    /** prepared input file (oifits written once, never modified) */
+    private final File inputFile;
+
+    /**
+     * Create a new snapshot
+     * @param service service to run
+     * @param cliOptions software options on command line or null
+     * @param inputParams input parameter values (copied)
+     * @param imageChecksum checksum of the selected input image or null
+     * @param dataRevision revision of the OI data and selected image
+     * @param inputFile oifits file that must be used by the service
+     */
+    public RunSnapshot(final Service service, final String cliOptions, final Map<String, Object> inputParams,
+                       final String imageChecksum, final int dataRevision, final File inputFile) {
+        if (service == null) {
+            throw new IllegalArgumentException("empty service !");
+        }
+        if (inputFile == null) {
+            throw new IllegalArgumentException("empty input file !");
+        }
+        this.service = service;
+        this.cliOptions = cliOptions;
+        this.inputParams = Collections.unmodifiableMap(new LinkedHashMap<String, Object>(inputParams));
+        this.imageChecksum = imageChecksum;
+        this.dataRevision = dataRevision;
+        this.inputFile = inputFile;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    public String getCliOptions() {
+        return cliOptions;
+    }
+
+    /**
+     * @return input parameter values (read-only)
+     */
+    public Map<String, Object> getInputParams() {
+        return inputParams;
+    }
+
+    public String getImageChecksum() {
+        return imageChecksum;
+    }
+
+    public int getDataRevision() {
+        return dataRevision;
+    }
+
+    public File getInputFile() {
+        return inputFile;
+    }
+
+    @Override
+    public String toString() {
+        return "RunSnapshot[" + service + " rev " + dataRevision + " image " + imageChecksum + "] " + inputParams;
+    }
+
+    /**
+     * Compute the checksum (SHA-256) of the given image HDU data (dimensions and pixel values of all images)
+     * @param imageHDU image HDU
+     * @return hexadecimal checksum or null if the given image HDU is null
+     */
+    public static String computeChecksum(final FitsImageHDU imageHDU) {
+        if (imageHDU == null) {
+            return null;
+        }
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 not supported", nsae);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        for (FitsImage image : imageHDU.getFitsImages()) {
+            final float[][] data = image.getData();
+
+            buffer.clear();
+            buffer.putInt(image.getNbRows()).putInt(image.getNbCols());
+            md.update(buffer.array(), 0, buffer.position());
+
+            if (data == null) {
+                continue;
+            }
+            for (float[] row : data) {
+                if (buffer.capacity() < 4 * row.length) {
+                    buffer = ByteBuffer.allocate(4 * row.length);
+                }
+                buffer.clear();
+                buffer.asFloatBuffer().put(row);
+                md.update(buffer.array(), 0, 4 * row.length);
+            }
+        }
+        return String.format("%064x", new BigInteger(1, md.digest()));
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import java.io.File;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One image reconstruction job: the service to run with its cli options and the prepared input file.
+ * Jobs are executed by the JobScheduler (in any thread).
+ * @author bourgesl
+ */
+public final class ServiceJob implements Callable<ServiceResult> {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ServiceJob.class);
+    /** job counter */
+    private static final AtomicInteger JOB_COUNTER = new AtomicInteger();
+
+    /* members */
+    /** job identifier (unique in the session) */
+    private final int id;
+    /** immutable run configuration */
+    private final RunSnapshot snapshot;
+    /** service to run */
+    private final Service service;
+    /** optional cliOptions (may be null) */
+    private final String cliOptions;
+    /** prepared input file (oifits) */
+    private final File inputFile;
+    /** live state (log lines, convergence) */
+    private final JobProgress progress;
+
+    /**
+     * Create a new job
+     * @param snapshot run configuration (immutable snapshot of the model)
+     */
+    public ServiceJob(final RunSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("empty snapshot !");
+        }
+        this.id = JOB_COUNTER.incrementAndGet();
+        this.snapshot = snapshot;
+        this.service = snapshot.getService();
+        this.cliOptions = snapshot.getCliOptions();
+        this.inputFile = snapshot.getInputFile();
+        this.progress = new JobProgress(inputFile.getName());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public RunSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    public String getCliOptions() {
+        return cliOptions;
+    }
+
+    public File getInputFile() {
+        return inputFile;
+    }
+
+    public JobProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Run the reconstruction using the service execution mode and wait for its completion.
+     * @return service result (never null)
+     * @throws IllegalStateException if the job can not be executed
+     */
+    @Override
+    public ServiceResult call() throws IllegalStateException {
+        logger.debug("Job[{}] start: {}", id, this);
+
+        ServiceResult result = null;
+        try {
+            boolean valid = false;
+
+            result = service.getExecMode().reconstructsImage(service.getProgram(), cliOptions, inputFile, progress);
+            result.setService(service);
+
+            if (result.getErrorMessage() == null) {
+                // Result is valid only if the OIFITS file was downloaded successfully:
+                valid = result.getOifitsResultFile().exists();
+                result.setValid(valid);
+
+                if (!valid) {
+                    result.setErrorMessage("No OIFits ouput (probably a server error occured) !");
+                }
+            }
+            return result;
+        } catch (IllegalStateException ise) {
+            logger.warn("Job[{}] exception: ", id, ise);
+            throw ise;
+        } finally {
+            if (result != null) {
+                result.setEndTime(new Date());
+            }
+            logger.debug("Job[{}] done: {}", id, result);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceJob[" + id + "] " + service + " on " + inputFile.getName();
+    }
+}
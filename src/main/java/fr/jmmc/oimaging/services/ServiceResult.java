@@ -4,19 +4,45 @@
 package fr.jmmc.oimaging.services;
 
 import fr.jmmc.jmcs.util.FileUtils;
+import fr.jmmc.jmcs.util.StringUtils;
+import fr.jmmc.oimaging.model.FitsImagePreparation;
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
 import fr.jmmc.oitools.model.OIFitsFile;
 import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.range.Range;
 import fr.nom.tam.fits.FitsException;
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Result container that gather multiple elements.
  * @author mellag
  */
 public final class ServiceResult {
-    
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(ServiceResult.class);
+
+    /**
+     * Source of result files not yet written on disk (session archive entries extracted on first access)
+     */
+    public interface ResultFileSource {
+
+        /**
+         * Write the given result file if this source provides it
+         * @param file result file to write
+         * @throws IOException if an I/O error occurs
+         */
+        public void extract(final File file) throws IOException;
+    }
+
     private final File inputFile;
     private final File oifitsResultFile;
     private final File executionLogResultFile;
@@ -26,6 +52,8 @@ public final class ServiceResult {
     private String errorMessage = null;
     private Date startTime;
     private Date endTime;
+    /** peak resident memory of the local process in bytes (-1 if unknown) */
+    private long peakMemory = -1L;
 
     // User appreciation attribute
     private int rating;
@@ -33,9 +61,33 @@ public final class ServiceResult {
     
     private Service service;
 
+    /** convergence series extracted from the execution log */
+    private final ConvergenceData convergence = new ConvergenceData();
+    /** convergence detected while running (plateau) or null if none */
+    private String convergedReason = null;
+
+    /** additional result files (intermediate images, convergence tables...) keyed by result id */
+    private final Map<String, File> additionalResultFiles = new LinkedHashMap<String, File>(4);
+
     // Post process cached data
-    private OIFitsFile oiFitsFile = null;
+    /** loaded result (unloaded by the ResultCache) */
+    private volatile OIFitsFile oiFitsFile = null;
+    /** error raised while preparing the result images (null if none) */
+    private volatile IllegalArgumentException imagePreparationError = null;
+    /** flag indicating that the metadata were extracted from the result */
+    private boolean hasMetadata = false;
+    /** target name (resident metadata) */
+    private String target = null;
+    /** wavelength range (resident metadata) */
+    private Range wavelengthRange = null;
+    /** regularization weight (resident metadata) */
+    private Double rglWgt = null;
+    /** data range of the first image (resident metadata) */
+    private double imageMin = Double.NaN;
+    private double imageMax = Double.NaN;
     private String executionLog = null;
+    /** source of the result files not extracted yet (null if none) */
+    private volatile ResultFileSource fileSource = null;
 
     /**
      * Helper constructor that created result files using given inputfile name.
@@ -55,6 +107,24 @@ public final class ServiceResult {
         init();
     }
     
+    /**
+     * Constructor for existing result files (session archive): result files are loaded lazily
+     * (loadOIFitsFile, loadExecutionLogFile).
+     * @param inputFile input file (may not exist)
+     * @param oifitsResultFile result file
+     * @param executionLogResultFile log file
+     */
+    public ServiceResult(final File inputFile, final File oifitsResultFile, final File executionLogResultFile) {
+        this.inputFile = inputFile;
+        this.oifitsResultFile = oifitsResultFile;
+        this.executionLogResultFile = executionLogResultFile;
+
+        this.rating = 0;
+        this.comments = "No comments";
+
+        init();
+    }
+
     private void init() {
         setStartTime(new Date());
     }
@@ -64,33 +134,247 @@ public final class ServiceResult {
     }
     
     public File getOifitsResultFile() {
-        return oifitsResultFile;
+        return getFile(oifitsResultFile);
+    }
+
+    /**
+     * Define the source of the result files not extracted yet: files are extracted on first access
+     * @param fileSource source of the result files
+     */
+    public void setFileSource(final ResultFileSource fileSource) {
+        this.fileSource = fileSource;
+    }
+
+    /**
+     * Return the given result file, extracted first if needed (see setFileSource)
+     * @param file result file
+     * @return given file
+     */
+    private File getFile(final File file) {
+        if ((fileSource != null) && (file != null)) {
+            synchronized (this) {
+                if (!file.exists()) {
+                    try {
+                        fileSource.extract(file);
+                    } catch (IOException ioe) {
+                        logger.warn("Unable to extract the result file: {}", file, ioe);
+                    }
+                }
+            }
+        }
+        return file;
     }
     
+    /**
+     * Create the file to store the additional result given by its identifier and href
+     * (next to the other result files)
+     * @param id result identifier
+     * @param href result url
+     * @return file to write
+     */
+    public File createAdditionalResultFile(final String id, final String href) {
+        final String ext = FileUtils.getExtension(href);
+        final File file = FileUtils.getTempFile(inputFile.getName() + '.' + StringUtils.replaceNonAlphaNumericCharsByUnderscore(id)
+                + ((ext != null) ? ('.' + ext) : ""));
+        synchronized (additionalResultFiles) {
+            additionalResultFiles.put(id, file);
+        }
+        return file;
+    }
+
+    /**
+     * Register an existing additional result file (session archive)
+     * @param id result identifier
+     * @param file result file (may be extracted on first access, see setFileSource)
+     */
+    public void addAdditionalResultFile(final String id, final File file) {
+        synchronized (additionalResultFiles) {
+            additionalResultFiles.put(id, file);
+        }
+    }
+
+    /**
+     * Return the additional result files keyed by result id (extracted first if needed)
+     * @return additional result files (copy)
+     */
+    public Map<String, File> getAdditionalResultFiles() {
+        final Map<String, File> files;
+        synchronized (additionalResultFiles) {
+            files = new LinkedHashMap<String, File>(additionalResultFiles);
+        }
+        for (File file : files.values()) {
+            getFile(file);
+        }
+        return files;
+    }
+
+    /**
+     * Load the result OIFits file if not loaded (or unloaded by the ResultCache)
+     * and prepare its images (negative values, padding, orientation).
+     * May be called by any thread (see ResultIngestor)
+     * @throws IOException if an I/O error occurs
+     * @throws FitsException if a FITS error occurs
+     */
     public void loadOIFitsFile() throws IOException, FitsException {
-        if ((oiFitsFile == null) && (oifitsResultFile != null) && oifitsResultFile.exists()) {
+        if (oiFitsFile != null) {
+            ResultCache.getInstance().touch(this);
+        } else if ((oifitsResultFile != null) && getOifitsResultFile().exists()) {
+            final OIFitsFile loaded;
             try {
-                oiFitsFile = OIFitsLoader.loadOIFits(oifitsResultFile.getAbsolutePath());
+                loaded = OIFitsLoader.loadOIFits(oifitsResultFile.getAbsolutePath());
             } catch (IOException | FitsException e) {
                 setValid(false);
                 throw e;
             }
+            try {
+                FitsImagePreparation.prepareAllImages(loaded.getFitsImageHDUs());
+                imagePreparationError = null;
+            } catch (IllegalArgumentException iae) {
+                logger.warn("Unable to prepare images from file '{}'", oifitsResultFile, iae);
+                imagePreparationError = iae;
+            }
+            if (!hasMetadata) {
+                extractMetadata(loaded);
+            }
+            oiFitsFile = loaded;
+            ResultCache.getInstance().put(this);
         }
     }
-    
+
+    /**
+     * @return error raised while preparing the images of the loaded result or null if none
+     */
+    public IllegalArgumentException getImagePreparationError() {
+        return imagePreparationError;
+    }
+
+    /**
+     * Release the loaded result OIFits file (reloaded on demand by loadOIFitsFile)
+     */
+    void unloadOIFitsFile() {
+        oiFitsFile = null;
+    }
+
+    /**
+     * Extract the resident metadata from the given OIFits file if not done yet
+     * (result opened without a full load, see MappedResult: the image range is only set if the file has images)
+     * @param oifitsFile OIFits file of this result
+     */
+    public void updateMetadata(final OIFitsFile oifitsFile) {
+        if (!hasMetadata) {
+            extractMetadata(oifitsFile);
+        }
+    }
+
+    private void extractMetadata(final OIFitsFile oifitsFile) {
+        if (oifitsFile.getImageOiData() != null) {
+            target = oifitsFile.getImageOiData().getInputParam().getTarget();
+            rglWgt = Double.valueOf(oifitsFile.getImageOiData().getInputParam().getRglWgt());
+        }
+        wavelengthRange = oifitsFile.getWavelengthRange();
+
+        final List<FitsImageHDU> imageHdus = oifitsFile.getFitsImageHDUs();
+        if (!imageHdus.isEmpty() && !imageHdus.get(0).getFitsImages().isEmpty()) {
+            final FitsImage image = imageHdus.get(0).getFitsImages().get(0);
+            imageMin = image.getDataMin();
+            imageMax = image.getDataMax();
+        }
+        hasMetadata = true;
+    }
+
+    /**
+     * @return true if the metadata (target, wavelength range, RGL_WGT) are known
+     */
+    public boolean hasMetadata() {
+        return hasMetadata;
+    }
+
+    /**
+     * Define the metadata known without loading the result (session index)
+     * @param target target name
+     * @param wavelengthRange wavelength range or null
+     * @param rglWgt regularization weight or null
+     */
+    public void setMetadata(final String target, final Range wavelengthRange, final Double rglWgt) {
+        this.target = target;
+        this.wavelengthRange = wavelengthRange;
+        this.rglWgt = rglWgt;
+        this.hasMetadata = true;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public Range getWavelengthRange() {
+        return wavelengthRange;
+    }
+
+    public Double getRglWgt() {
+        return rglWgt;
+    }
+
+    /**
+     * @return minimum value of the first image (NaN if unknown)
+     */
+    public double getImageMin() {
+        return imageMin;
+    }
+
+    /**
+     * @return maximum value of the first image (NaN if unknown)
+     */
+    public double getImageMax() {
+        return imageMax;
+    }
+
+    /**
+     * Define the data range of the first image (metadata read without loading the result)
+     * @param min minimum value
+     * @param max maximum value
+     */
+    public void setImageRange(final double min, final double max) {
+        this.imageMin = min;
+        this.imageMax = max;
+    }
+
+    /**
+     * Return the loaded result OIFits file
+     * @return loaded result OIFits file or null if not loaded (see loadOIFitsFile)
+     */
     public OIFitsFile getOifitsFile() {
         return oiFitsFile;
     }
     
     public File getExecutionLogResultFile() {
-        return executionLogResultFile;
+        return getFile(executionLogResultFile);
     }
     
     public void loadExecutionLogFile() throws IOException {
-        if ((executionLog == null) && (executionLogResultFile != null) && executionLogResultFile.exists()) {
+        if ((executionLog == null) && (executionLogResultFile != null) && getExecutionLogResultFile().exists()) {
             executionLog = FileUtils.readFile(executionLogResultFile.getAbsoluteFile());
+
+            // log not parsed while running:
+            if ((convergence.size() == 0) && (service != null)) {
+                ConvergenceParser.forSoftware(service.getProgram()).parseText(executionLog, convergence);
+            }
         }
     }
+
+    public ConvergenceData getConvergence() {
+        return convergence;
+    }
+
+    /**
+     * @return convergence detected while running (plateau) or null if none
+     */
+    public String getConvergedReason() {
+        return convergedReason;
+    }
+
+    public void setConvergedReason(String convergedReason) {
+        this.convergedReason = convergedReason;
+    }
     
     public String getExecutionLog() {
         return executionLog;
@@ -144,6 +428,14 @@ public final class ServiceResult {
         this.endTime = endTime;
     }
     
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+    
+    public void setPeakMemory(long peakMemory) {
+        this.peakMemory = peakMemory;
+    }
+    
     public Service getService() {
         return service;
     }
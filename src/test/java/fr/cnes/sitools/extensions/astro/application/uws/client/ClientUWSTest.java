@@ -5,9 +5,13 @@ package fr.cnes.sitools.extensions.astro.application.uws.client;
 
 import fr.jmmc.oimaging.services.RemoteExecutionMode;
 import java.io.File;
+import net.ivoa.xml.uws.v1.ExecutionPhase;
 import net.ivoa.xml.uws.v1.Jobs;
+import net.ivoa.xml.uws.v1.ResultReference;
+import net.ivoa.xml.uws.v1.Results;
 import org.junit.After;
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -26,19 +30,23 @@ public class ClientUWSTest {
 
     protected static final org.slf4j.Logger logger = LoggerFactory.getLogger(ClientUWSTest.class.getName());
 
+    static UWSStubServer server;
     static ClientUWS instance;
 
     public ClientUWSTest() {
     }
 
     @BeforeClass
-    public static void setUpClass() {
-        instance = new ClientUWS("http://127.0.0.1:8080/OImaging-uws/", RemoteExecutionMode.SERVICE_PATH);
+    public static void setUpClass() throws Exception {
+        // local stub server (no real UWS server needed):
+        server = new UWSStubServer();
+        server.start();
+        instance = new ClientUWS(server.getServerURL(), RemoteExecutionMode.SERVICE_PATH);
     }
 
     @AfterClass
-    public static void tearDownClass() {
-
+    public static void tearDownClass() throws Exception {
+        server.stop();
     }
 
     @Before
@@ -53,7 +61,9 @@ public class ClientUWSTest {
 
     @Test
     public void testMain() throws Exception {
-        File inputFile = new File("src/test/resources/Bin_Ary--MIRC_H_with_img.fits");
+        server.setJobDuration(500L);
+
+        File inputFile = new File("test/2004-FKV1137-L1L2-example.fits");
 
         logger.info("submit input file : " + inputFile.getAbsolutePath());
 
@@ -82,5 +92,52 @@ public class ClientUWSTest {
         // List jobs
         Jobs result = instance.getJobs();
         System.out.println("result = " + result.getJobref());
+        Assert.assertFalse(result.getJobref().isEmpty());
+
+        // Wait for completion
+        ExecutionPhase phase = ExecutionPhase.EXECUTING;
+        while (phase == ExecutionPhase.EXECUTING) {
+            phase = instance.waitJobPhase(jobId, phase, 2);
+        }
+        Assert.assertEquals(ExecutionPhase.COMPLETED, phase);
+
+        // Download results: the stub output file echoes the input file
+        final Results results = instance.getJobResults(jobId);
+        boolean output = false;
+        for (ResultReference ref : results.getResult()) {
+            final File file = File.createTempFile("ClientUWSTest-" + ref.getId(), ".tmp");
+            try {
+                Assert.assertTrue(instance.downloadFile(ref.getHref(), file));
+                if ("outputfile".equals(ref.getId())) {
+                    Assert.assertEquals(inputFile.length(), file.length());
+                    output = true;
+                }
+            } finally {
+                file.delete();
+            }
+        }
+        Assert.assertTrue("missing outputfile", output);
+
+        instance.deleteJobInfo(jobId);
+        Assert.assertEquals(0, server.getJobCount());
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        server.setJobDuration(10000L);
+
+        final FormDataSet fds = new FormDataSet();
+        fds.setMultipart(true);
+        fds.add("PHASE", "RUN");
+        fds.getEntries().add(new FormData("inputfile", new FileRepresentation(new File("test/2004-FKV1137-L1L2-example.fits"), MediaType.ALL)));
+
+        final String jobId = instance.createJob(fds);
+        Assert.assertEquals(ExecutionPhase.EXECUTING, instance.getJobPhase(jobId));
+
+        instance.setAbortJob(jobId);
+        Assert.assertEquals(ExecutionPhase.ABORTED, instance.getJobPhase(jobId));
+        Assert.assertTrue(instance.getJobResults(jobId).getResult().isEmpty());
+
+        instance.deleteJobInfo(jobId);
     }
 }
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.cnes.sitools.extensions.astro.application.uws.client;
+
+import fr.jmmc.oimaging.model.InputFileParts;
+import fr.jmmc.oimaging.model.OIFitsExportCache;
+import fr.jmmc.oimaging.services.RemoteExecutionMode;
+import fr.jmmc.oimaging.services.ServiceResult;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.image.ImageOiInputParam;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Test the content-addressed input upload (blob store) of ClientUWS against the local stub server
+ * @author bourgesl
+ */
+public class ClientUWSUploadTest {
+
+    protected static final org.slf4j.Logger logger = LoggerFactory.getLogger(ClientUWSUploadTest.class.getName());
+
+    static UWSStubServer server;
+    static File inputFile;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        server = new UWSStubServer();
+        server.start();
+
+        inputFile = File.createTempFile("ClientUWSUploadTest", ".fits");
+        inputFile.deleteOnExit();
+        writeRandom(inputFile, 1024 * 1024);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() {
+        server.setBlobSupported(true);
+        server.clearBlobs();
+    }
+
+    private static void writeRandom(final File file, final int size) throws IOException {
+        final byte[] data = new byte[size];
+        new Random(42L).nextBytes(data);
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testComputeHash() throws Exception {
+        final String hash = ClientUWS.computeHash(inputFile);
+        Assert.assertEquals(64, hash.length());
+        Assert.assertEquals(hash, ClientUWS.computeHash(inputFile));
+    }
+
+    @Test
+    public void testUploadOnce() throws Exception {
+        final String hash = ClientUWS.computeHash(inputFile);
+        final int uploads = server.getBlobUploadCount();
+
+        // first client: upload
+        final ClientUWS client = new ClientUWS(server.getServerURL(), RemoteExecutionMode.SERVICE_PATH);
+        Assert.assertTrue(client.putBlobIfAbsent(inputFile, hash));
+        Assert.assertEquals(uploads + 1, server.getBlobUploadCount());
+
+        // same client: local cache (no request)
+        server.resetRequestCount();
+        Assert.assertTrue(client.putBlobIfAbsent(inputFile, hash));
+        Assert.assertEquals(0, server.getRequestCount());
+
+        // another client: HEAD only
+        final ClientUWS other = new ClientUWS(server.getServerURL(), RemoteExecutionMode.SERVICE_PATH);
+        Assert.assertTrue(other.putBlobIfAbsent(inputFile, hash));
+        Assert.assertEquals(uploads + 1, server.getBlobUploadCount());
+    }
+
+    @Test
+    public void testBlobNotSupported() throws Exception {
+        server.setBlobSupported(false);
+
+        final ClientUWS client = new ClientUWS(server.getServerURL(), RemoteExecutionMode.SERVICE_PATH);
+        Assert.assertFalse(client.putBlobIfAbsent(inputFile, ClientUWS.computeHash(inputFile)));
+    }
+
+    @Test
+    public void testStubOutputFile() throws Exception {
+        final File example = new File("test/2004-FKV1137-L1L2-example.fits");
+        final File file = File.createTempFile("ClientUWSUploadTest-output", ".fits");
+        file.deleteOnExit();
+        Files.write(file.toPath(), UWSStubServer.createOutput(Files.readAllBytes(example.toPath())));
+
+        // OI data and input params echoed, result image appended:
+        final OIFitsFile input = OIFitsLoader.loadOIFits(example.getAbsolutePath());
+        final OIFitsFile output = OIFitsLoader.loadOIFits(file.getAbsolutePath());
+        Assert.assertEquals(input.hasOiVis2(), output.hasOiVis2());
+        Assert.assertEquals(input.getImageOiData().getInputParam().getMaxiter(), output.getImageOiData().getInputParam().getMaxiter());
+
+        final List<FitsImageHDU> imageHdus = output.getFitsImageHDUs();
+        Assert.assertEquals(input.getFitsImageHDUs().size() + 1, imageHdus.size());
+        Assert.assertEquals(UWSStubServer.RESULT_IMAGE_NAME, imageHdus.get(imageHdus.size() - 1).getHduName());
+    }
+
+    @Test
+    public void testSweepUploadsOnce() throws Exception {
+        server.setJobDuration(0L);
+
+        // sweep inputs: same OI data, only the input params differ (spliced exports):
+        final OIFitsFile oifitsFile = OIFitsLoader.loadOIFits("test/2004-FKV1137-L1L2-example.fits");
+        final ImageOiInputParam params = oifitsFile.getImageOiData().getInputParam();
+        final OIFitsExportCache exportCache = new OIFitsExportCache();
+
+        final List<File> sweepFiles = new ArrayList<File>(5);
+        String dataHash = null;
+        for (int i = 0; i < 5; i++) {
+            params.updateKeyword("MAXITER", Integer.toString(50 + 10 * i));
+
+            final File file = File.createTempFile("ClientUWSUploadTest-sweep-" + i, ".fits");
+            file.deleteOnExit();
+            exportCache.export(oifitsFile, 1, file);
+            sweepFiles.add(file);
+
+            final InputFileParts parts = InputFileParts.index(file);
+            Assert.assertTrue(parts.hasInputParam());
+            if (dataHash == null) {
+                dataHash = parts.computeDataHash();
+            } else {
+                // different files, same data part:
+                Assert.assertNotEquals(ClientUWS.computeHash(sweepFiles.get(0)), ClientUWS.computeHash(file));
+                Assert.assertEquals(dataHash, parts.computeDataHash());
+            }
+        }
+
+        System.setProperty(RemoteExecutionMode.SERVER_URL_PROPERTY, server.getServerURL());
+        RemoteExecutionMode.resetClient();
+        try {
+            final int fileUploads = server.getFileUploadCount();
+            final int uploads = server.getBlobUploadCount();
+
+            for (File file : sweepFiles) {
+                final ServiceResult result = RemoteExecutionMode.INSTANCE.reconstructsImage("BSMEM", null, file);
+                try {
+                    Assert.assertNull(result.getErrorMessage());
+                    // the stub output file echoes the input file rebuilt from the blob and the input params:
+                    Assert.assertArrayEquals(UWSStubServer.createOutput(Files.readAllBytes(file.toPath())),
+                            Files.readAllBytes(result.getOifitsResultFile().toPath()));
+                } finally {
+                    result.getOifitsResultFile().delete();
+                    result.getExecutionLogResultFile().delete();
+                }
+            }
+            Assert.assertEquals(uploads + 1, server.getBlobUploadCount());
+            Assert.assertEquals(fileUploads, server.getFileUploadCount());
+        } finally {
+            System.clearProperty(RemoteExecutionMode.SERVER_URL_PROPERTY);
+            RemoteExecutionMode.resetClient();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.cnes.sitools.extensions.astro.application.uws.client;
+
+import fr.jmmc.oimaging.services.RemoteExecutionMode;
+import net.ivoa.xml.uws.v1.ExecutionPhase;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.restlet.data.Form;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Test the UWS 1.1 blocking WAIT support of ClientUWS against the local stub server
+ * @author bourgesl
+ */
+public class ClientUWSWaitTest {
+
+    protected static final org.slf4j.Logger logger = LoggerFactory.getLogger(ClientUWSWaitTest.class.getName());
+
+    static UWSStubServer server;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        server = new UWSStubServer();
+        server.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        server.stop();
+    }
+
+    private static String createJob(final ClientUWS client) throws ClientUWSException {
+        final Form form = new Form();
+        form.add("PHASE", "RUN");
+        return client.createJob(form);
+    }
+
+    @Test
+    public void testBlockingWait() throws Exception {
+        server.setWaitSupported(true);
+        server.setJobDuration(3000L);
+
+        final ClientUWS client = new ClientUWS(server.getServerURL(), RemoteExecutionMode.SERVICE_PATH);
+        final String jobId = createJob(client);
+
+        server.resetRequestCount();
+        final long start = System.nanoTime();
+
+        // first request blocks during the wait duration (job still executing):
+        ExecutionPhase phase = client.waitJobPhase(jobId, ExecutionPhase.EXECUTING, 2);
+        Assert.assertEquals(ExecutionPhase.EXECUTING, phase);
+        Assert.assertEquals(Boolean.TRUE, client.isWaitSupported());
+
+        // second request returns as soon as the job completes:
+        phase = client.waitJobPhase(jobId, phase, 2);
+        final long elapsed = (System.nanoTime() - start) / 1000000L;
+
+        logger.info("testBlockingWait: {} in {} ms ({} requests)", phase, elapsed, server.getRequestCount());
+
+        Assert.assertEquals(ExecutionPhase.COMPLETED, phase);
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertTrue("completion detected late: " + elapsed + " ms", elapsed < 3500L);
+
+        client.deleteJobInfo(jobId);
+    }
+
+    @Test
+    public void testWaitNotSupported() throws Exception {
+        server.setWaitSupported(false);
+        server.setJobDuration(10000L);
+
+        final ClientUWS client = new ClientUWS(server.getServerURL(), RemoteExecutionMode.SERVICE_PATH);
+        final String jobId = createJob(client);
+
+        Assert.assertNull(client.isWaitSupported());
+
+        final long start = System.nanoTime();
+
+        // UWS 1.0 server: requests return immediately:
+        Assert.assertEquals(ExecutionPhase.EXECUTING, client.waitJobPhase(jobId, ExecutionPhase.EXECUTING, 5));
+        Assert.assertEquals(ExecutionPhase.EXECUTING, client.waitJobPhase(jobId, ExecutionPhase.EXECUTING, 5));
+
+        final long elapsed = (System.nanoTime() - start) / 1000000L;
+        logger.info("testWaitNotSupported: {} ms", elapsed);
+
+        Assert.assertEquals(Boolean.FALSE, client.isWaitSupported());
+        Assert.assertTrue(elapsed < 2500L);
+
+        client.deleteJobInfo(jobId);
+    }
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.cnes.sitools.extensions.astro.application.uws.client;
+
+import fr.jmmc.jmcs.util.FileUtils;
+import fr.jmmc.oimaging.services.RemoteExecutionMode;
+import fr.jmmc.oimaging.services.ServiceResult;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load test of RemoteExecutionMode (job creation, polling and result downloads) with many concurrent jobs
+ * against the local stub server with latency and failure injection (offline).
+ * Use -Duws.load.jobs=n (default 200) and -Duws.load.latency=ms (default 20) to adjust the load.
+ * @author bourgesl
+ */
+public class RemoteExecutionModeLoadTest {
+
+    protected static final org.slf4j.Logger logger = LoggerFactory.getLogger(RemoteExecutionModeLoadTest.class.getName());
+
+    /** number of concurrent jobs */
+    private static final int JOBS = Integer.getInteger("uws.load.jobs", 200);
+    /** server latency in milliseconds */
+    private static final long LATENCY = Long.getLong("uws.load.latency", 20L);
+    /** stub job duration in milliseconds */
+    private static final long JOB_DURATION = 500L;
+    /** maximum test duration in seconds */
+    private static final long TIMEOUT = 300L;
+
+    static UWSStubServer server;
+    static List<File> inputFiles;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        server = new UWSStubServer();
+        server.start();
+
+        System.setProperty(RemoteExecutionMode.SERVER_URL_PROPERTY, server.getServerURL());
+        RemoteExecutionMode.resetClient();
+
+        // one input file per job (result files are named after the input file):
+        final File example = new File("test/2004-FKV1137-L1L2-example.fits");
+        inputFiles = new ArrayList<File>(JOBS);
+        for (int i = 0; i < JOBS; i++) {
+            final File file = FileUtils.getTempFile("load-" + i + ".fits");
+            Files.copy(example.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            inputFiles.add(file);
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        System.clearProperty(RemoteExecutionMode.SERVER_URL_PROPERTY);
+        RemoteExecutionMode.resetClient();
+
+        server.stop();
+
+        for (File file : inputFiles) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testConcurrentJobs() throws Exception {
+        server.setLatency(LATENCY);
+        server.setJobDuration(JOB_DURATION);
+        server.setFailureEvery(0);
+        server.setJobErrorEvery(0);
+
+        // jobs left by injected failures (delete request failed):
+        final int leftJobs = server.getJobCount();
+
+        final Outcome outcome = run("testConcurrentJobs");
+
+        Assert.assertEquals(JOBS, outcome.completed);
+        // every job deleted:
+        Assert.assertEquals(leftJobs, server.getJobCount());
+
+        // identical inputs: concurrent jobs may upload the same blob before it is stored
+        logger.info("testConcurrentJobs: {} blob uploads, {} file uploads", server.getBlobUploadCount(), server.getFileUploadCount());
+    }
+
+    @Test
+    public void testInjectedFailures() throws Exception {
+        server.setLatency(LATENCY);
+        server.setJobDuration(JOB_DURATION);
+        server.setFailureEvery(50);
+        server.setJobErrorEvery(10);
+
+        try {
+            final Outcome outcome = run("testInjectedFailures");
+
+            // every job ends (no hang) either completed, in error or failed:
+            Assert.assertEquals(JOBS, outcome.completed + outcome.errors + outcome.failures);
+            Assert.assertTrue(outcome.errors + outcome.failures != 0);
+        } finally {
+            server.setFailureEvery(0);
+            server.setJobErrorEvery(0);
+        }
+    }
+
+    /** job outcomes */
+    private static final class Outcome {
+
+        int completed = 0;
+        int errors = 0;
+        int failures = 0;
+    }
+
+    private static Outcome run(final String name) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(JOBS);
+        try {
+            final List<Callable<ServiceResult>> tasks = new ArrayList<Callable<ServiceResult>>(JOBS);
+            for (final File inputFile : inputFiles) {
+                tasks.add(new Callable<ServiceResult>() {
+                    @Override
+                    public ServiceResult call() {
+                        return RemoteExecutionMode.INSTANCE.reconstructsImage("BSMEM", null, inputFile);
+                    }
+                });
+            }
+            server.resetRequestCount();
+            final long start = System.nanoTime();
+
+            final List<Future<ServiceResult>> futures = executor.invokeAll(tasks, TIMEOUT, TimeUnit.SECONDS);
+
+            final long elapsed = (System.nanoTime() - start) / 1000000L;
+
+            final Outcome outcome = new Outcome();
+            for (int i = 0; i < futures.size(); i++) {
+                final Future<ServiceResult> future = futures.get(i);
+                Assert.assertFalse("job " + i + " timed out", future.isCancelled());
+                try {
+                    final ServiceResult result = future.get();
+                    if (result.getErrorMessage() != null) {
+                        outcome.errors++;
+                    } else {
+                        checkOutput(inputFiles.get(i), result);
+                        outcome.completed++;
+                    }
+                    result.getOifitsResultFile().delete();
+                    result.getExecutionLogResultFile().delete();
+                } catch (ExecutionException ee) {
+                    logger.debug("job {} failed", i, ee);
+                    outcome.failures++;
+                }
+            }
+            logger.info("{}: {} jobs in {} ms ({} requests, {} injected failures): {} completed, {} errors, {} failures",
+                    name, JOBS, elapsed, server.getRequestCount(), server.getFailureCount(),
+                    outcome.completed, outcome.errors, outcome.failures);
+            return outcome;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void checkOutput(final File inputFile, final ServiceResult result) throws IOException {
+        // the stub output file echoes the input file followed by the result image:
+        Assert.assertTrue(result.getOifitsResultFile().exists());
+        Assert.assertEquals(UWSStubServer.createOutput(Files.readAllBytes(inputFile.toPath())).length,
+                result.getOifitsResultFile().length());
+        Assert.assertTrue(result.getExecutionLogResultFile().exists());
+    }
+}
@@ -0,0 +1,640 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.cnes.sitools.extensions.astro.application.uws.client;
+
+import fr.jmmc.oimaging.services.RemoteExecutionMode;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import net.ivoa.xml.uws.v1.ErrorSummary;
+import net.ivoa.xml.uws.v1.ErrorType;
+import net.ivoa.xml.uws.v1.ExecutionPhase;
+import net.ivoa.xml.uws.v1.JobSummary;
+import net.ivoa.xml.uws.v1.Jobs;
+import net.ivoa.xml.uws.v1.ObjectFactory;
+import net.ivoa.xml.uws.v1.ResultReference;
+import net.ivoa.xml.uws.v1.Results;
+import net.ivoa.xml.uws.v1.ShortJobDescription;
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItemFactory;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.Form;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.ext.fileupload.RestletFileUpload;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal in-process UWS server (tests only): jobs are created in EXECUTING phase
+ * and complete after a configurable duration (fake reconstruction: the output file echoes the input file
+ * followed by a small result image and its IMAGE-OI OUTPUT PARAM HDU).
+ * Supports job list, phase, results, abort and delete, the UWS 1.1 blocking WAIT behaviour
+ * (may be disabled to mimic UWS 1.0 servers) and the content-addressed blob store (blobs/{sha256})
+ * used to skip input uploads.
+ * Latency and failures (every n-th request or job) may be injected to test the client behaviour.
+ * @author bourgesl
+ */
+public final class UWSStubServer extends Restlet {
+
+    /** logger */
+    private static final Logger logger = LoggerFactory.getLogger(UWSStubServer.class.getName());
+    /** root path */
+    public static final String ROOT_PATH = "/OImaging-uws/";
+    /** jobs path */
+    public static final String JOBS_PATH = ROOT_PATH + RemoteExecutionMode.SERVICE_PATH;
+    /** blob store path */
+    public static final String BLOBS_PATH = ROOT_PATH + "blobs/";
+    /** HDUNAME of the result image appended to the output file */
+    public static final String RESULT_IMAGE_NAME = "STUB-RESULT";
+    /** FITS block size */
+    private static final int FITS_BLOCK = 2880;
+    /** FITS card size */
+    private static final int FITS_CARD = 80;
+    /** result image size (pixels) */
+    private static final int RESULT_IMAGE_SIZE = 8;
+    /** IMAGE-OI output param extension name */
+    private static final String EXTNAME_OUTPUT_PARAM = "IMAGE-OI OUTPUT PARAM";
+
+    /** stub job */
+    private static final class StubJob {
+
+        final String id;
+        final long startTime;
+        final long duration;
+        /** input file content (may be null) */
+        final byte[] input;
+        /** output file content (null if no input) */
+        final byte[] output;
+        /** true if the job ends in ERROR phase */
+        final boolean failed;
+        /** true if the job was aborted */
+        volatile boolean aborted = false;
+
+        StubJob(final String id, final long duration, final byte[] input, final boolean failed) {
+            this.id = id;
+            this.startTime = System.currentTimeMillis();
+            this.duration = duration;
+            this.input = input;
+            this.output = (input != null) ? createOutput(input) : null;
+            this.failed = failed;
+        }
+
+        ExecutionPhase getPhase() {
+            if (aborted) {
+                return ExecutionPhase.ABORTED;
+            }
+            if (System.currentTimeMillis() - startTime < duration) {
+                return ExecutionPhase.EXECUTING;
+            }
+            return (failed) ? ExecutionPhase.ERROR : ExecutionPhase.COMPLETED;
+        }
+
+        String getLog() {
+            return "UWS stub reconstruction of job " + id + "\n"
+                    + "input: " + ((input != null) ? input.length : 0) + " bytes\n"
+                    + "phase: " + getPhase().value() + "\n";
+        }
+    }
+
+    /* members */
+    /** http server */
+    private final Server server;
+    /** jobs */
+    private final Map<String, StubJob> jobs = new ConcurrentHashMap<String, StubJob>();
+    /** job counter */
+    private final AtomicInteger jobCounter = new AtomicInteger();
+    /** request counter */
+    private final AtomicInteger requestCount = new AtomicInteger();
+    /** job duration in milliseconds */
+    private volatile long jobDuration = 1000L;
+    /** flag to support the blocking WAIT parameter */
+    private volatile boolean waitSupported = true;
+    /** flag to support the blob store */
+    private volatile boolean blobSupported = true;
+    /** stored blobs keyed by hash */
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<String, byte[]>();
+    /** number of blob uploads */
+    private final AtomicInteger blobUploadCount = new AtomicInteger();
+    /** number of jobs created with an uploaded input file */
+    private final AtomicInteger fileUploadCount = new AtomicInteger();
+    /** latency added to every request in milliseconds */
+    private volatile long latency = 0L;
+    /** fail every n-th job request (HTTP 503) or 0 to disable */
+    private volatile int failureEvery = 0;
+    /** counter of job requests (failure injection) */
+    private final AtomicInteger jobRequestCounter = new AtomicInteger();
+    /** number of injected request failures */
+    private final AtomicInteger failureCount = new AtomicInteger();
+    /** every n-th job ends in ERROR phase or 0 to disable */
+    private volatile int jobErrorEvery = 0;
+    /** number of aborted jobs */
+    private final AtomicInteger abortCount = new AtomicInteger();
+    /** JAXB context */
+    private final JAXBContext jaxbContext;
+
+    /**
+     * Create the stub server listening on a free local port
+     * @throws JAXBException if the JAXB context can not be created
+     */
+    public UWSStubServer() throws JAXBException {
+        super(new Context());
+        this.jaxbContext = JAXBContext.newInstance("net.ivoa.xml.uws.v1");
+        this.server = new Server(new Context(), Protocol.HTTP, 0, this);
+        // blocking WAIT requests hold one thread per running job:
+        this.server.getContext().getParameters().set("maxThreads", "512");
+        this.server.getContext().getParameters().set("maxQueued", "-1");
+    }
+
+    public void start() throws Exception {
+        server.start();
+        logger.info("UWS stub server started: {}", getServerURL());
+    }
+
+    @Override
+    public void stop() throws Exception {
+        server.stop();
+        super.stop();
+    }
+
+    /**
+     * @return server URL (UWS root)
+     */
+    public String getServerURL() {
+        return "http://127.0.0.1:" + server.getActualPort() + ROOT_PATH;
+    }
+
+    public void setJobDuration(final long jobDuration) {
+        this.jobDuration = jobDuration;
+    }
+
+    public void setWaitSupported(final boolean waitSupported) {
+        this.waitSupported = waitSupported;
+    }
+
+    public void setBlobSupported(final boolean blobSupported) {
+        this.blobSupported = blobSupported;
+    }
+
+    /**
+     * Define the latency added to every request
+     * @param latency latency in milliseconds
+     */
+    public void setLatency(final long latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Fail every n-th job request (HTTP 503 service unavailable)
+     * @param failureEvery n or 0 to disable
+     */
+    public void setFailureEvery(final int failureEvery) {
+        this.failureEvery = failureEvery;
+    }
+
+    /**
+     * End every n-th created job in ERROR phase
+     * @param jobErrorEvery n or 0 to disable
+     */
+    public void setJobErrorEvery(final int jobErrorEvery) {
+        this.jobErrorEvery = jobErrorEvery;
+    }
+
+    public int getFailureCount() {
+        return failureCount.get();
+    }
+
+    public int getAbortCount() {
+        return abortCount.get();
+    }
+
+    /**
+     * @return number of jobs not deleted
+     */
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    public void clearBlobs() {
+        blobs.clear();
+    }
+
+    public int getBlobUploadCount() {
+        return blobUploadCount.get();
+    }
+
+    public int getFileUploadCount() {
+        return fileUploadCount.get();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public void resetRequestCount() {
+        requestCount.set(0);
+    }
+
+    @Override
+    public void handle(final Request request, final Response response) {
+        super.handle(request, response);
+        requestCount.incrementAndGet();
+
+        final String path = request.getResourceRef().getPath();
+        final Method method = request.getMethod();
+
+        logger.debug("handle: {} {}", method, request.getResourceRef());
+
+        try {
+            if (latency != 0L) {
+                Thread.sleep(latency);
+            }
+            if (ROOT_PATH.equals(path)) {
+                response.setEntity("UWS stub server", MediaType.TEXT_PLAIN);
+                return;
+            }
+            if (path.startsWith(BLOBS_PATH)) {
+                handleBlob(path.substring(BLOBS_PATH.length()), request, response);
+                return;
+            }
+            if (path.startsWith(JOBS_PATH) && (failureEvery > 0) && (jobRequestCounter.incrementAndGet() % failureEvery == 0)) {
+                failureCount.incrementAndGet();
+                if (request.getEntity() != null) {
+                    request.getEntity().exhaust();
+                }
+                response.setStatus(Status.SERVER_ERROR_SERVICE_UNAVAILABLE, "injected failure");
+                return;
+            }
+            if (JOBS_PATH.equals(path)) {
+                if (Method.POST.equals(method)) {
+                    final byte[][] input = new byte[1][];
+                    if (!handleJobForm(request, response, input)) {
+                        return;
+                    }
+                    final int n = jobCounter.incrementAndGet();
+                    final String id = "job" + n;
+                    jobs.put(id, new StubJob(id, jobDuration, input[0], (jobErrorEvery > 0) && (n % jobErrorEvery == 0)));
+                    response.redirectSeeOther(request.getResourceRef().getHostIdentifier() + JOBS_PATH + '/' + id);
+                } else {
+                    handleJobList(response);
+                }
+                return;
+            }
+            if (path.startsWith(JOBS_PATH + '/')) {
+                final String[] parts = path.substring(JOBS_PATH.length() + 1).split("/");
+                final StubJob job = jobs.get(parts[0]);
+                if (job == null) {
+                    response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+                    return;
+                }
+                if (parts.length == 1) {
+                    if (Method.DELETE.equals(method)) {
+                        jobs.remove(job.id);
+                        response.redirectSeeOther(request.getResourceRef().getHostIdentifier() + JOBS_PATH);
+                        return;
+                    }
+                    handleJobSummary(job, request.getResourceRef().getQueryAsForm(), response);
+                    return;
+                }
+                if ("phase".equals(parts[1])) {
+                    if (Method.POST.equals(method)) {
+                        final Form form = new Form(request.getEntity());
+                        if ("ABORT".equals(form.getFirstValue("PHASE")) && job.getPhase() == ExecutionPhase.EXECUTING) {
+                            job.aborted = true;
+                            abortCount.incrementAndGet();
+                        }
+                        response.redirectSeeOther(request.getResourceRef().getHostIdentifier() + JOBS_PATH + '/' + job.id);
+                        return;
+                    }
+                    response.setEntity(job.getPhase().value(), MediaType.TEXT_PLAIN);
+                    return;
+                }
+                if ("results".equals(parts[1])) {
+                    handleResults(job, (parts.length > 2) ? parts[2] : null, request, response);
+                    return;
+                }
+            }
+            response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+        } catch (Exception e) {
+            logger.error("handle: failure", e);
+            response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
+        }
+    }
+
+    private void handleBlob(final String hash, final Request request, final Response response) throws Exception {
+        if (!blobSupported) {
+            response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+            return;
+        }
+        if (Method.HEAD.equals(request.getMethod()) || Method.GET.equals(request.getMethod())) {
+            response.setStatus(blobs.containsKey(hash) ? Status.SUCCESS_OK : Status.CLIENT_ERROR_NOT_FOUND);
+            return;
+        }
+        if (Method.PUT.equals(request.getMethod())) {
+            final MessageDigest md = MessageDigest.getInstance("SHA-256");
+            final ByteArrayOutputStream content = new ByteArrayOutputStream(64 * 1024);
+            final InputStream in = request.getEntity().getStream();
+            try {
+                final byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    md.update(buffer, 0, n);
+                    content.write(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+            final String actual = new BigInteger(1, md.digest()).toString(16);
+            // compare ignoring leading zeros:
+            if (!hash.replaceFirst("^0+", "").equals(actual)) {
+                response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST, "hash mismatch");
+                return;
+            }
+            blobs.put(hash, content.toByteArray());
+            blobUploadCount.incrementAndGet();
+            response.setStatus(Status.SUCCESS_CREATED);
+            return;
+        }
+        response.setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED);
+    }
+
+    /**
+     * Check the job form: either an uploaded input file or the hash of a stored blob (data part)
+     * with an optional input param HDU appended to it
+     * @param input array to store the input file content (null if none)
+     * @return true if valid
+     */
+    private boolean handleJobForm(final Request request, final Response response, final byte[][] input) throws Exception {
+        boolean hasInput = false;
+        byte[] params = null;
+
+        if (request.getEntity() != null) {
+            if (MediaType.MULTIPART_FORM_DATA.equals(request.getEntity().getMediaType(), true)) {
+                final List<FileItem> items = new RestletFileUpload(new DiskFileItemFactory()).parseRepresentation(request.getEntity());
+                for (FileItem item : items) {
+                    if ("inputfile".equals(item.getFieldName())) {
+                        fileUploadCount.incrementAndGet();
+                        input[0] = item.get();
+                        hasInput = true;
+                    } else if ("inputhash".equals(item.getFieldName())) {
+                        input[0] = blobs.get(item.getString());
+                        if (input[0] == null) {
+                            response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST, "unknown blob");
+                            return false;
+                        }
+                        hasInput = true;
+                    } else if ("inputparams".equals(item.getFieldName())) {
+                        params = item.get();
+                    }
+                }
+                if (hasInput && (params != null)) {
+                    // input file = data part (blob) followed by the input param HDU:
+                    final byte[] data = input[0];
+                    input[0] = new byte[data.length + params.length];
+                    System.arraycopy(data, 0, input[0], 0, data.length);
+                    System.arraycopy(params, 0, input[0], data.length, params.length);
+                }
+            } else {
+                request.getEntity().exhaust();
+                // simple form (tests):
+                hasInput = true;
+            }
+        }
+        if (!hasInput) {
+            response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST, "missing input");
+        }
+        return hasInput;
+    }
+
+    private void handleJobList(final Response response) throws JAXBException {
+        final Jobs list = new Jobs();
+        for (StubJob job : jobs.values()) {
+            final ShortJobDescription desc = new ShortJobDescription();
+            desc.setId(job.id);
+            desc.setPhase(job.getPhase());
+            list.getJobref().add(desc);
+        }
+        response.setEntity(marshal(list), MediaType.TEXT_XML);
+    }
+
+    /**
+     * Give the result list or the content of the given result (logfile or outputfile, see createOutput)
+     * once the job is completed
+     */
+    private void handleResults(final StubJob job, final String resultId, final Request request, final Response response) throws JAXBException {
+        final boolean completed = (job.getPhase() == ExecutionPhase.COMPLETED);
+
+        if (resultId == null) {
+            final Results results = new Results();
+            if (completed) {
+                final String jobUrl = request.getResourceRef().getHostIdentifier() + JOBS_PATH + '/' + job.id + "/results/";
+                results.getResult().add(createResultReference("logfile", jobUrl));
+                if (job.input != null) {
+                    results.getResult().add(createResultReference("outputfile", jobUrl));
+                }
+            }
+            response.setEntity(marshal(results), MediaType.TEXT_XML);
+            return;
+        }
+        if (completed && "logfile".equals(resultId)) {
+            response.setEntity(job.getLog(), MediaType.TEXT_PLAIN);
+            return;
+        }
+        if (completed && "outputfile".equals(resultId) && (job.output != null)) {
+            response.setEntity(new ByteArrayRepresentation(job.output, MediaType.APPLICATION_OCTET_STREAM));
+            return;
+        }
+        response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+    }
+
+    /**
+     * Create the output file of the fake reconstruction like a real software output: the input file
+     * (without its IMAGE-OI OUTPUT PARAM HDU if any) followed by a small image HDU (RESULT_IMAGE_NAME)
+     * and an IMAGE-OI OUTPUT PARAM HDU giving it as last image. An input that is not a FITS file is echoed.
+     * @param input input file content
+     * @return output file content
+     */
+    static byte[] createOutput(final byte[] input) {
+        if ((input.length == 0) || (input.length % FITS_BLOCK != 0)) {
+            return input;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(input.length + 3 * FITS_BLOCK);
+
+        int pos = 0;
+        while (pos < input.length) {
+            // parse the header:
+            final Map<String, String> values = new HashMap<String, String>();
+            int dataPos = -1;
+            for (int card = pos; card < input.length; card += FITS_CARD) {
+                final String line = new String(input, card, FITS_CARD, StandardCharsets.US_ASCII);
+                final String key = line.substring(0, 8).trim();
+                if ("END".equals(key)) {
+                    dataPos = getPaddedSize(card + FITS_CARD);
+                    break;
+                }
+                if (line.startsWith("= ", 8)) {
+                    values.put(key, parseCardValue(line.substring(10)));
+                }
+            }
+            if (dataPos < 0) {
+                // invalid FITS file:
+                return input;
+            }
+            final long dataSize = getDataSize(values);
+            final int end = (int) Math.min(input.length, getPaddedSize(dataPos + dataSize));
+
+            if ((pos == 0) || !EXTNAME_OUTPUT_PARAM.equals(values.get("EXTNAME"))) {
+                out.write(input, pos, end - pos);
+            }
+            pos = end;
+        }
+
+        // result image (gaussian):
+        final List<String> cards = new ArrayList<String>(16);
+        addCard(cards, "XTENSION", "'IMAGE   '");
+        addCard(cards, "BITPIX", "-32");
+        addCard(cards, "NAXIS", "2");
+        addCard(cards, "NAXIS1", Integer.toString(RESULT_IMAGE_SIZE));
+        addCard(cards, "NAXIS2", Integer.toString(RESULT_IMAGE_SIZE));
+        addCard(cards, "PCOUNT", "0");
+        addCard(cards, "GCOUNT", "1");
+        addCard(cards, "HDUNAME", "'" + RESULT_IMAGE_NAME + "'");
+        writeHeader(out, cards);
+
+        final ByteBuffer data = ByteBuffer.allocate(getPaddedSize(4 * RESULT_IMAGE_SIZE * RESULT_IMAGE_SIZE));
+        final double center = 0.5 * (RESULT_IMAGE_SIZE - 1);
+        for (int j = 0; j < RESULT_IMAGE_SIZE; j++) {
+            for (int i = 0; i < RESULT_IMAGE_SIZE; i++) {
+                final double r2 = (i - center) * (i - center) + (j - center) * (j - center);
+                data.putFloat((float) Math.exp(-r2 / RESULT_IMAGE_SIZE));
+            }
+        }
+        out.write(data.array(), 0, data.capacity());
+
+        // output params (no data):
+        cards.clear();
+        addCard(cards, "XTENSION", "'BINTABLE'");
+        addCard(cards, "BITPIX", "8");
+        addCard(cards, "NAXIS", "2");
+        addCard(cards, "NAXIS1", "0");
+        addCard(cards, "NAXIS2", "0");
+        addCard(cards, "PCOUNT", "0");
+        addCard(cards, "GCOUNT", "1");
+        addCard(cards, "TFIELDS", "0");
+        addCard(cards, "EXTNAME", "'" + EXTNAME_OUTPUT_PARAM + "'");
+        addCard(cards, "LAST_IMG", "'" + RESULT_IMAGE_NAME + "'");
+        addCard(cards, "NITER", "1");
+        addCard(cards, "CONVERGE", "T");
+        writeHeader(out, cards);
+
+        return out.toByteArray();
+    }
+
+    private static String parseCardValue(final String value) {
+        if (value.trim().startsWith("'")) {
+            final int start = value.indexOf('\'');
+            final int end = value.indexOf('\'', start + 1);
+            return (end > start) ? value.substring(start + 1, end).trim() : value.substring(start + 1).trim();
+        }
+        final int comment = value.indexOf('/');
+        return ((comment != -1) ? value.substring(0, comment) : value).trim();
+    }
+
+    private static long getDataSize(final Map<String, String> values) {
+        final int naxis = Integer.parseInt(values.containsKey("NAXIS") ? values.get("NAXIS") : "0");
+        if (naxis == 0) {
+            return 0L;
+        }
+        long size = 1L;
+        for (int i = 1; i <= naxis; i++) {
+            size *= Long.parseLong(values.get("NAXIS" + i));
+        }
+        final long pcount = values.containsKey("PCOUNT") ? Long.parseLong(values.get("PCOUNT")) : 0L;
+        final long gcount = values.containsKey("GCOUNT") ? Long.parseLong(values.get("GCOUNT")) : 1L;
+        return (Math.abs(Integer.parseInt(values.get("BITPIX"))) / 8) * gcount * (pcount + size);
+    }
+
+    private static int getPaddedSize(final long size) {
+        return (int) (((size + FITS_BLOCK - 1) / FITS_BLOCK) * FITS_BLOCK);
+    }
+
+    private static void addCard(final List<String> cards, final String key, final String value) {
+        // fixed format: strings start at column 11, other values are right justified to column 30:
+        cards.add(String.format((value.startsWith("'") ? "%-8s= %-20s" : "%-8s= %20s"), key, value));
+    }
+
+    private static void writeHeader(final ByteArrayOutputStream out, final List<String> cards) {
+        final StringBuilder sb = new StringBuilder(FITS_BLOCK);
+        for (String card : cards) {
+            sb.append(String.format("%-80s", card));
+        }
+        sb.append(String.format("%-80s", "END"));
+        while (sb.length() % FITS_BLOCK != 0) {
+            sb.append(' ');
+        }
+        final byte[] header = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        out.write(header, 0, header.length);
+    }
+
+    private static ResultReference createResultReference(final String id, final String resultsUrl) {
+        final ResultReference ref = new ResultReference();
+        ref.setId(id);
+        ref.setHref(resultsUrl + id);
+        return ref;
+    }
+
+    private String marshal(final Object element) throws JAXBException {
+        final StringWriter sw = new StringWriter(1024);
+        final Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.marshal(element, sw);
+        return sw.toString();
+    }
+
+    private void handleJobSummary(final StubJob job, final Form query, final Response response) throws JAXBException, InterruptedException {
+        final String wait = query.getFirstValue("WAIT");
+
+        if (waitSupported && wait != null) {
+            // UWS 1.1: block while the job is in the given phase (or active):
+            final String phase = query.getFirstValue("PHASE");
+            final long end = System.currentTimeMillis() + 1000L * Long.parseLong(wait);
+
+            while (System.currentTimeMillis() < end
+                    && ((phase != null) ? job.getPhase().value().equals(phase) : job.getPhase() == ExecutionPhase.EXECUTING)) {
+                Thread.sleep(10L);
+            }
+        }
+
+        final JobSummary summary = new JobSummary();
+        summary.setJobId(job.id);
+        summary.setPhase(job.getPhase());
+
+        if (summary.getPhase() == ExecutionPhase.ERROR) {
+            final ErrorSummary error = new ErrorSummary();
+            error.setType(ErrorType.FATAL);
+            error.setMessage("injected job failure");
+            summary.setErrorSummary(error);
+        }
+        response.setEntity(marshal(new ObjectFactory().createJob(summary)), MediaType.TEXT_XML);
+    }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.image.FitsImageLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the image HDU registry (duplicates, excluded name and name conflicts)
+ * @author bourgesl
+ */
+public class FitsImageHDURegistryTest {
+
+    private static final String PRIOR_FILE = "test/priors/OnlyHighFrequencies2.fits";
+
+    /** handler recording its calls */
+    private static final class RecordingHandler implements FitsImageHDURegistry.NameConflictHandler {
+
+        final boolean accept;
+        final List<String> renames = new ArrayList<String>();
+        final List<String> duplicates = new ArrayList<String>();
+
+        RecordingHandler(final boolean accept) {
+            this.accept = accept;
+        }
+
+        @Override
+        public boolean acceptRename(final String name, final String newName) {
+            renames.add(newName);
+            return accept;
+        }
+
+        @Override
+        public void skipDuplicate(final String newName) {
+            duplicates.add(newName);
+        }
+    }
+
+    private FitsImageHDURegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new FitsImageHDURegistry();
+    }
+
+    @Test
+    public void testLoadedImageDuplicate() throws Exception {
+        final RecordingHandler handler = new RecordingHandler(true);
+
+        final List<FitsImageHDU> first = FitsImageLoader.load(PRIOR_FILE, true, true).getFitsImageHDUs();
+        final List<FitsImageHDU> added = registry.addAll(first, "prior.fits", null, "1", handler);
+
+        assertEquals(1, added.size());
+        final FitsImageHDU hdu = added.get(0);
+        assertSame(hdu, registry.getByName(hdu.getHduName()));
+        assertSame(hdu, registry.getByChecksum(hdu.getChecksum()));
+        assertEquals("prior.fits", registry.getFilename(hdu));
+
+        // same file loaded again: same checksum so skipped
+        final List<FitsImageHDU> second = FitsImageLoader.load(PRIOR_FILE, true, true).getFitsImageHDUs();
+        assertTrue(registry.contains(second.get(0)));
+        assertTrue(registry.addAll(second, "prior.fits", null, "2", handler).isEmpty());
+        assertEquals(1, registry.size());
+        assertTrue(handler.renames.isEmpty());
+    }
+
+    @Test
+    public void testExcludedName() {
+        final RecordingHandler handler = new RecordingHandler(true);
+
+        final List<FitsImageHDU> added = registry.addAll(
+                Arrays.asList(createHDU("INPUT", 1L), createHDU("OTHER", 2L), createHDU("NEXT", 3L)),
+                "file.fits", "INPUT", "1", handler);
+
+        // the excluded hdu does not stop the iteration:
+        assertEquals(2, added.size());
+        assertNull(registry.getByName("INPUT"));
+        assertEquals("OTHER", registry.getList().get(0).getHduName());
+        assertEquals("NEXT", registry.getList().get(1).getHduName());
+    }
+
+    @Test
+    public void testRenameAccepted() {
+        final RecordingHandler handler = new RecordingHandler(true);
+
+        registry.addAll(Arrays.asList(createHDU("IMG", 1L)), "a.fits", null, "1", handler);
+        final List<FitsImageHDU> added = registry.addAll(Arrays.asList(createHDU("IMG", 2L)), "b.fits", null, "2", handler);
+
+        assertEquals(1, added.size());
+        assertEquals(Arrays.asList("IMG-2"), handler.renames);
+        assertSame(added.get(0), registry.getByName("IMG-2"));
+        assertEquals(2L, registry.getByName("IMG-2").getChecksum());
+        assertEquals(1L, registry.getByName("IMG").getChecksum());
+    }
+
+    @Test
+    public void testRenameRefused() {
+        final RecordingHandler handler = new RecordingHandler(false);
+
+        registry.addAll(Arrays.asList(createHDU("IMG", 1L)), "a.fits", null, "1", handler);
+        assertTrue(registry.addAll(Arrays.asList(createHDU("IMG", 2L)), "b.fits", null, "2", handler).isEmpty());
+
+        assertEquals(Arrays.asList("IMG-2"), handler.renames);
+        assertEquals(1, registry.size());
+        assertNull(registry.getByChecksum(2L));
+    }
+
+    @Test
+    public void testRenamedNameUsed() {
+        final RecordingHandler handler = new RecordingHandler(true);
+
+        registry.addAll(Arrays.asList(createHDU("IMG", 1L), createHDU("IMG-2", 2L)), "a.fits", null, "1", handler);
+        assertTrue(registry.addAll(Arrays.asList(createHDU("IMG", 3L)), "b.fits", null, "2", handler).isEmpty());
+
+        assertEquals(Arrays.asList("IMG-2"), handler.duplicates);
+        assertTrue(handler.renames.isEmpty());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testSameBatchConflict() {
+        final RecordingHandler handler = new RecordingHandler(true);
+
+        final List<FitsImageHDU> added = registry.addAll(
+                Arrays.asList(createHDU("IMG", 1L), createHDU("IMG", 2L), createHDU("IMG", 1L)),
+                "a.fits", null, "1", handler);
+
+        assertEquals(2, added.size());
+        assertEquals("IMG", added.get(0).getHduName());
+        assertEquals("IMG-1", added.get(1).getHduName());
+    }
+
+    @Test
+    public void testMissingName() {
+        final RecordingHandler handler = new RecordingHandler(true);
+
+        final List<FitsImageHDU> added = registry.addAll(Arrays.asList(createHDU(null, 1L)), "file.fits", null, "1", handler);
+
+        assertEquals("file.fits", added.get(0).getHduName());
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertNull(registry.getByChecksum(1L));
+    }
+
+    @Test
+    public void testReplace() {
+        final RecordingHandler handler = new RecordingHandler(true);
+
+        final List<FitsImageHDU> added = registry.addAll(Arrays.asList(createHDU("IMG", 1L), createHDU("NEXT", 2L)), "a.fits", null, "1", handler);
+
+        final FitsImageHDU placeholder = new FitsImageHDU();
+        placeholder.setHduName("IMG");
+
+        assertTrue(registry.replace(added.get(0), placeholder));
+        assertFalse(registry.replace(added.get(0), placeholder));
+        assertEquals(2, registry.size());
+        assertSame(placeholder, registry.getList().get(0));
+        assertSame(placeholder, registry.getByName("IMG"));
+        assertSame(placeholder, registry.getByChecksum(1L));
+        assertEquals("a.fits", registry.getFilename(placeholder));
+        assertNull(registry.getFilename(added.get(0)));
+        assertTrue(registry.contains(placeholder));
+
+        // same image still detected as duplicate:
+        assertTrue(registry.addAll(Arrays.asList(createHDU("IMG", 1L)), "b.fits", null, "2", handler).isEmpty());
+    }
+
+    private static FitsImageHDU createHDU(final String hduName, final long checksum) {
+        final FitsImageHDU hdu = new FitsImageHDU() {
+            @Override
+            public long getChecksum() {
+                return checksum;
+            }
+        };
+        hdu.setHduName(hduName);
+
+        final FitsImage image = new FitsImage();
+        image.setData(new float[][]{{1f, 2f}, {3f, 4f}});
+        hdu.getFitsImages().add(image);
+        return hdu;
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.image.FitsImageLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Check that the parallel image preparation gives the same images as the serial one
+ * and log their timings (prior image and chromatic cube)
+ * @author bourgesl
+ */
+public class FitsImagePreparationTest {
+
+    /** Logger */
+    private static final Logger logger = LoggerFactory.getLogger(FitsImagePreparationTest.class);
+
+    private static final String PRIOR_FILE = "test/priors/OnlyHighFrequencies2.fits";
+    /** number of planes of the synthetic cube */
+    private static final int CUBE_PLANES = 200;
+    /** number of timed iterations */
+    private static final int ITERATIONS = 5;
+
+    @Test
+    public void testPrior() throws Exception {
+        compare("prior", 1);
+    }
+
+    @Test
+    public void testCube() throws Exception {
+        compare("cube", CUBE_PLANES);
+    }
+
+    private static void compare(final String name, final int planes) throws Exception {
+        final FitsImage prior = loadPrior();
+
+        long serialTime = 0L;
+        long parallelTime = 0L;
+
+        for (int n = 0; n < ITERATIONS; n++) {
+            final List<FitsImage> serial = createPlanes(prior, planes);
+            final List<FitsImage> parallel = createPlanes(prior, planes);
+
+            long start = System.nanoTime();
+            FitsImagePreparation.prepareSerial(serial);
+            serialTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            FitsImagePreparation.prepareParallel(parallel);
+            parallelTime += System.nanoTime() - start;
+
+            for (int i = 0; i < planes; i++) {
+                final FitsImage expected = serial.get(i);
+                final FitsImage actual = parallel.get(i);
+                assertEquals(expected.getNbRows(), actual.getNbRows());
+                assertEquals(expected.getNbCols(), actual.getNbCols());
+                assertTrue("plane " + i, Arrays.deepEquals(expected.getData(), actual.getData()));
+            }
+        }
+        logger.info("{}: {} planes: serial = {} ms, parallel = {} ms", name, planes,
+                1e-6d * serialTime / ITERATIONS, 1e-6d * parallelTime / ITERATIONS);
+    }
+
+    private static FitsImage loadPrior() throws Exception {
+        final List<FitsImageHDU> hdus = FitsImageLoader.load(PRIOR_FILE, true, true).getFitsImageHDUs();
+        return hdus.get(0).getFitsImages().get(0);
+    }
+
+    /**
+     * Create planes as unprepared copies of the given image (data shifted per plane)
+     */
+    private static List<FitsImage> createPlanes(final FitsImage src, final int planes) {
+        final float[][] data = src.getData();
+        final List<FitsImage> images = new ArrayList<FitsImage>(planes);
+
+        for (int p = 0; p < planes; p++) {
+            final float[][] copy = new float[data.length][];
+            for (int j = 0; j < data.length; j++) {
+                copy[j] = data[j].clone();
+                if (p != 0) {
+                    for (int i = 0; i < copy[j].length; i++) {
+                        copy[j][i] += p * 1e-3f;
+                    }
+                }
+            }
+            final FitsImage image = new FitsImage();
+            image.setPixRefCol(src.getPixRefCol());
+            image.setPixRefRow(src.getPixRefRow());
+            image.setValRefCol(src.getValRefCol());
+            image.setValRefRow(src.getValRefRow());
+            image.setSignedIncCol(src.getSignedIncCol());
+            image.setSignedIncRow(src.getSignedIncRow());
+            image.setData(copy);
+            images.add(image);
+        }
+        return images;
+    }
+}
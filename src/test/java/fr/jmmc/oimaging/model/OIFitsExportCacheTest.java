@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oitools.image.ImageOiInputParam;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OIFitsWriter;
+import java.io.File;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the incremental export (spliced input param header) against a complete OIFitsWriter export
+ * @author bourgesl
+ */
+public class OIFitsExportCacheTest {
+
+    private static final String EXAMPLE_FILE = "test/2004-FKV1137-L1L2-example.fits";
+
+    private OIFitsFile oifitsFile;
+    private ImageOiInputParam params;
+    private OIFitsExportCache exportCache;
+    private File cachedFile;
+    private File fullFile;
+
+    @Before
+    public void setUp() throws Exception {
+        oifitsFile = OIFitsLoader.loadOIFits(EXAMPLE_FILE);
+        params = oifitsFile.getImageOiData().getInputParam();
+        params.setTarget("FKV1137");
+
+        exportCache = new OIFitsExportCache();
+
+        // first export (complete file cached):
+        final File baseFile = createTempFile("base");
+        exportCache.export(oifitsFile, 1, baseFile);
+
+        cachedFile = createTempFile("cached");
+        fullFile = createTempFile("full");
+    }
+
+    @After
+    public void tearDown() {
+        cachedFile.delete();
+        fullFile.delete();
+    }
+
+    @Test
+    public void testKeywordChange() throws Exception {
+        params.updateKeyword("MAXITER", "123");
+        params.setWaveMin(1.5e-6);
+
+        checkExport();
+    }
+
+    @Test
+    public void testLongString() throws Exception {
+        // does not fit in a single card: complete export expected
+        params.setTarget("A_VERY_LONG_TARGET_NAME_THAT_DOES_NOT_FIT_IN_A_SINGLE_FITS_HEADER_CARD_AT_ALL");
+
+        checkExport();
+    }
+
+    @Test
+    public void testQuotedString() throws Exception {
+        params.setTarget("O'BRIEN'S STAR");
+
+        checkExport();
+    }
+
+    private void checkExport() throws Exception {
+        Exception cachedError = null;
+        try {
+            exportCache.export(oifitsFile, 1, cachedFile);
+        } catch (Exception e) {
+            cachedError = e;
+        }
+
+        Exception fullError = null;
+        final String path = oifitsFile.getAbsoluteFilePath();
+        try {
+            OIFitsWriter.writeOIFits(fullFile.getAbsolutePath(), oifitsFile);
+        } catch (Exception e) {
+            fullError = e;
+        } finally {
+            oifitsFile.setAbsoluteFilePath(path);
+        }
+
+        // values rejected by the writer are rejected by both exports:
+        if (fullError != null) {
+            assertNotNull("cached export accepted a value rejected by OIFitsWriter", cachedError);
+            return;
+        }
+        if (cachedError != null) {
+            throw cachedError;
+        }
+
+        // same OI data and images:
+        final InputFileParts cachedParts = InputFileParts.index(cachedFile);
+        final InputFileParts fullParts = InputFileParts.index(fullFile);
+        assertTrue(cachedParts.hasInputParam());
+        assertTrue(fullParts.hasInputParam());
+        assertEquals(fullParts.computeDataHash(), cachedParts.computeDataHash());
+
+        // same input parameters:
+        final ImageOiInputParam cachedParams = OIFitsLoader.loadOIFits(cachedFile.getAbsolutePath()).getImageOiData().getInputParam();
+        final ImageOiInputParam fullParams = OIFitsLoader.loadOIFits(fullFile.getAbsolutePath()).getImageOiData().getInputParam();
+
+        for (String name : params.getKeywordsDesc().keySet()) {
+            assertEquals(name, fullParams.getKeywordValue(name), cachedParams.getKeywordValue(name));
+        }
+        assertEquals(fullParams.getKeywordsDesc().keySet(), cachedParams.getKeywordsDesc().keySet());
+    }
+
+    private static File createTempFile(final String name) throws Exception {
+        final File file = File.createTempFile("OIFitsExportCacheTest-" + name, ".fits");
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.model;
+
+import fr.jmmc.oimaging.services.software.MiraInputParam;
+import fr.jmmc.oitools.image.ImageOiInputParam;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the parameter sweep syntax (lists, linear and logarithmic ranges) and its expansion
+ * @author bourgesl
+ */
+public class ParameterSweepTest {
+
+    private static final String EXAMPLE_FILE = "test/2004-FKV1137-L1L2-example.fits";
+
+    private ImageOiInputParam params;
+
+    @Before
+    public void setUp() throws Exception {
+        params = OIFitsLoader.loadOIFits(EXAMPLE_FILE).getImageOiData().getInputParam();
+    }
+
+    @Test
+    public void testList() {
+        final ParameterSweep sweep = ParameterSweep.parse("# regularization\nrgl_name = mem_prior, compactness\n", params);
+
+        assertEquals(Arrays.asList("RGL_NAME"), sweep.getKeywordNames());
+        assertEquals(Arrays.asList("mem_prior", "compactness"), sweep.getValues("RGL_NAME"));
+        assertEquals(2, sweep.getPointCount());
+    }
+
+    @Test
+    public void testLinearRange() {
+        final ParameterSweep sweep = ParameterSweep.parse("MAXITER = 100:500:5", params);
+
+        assertEquals(Arrays.asList("100", "200", "300", "400", "500"), sweep.getValues("MAXITER"));
+
+        // integer rounding duplicates are skipped:
+        assertEquals(Arrays.asList("1", "2"), ParameterSweep.parse("MAXITER = 1:2:4", params).getValues("MAXITER"));
+    }
+
+    @Test
+    public void testLogRange() {
+        final List<String> values = ParameterSweep.parse("RGL_WGT = 1e-2:1e2:5:log", params).getValues("RGL_WGT");
+
+        assertEquals(5, values.size());
+        final double[] expected = new double[]{1e-2, 1e-1, 1.0, 1e1, 1e2};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], Double.parseDouble(values.get(i)), 1e-9 * expected[i]);
+        }
+    }
+
+    @Test
+    public void testExpand() {
+        final ParameterSweep sweep = ParameterSweep.parse("MAXITER = 50, 100\nRGL_WGT = 1:3:3", params);
+
+        final List<Map<String, String>> points = sweep.expand();
+        assertEquals(6, points.size());
+        // last keyword varying fastest:
+        assertEquals("50", points.get(0).get("MAXITER"));
+        assertEquals("1.0", points.get(0).get("RGL_WGT"));
+        assertEquals("50", points.get(2).get("MAXITER"));
+        assertEquals("3.0", points.get(2).get("RGL_WGT"));
+        assertEquals("100", points.get(3).get("MAXITER"));
+    }
+
+    @Test
+    public void testMaxPoints() {
+        // exactly the cap:
+        assertEquals(ParameterSweep.MAX_POINTS, ParameterSweep.parse("MAXITER = 1:1000:1000", params).getPointCount());
+
+        checkInvalid("MAXITER = 1:1001:1001");
+        checkInvalid("MAXITER = 1:100:100\nRGL_WGT = 1:11:11");
+    }
+
+    @Test
+    public void testInvalid() {
+        checkInvalid("");
+        checkInvalid("UNKNOWN_KEYWORD = 1, 2");
+        checkInvalid("MAXITER = 1, 2\nMAXITER = 3");
+        checkInvalid("MAXITER = 1:2");
+        checkInvalid("RGL_WGT = 0:1:3:log");
+        checkInvalid("RGL_WGT = 1:2:3:lin");
+        checkInvalid("RGL_NAME = 1:2:3");
+        checkInvalid("MAXITER = 1:2:0");
+    }
+
+    @Test
+    public void testInvalidValues() {
+        checkInvalid("MAXITER = 10, abc");
+        checkInvalid("MAXITER = 1.5");
+        checkInvalid("RGL_WGT = 1e3, x");
+
+        // RGL_NAME checked against the software values:
+        final String[] rglNames = MiraInputParam.RGL_NAME_MIRA;
+        assertEquals(Arrays.asList("compactness", "hyperbolic"),
+                ParameterSweep.parse("RGL_NAME = compactness, hyperbolic", params, rglNames).getValues("RGL_NAME"));
+        try {
+            ParameterSweep.parse("RGL_NAME = compactness, mem_prior", params, rglNames);
+            fail("IllegalArgumentException expected: unsupported RGL_NAME");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+    private void checkInvalid(final String definition) {
+        try {
+            ParameterSweep.parse(definition, params);
+            fail("IllegalArgumentException expected: " + definition);
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+}
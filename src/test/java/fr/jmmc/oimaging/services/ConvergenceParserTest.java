@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Test the convergence parsers on sample log lines of MiRA, BSMEM and WISARD
+ * @author bourgesl
+ */
+public class ConvergenceParserTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    public void testMiRA() {
+        final ConvergenceParser parser = ConvergenceParser.forSoftware("MiRA");
+        final ConvergenceData data = new ConvergenceData();
+
+        // header lines:
+        assertFalse(parser.parse("# ITER    TIME (ms)   EVAL  REJECT              F                 ||G||     STEP", data));
+        assertFalse(parser.parse("# ----  -----------  -----  ------  --------------------------  ---------  ---------", data));
+
+        // iteration rows:
+        assertTrue(parser.parse("     0       10.012      1       0  1.234567890123456E+03      1.23E+02  0.00E+00", data));
+        assertTrue(parser.parse("     1       21.500      3       1  9.876543210987654E+02      4.56E+01  1.00E-02", data));
+        assertTrue(parser.parse("    12      250.000     15       0  5.0D+02      1.00E-01  1.00E+00", data));
+
+        assertEquals(3, data.size());
+        assertArrayEquals(new double[]{0.0, 1.0, 12.0}, data.getIterations(), EPSILON);
+        assertArrayEquals(new double[]{1.234567890123456E+03, 9.876543210987654E+02, 5.0E+02}, data.getCost(), EPSILON);
+        assertTrue(Double.isNaN(data.getChi2()[0]));
+        // no chi2: the criterion is the cost
+        assertArrayEquals(data.getCost(), data.getCriterion(), EPSILON);
+    }
+
+    @Test
+    public void testBSMEM() {
+        final ConvergenceParser parser = ConvergenceParser.forSoftware("BSMEM");
+        final ConvergenceData data = new ConvergenceData();
+
+        assertFalse(parser.parse("BSMEM version 2.1.1", data));
+        assertFalse(parser.parse("Reading input file: /tmp/input.fits", data));
+
+        assertTrue(parser.parse(" Iteration   1  Chi2/N =   12.3456  Entropy = -1.2E+01  Flux = 1.000", data));
+        assertTrue(parser.parse(" Iteration   2  Chi2/N =    3.5000  Entropy = -2.5E+01  Flux = 1.000", data));
+
+        assertEquals(2, data.size());
+        assertArrayEquals(new double[]{1.0, 2.0}, data.getIterations(), EPSILON);
+        assertArrayEquals(new double[]{12.3456, 3.5}, data.getChi2(), EPSILON);
+        assertTrue(Double.isNaN(data.getCost()[0]));
+        assertArrayEquals(data.getChi2(), data.getCriterion(), EPSILON);
+    }
+
+    @Test
+    public void testWISARD() {
+        final ConvergenceParser parser = ConvergenceParser.forSoftware("WISARD");
+        final ConvergenceData data = new ConvergenceData();
+
+        assertFalse(parser.parse("WISARD: iterations start", data));
+
+        assertTrue(parser.parse("iter=   12  crit=  1.2345E+02  chi2/n=  1.234", data));
+        assertTrue(parser.parse("iter=   13  crit=  1.2000E+02  chi2/n=  1.200", data));
+
+        assertEquals(2, data.size());
+        assertArrayEquals(new double[]{12.0, 13.0}, data.getIterations(), EPSILON);
+        assertArrayEquals(new double[]{123.45, 120.0}, data.getCost(), EPSILON);
+        assertArrayEquals(new double[]{1.234, 1.2}, data.getChi2(), EPSILON);
+    }
+
+    @Test
+    public void testGeneric() {
+        final ConvergenceParser parser = ConvergenceParser.forSoftware(null);
+        final ConvergenceData data = new ConvergenceData();
+
+        // iteration without criterion:
+        assertFalse(parser.parse("iteration 3 done", data));
+        // criterion without iteration:
+        assertFalse(parser.parse("final cost = 1.0", data));
+        // fortran exponent:
+        assertTrue(parser.parse("iteration 3 cost = 1.5D+02", data));
+        // MiRA rows are not parsed by the generic parser:
+        assertFalse(parser.parse("     1       21.500      3       1  9.876543210987654E+02      4.56E+01  1.00E-02", data));
+
+        assertEquals(1, data.size());
+        assertEquals(150.0, data.getCost()[0], EPSILON);
+    }
+
+    @Test
+    public void testParseText() {
+        final ConvergenceData data = new ConvergenceData();
+        ConvergenceParser.forSoftware("mira-2").parseText("# ITER TIME EVAL REJECT F\n"
+                + "     0       10.0      1       0  3.0E+02\n"
+                + "     1       20.0      2       0  2.0E+02\n"
+                + "iteration 2 chi2 = 1.5\n", data);
+
+        assertEquals(3, data.size());
+        assertArrayEquals(new double[]{0.0, 1.0, 2.0}, data.getIterations(), EPSILON);
+    }
+}
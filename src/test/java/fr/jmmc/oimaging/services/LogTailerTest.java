@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oimaging.services;
+
+import java.nio.charset.Charset;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Test the log tailer with chunks splitting lines and UTF-8 sequences
+ * @author bourgesl
+ */
+public class LogTailerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testSplitLines() {
+        final ExecutionLogBuffer buffer = new ExecutionLogBuffer(100);
+        final LogTailer tailer = new LogTailer("job", buffer);
+
+        append(tailer, "first li".getBytes(UTF_8));
+        append(tailer, "ne\r\nsecond".getBytes(UTF_8));
+        assertEquals("[job] first line\n", buffer.getText());
+
+        tailer.flush();
+        assertEquals("[job] first line\n[job] second\n", buffer.getText());
+    }
+
+    @Test
+    public void testSplitUTF8() {
+        final String text = "chi\u00b2 = 1.0 \u03bb=1.6\u00b5m \u2713\n";
+        final byte[] bytes = text.getBytes(UTF_8);
+
+        // every split position (inside multi-byte sequences too):
+        for (int i = 1; i < bytes.length; i++) {
+            final ExecutionLogBuffer buffer = new ExecutionLogBuffer(100);
+            final LogTailer tailer = new LogTailer("job", buffer);
+
+            append(tailer, copy(bytes, 0, i));
+            append(tailer, copy(bytes, i, bytes.length));
+            tailer.flush();
+
+            assertEquals("split at " + i, "[job] " + text, buffer.getText());
+            assertEquals(bytes.length, tailer.getOffset());
+        }
+    }
+
+    @Test
+    public void testTruncatedUTF8() {
+        final ExecutionLogBuffer buffer = new ExecutionLogBuffer(100);
+        final LogTailer tailer = new LogTailer("job", buffer);
+
+        final byte[] bytes = "end \u00b5".getBytes(UTF_8);
+        // last byte missing (job killed):
+        append(tailer, copy(bytes, 0, bytes.length - 1));
+        tailer.flush();
+
+        assertEquals("[job] end \ufffd\n", buffer.getText());
+    }
+
+    private static void append(final LogTailer tailer, final byte[] data) {
+        tailer.append(data, data.length);
+    }
+
+    private static byte[] copy(final byte[] data, final int from, final int to) {
+        final byte[] part = new byte[to - from];
+        System.arraycopy(data, from, part, 0, part.length);
+        return part;
+    }
+}